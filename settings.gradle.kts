@@ -5,6 +5,7 @@ include("usvm-jvm")
 include("usvm-util")
 include("usvm-jvm-instrumentation")
 include("usvm-sample-language")
+include("usvm-benchmarks")
 
 pluginManagement {
     resolutionStrategy {
@@ -0,0 +1,25 @@
+plugins {
+    id("usvm.kotlin-conventions")
+    id("me.champeau.jmh") version Versions.jmhPlugin
+}
+
+dependencies {
+    jmh(project(":usvm-core"))
+    jmh(project(":usvm-sample-language"))
+    jmh(project(":usvm-jvm"))
+    jmh("org.jacodb:jacodb-core:${Versions.jcdb}")
+}
+
+jmh {
+    jmhVersion.set(Versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+}
+
+tasks.named<JavaCompile>("jmhCompileGeneratedClasses") {
+    // Sources generated by the JMH annotation processor don't pass -Xlint:all
+    options.compilerArgs = options.compilerArgs - "-Werror"
+}
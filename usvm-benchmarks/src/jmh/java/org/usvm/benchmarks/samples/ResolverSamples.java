@@ -0,0 +1,31 @@
+package org.usvm.benchmarks.samples;
+
+/**
+ * Methods analyzed by {@code JcTestResolverBenchmark}. Their states have objects, arrays and aliasing to decode.
+ */
+public class ResolverSamples {
+    public static class Node {
+        public int value;
+        public Node next;
+    }
+
+    public static int sumPrefix(Node first, int[] values) {
+        int sum = 0;
+        Node node = first;
+        if (node != null) {
+            sum += node.value;
+            node = node.next;
+        }
+        if (node != null) {
+            sum += node.value;
+            node = node.next;
+        }
+        if (node != null && node.next == first) {
+            sum++;
+        }
+        if (values != null && values.length > 2 && values[0] > values[1]) {
+            sum += values[2];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,33 @@
+package org.usvm.benchmarks
+
+import io.ksmt.solver.z3.KZ3Solver
+import org.usvm.UBv32SizeExprProvider
+import org.usvm.UBv32Sort
+import org.usvm.UComponents
+import org.usvm.UContext
+import org.usvm.USizeExprProvider
+import org.usvm.solver.USolverBase
+import org.usvm.solver.UTypeSolver
+import org.usvm.types.UTypeSystem
+import kotlin.time.Duration
+
+/**
+ * Language-agnostic components for benchmarks of the core engine: sizes are 32-bit bit-vectors,
+ * and queries are checked by Z3 without a timeout.
+ */
+class BenchmarkComponents<Type>(
+    private val typeSystem: UTypeSystem<Type>,
+) : UComponents<Type, UBv32Sort> {
+    override val useSolverForForks: Boolean get() = true
+
+    override fun <Context : UContext<UBv32Sort>> mkSolver(ctx: Context): USolverBase<Type> {
+        val (translator, decoder) = buildTranslatorAndLazyDecoder(ctx)
+        val typeSolver = UTypeSolver(typeSystem)
+        return USolverBase(ctx, KZ3Solver(ctx), typeSolver, translator, decoder, Duration.INFINITE)
+    }
+
+    override fun mkTypeSystem(ctx: UContext<UBv32Sort>): UTypeSystem<Type> = typeSystem
+
+    override fun <Context : UContext<UBv32Sort>> mkSizeExprProvider(ctx: Context): USizeExprProvider<UBv32Sort> =
+        UBv32SizeExprProvider(ctx)
+}
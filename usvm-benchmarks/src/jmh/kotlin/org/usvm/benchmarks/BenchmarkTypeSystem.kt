@@ -0,0 +1,48 @@
+package org.usvm.benchmarks
+
+import org.usvm.types.USupportTypeStream
+import org.usvm.types.UTypeStream
+import org.usvm.types.UTypeSystem
+import kotlin.time.Duration
+
+/**
+ * A single-inheritance hierarchy shaped as a complete tree with the given [depth] and [fanout].
+ * Types are numbered in breadth-first order, so [TOP_TYPE] is the root and a parent is always less than its children.
+ */
+class BenchmarkTypeSystem(
+    depth: Int,
+    private val fanout: Int,
+) : UTypeSystem<Int> {
+    val typesCount: Int = (0 until depth).fold(1) { count, _ -> count * fanout + 1 }
+
+    override val typeOperationsTimeout: Duration get() = Duration.INFINITE
+
+    fun parent(type: Int): Int = (type - 1) / fanout
+
+    override fun isSupertype(supertype: Int, type: Int): Boolean {
+        var current = type
+        while (current > supertype) {
+            current = parent(current)
+        }
+        return current == supertype
+    }
+
+    // Supertypes of a type form a chain, so the only common subtypes are the subtypes of the deepest one
+    override fun hasCommonSubtype(type: Int, types: Collection<Int>): Boolean =
+        types.all { isSupertype(it, type) }
+
+    override fun isFinal(type: Int): Boolean = type * fanout + 1 >= typesCount
+
+    override fun isInstantiable(type: Int): Boolean = true
+
+    override fun findSubtypes(type: Int): Sequence<Int> {
+        val firstChild = type * fanout + 1
+        return (firstChild until minOf(firstChild + fanout, typesCount)).asSequence()
+    }
+
+    override fun topTypeStream(): UTypeStream<Int> = USupportTypeStream.from(this, TOP_TYPE)
+
+    companion object {
+        const val TOP_TYPE = 0
+    }
+}
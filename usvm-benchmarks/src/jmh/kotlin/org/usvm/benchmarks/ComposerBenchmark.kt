@@ -0,0 +1,52 @@
+package org.usvm.benchmarks
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.usvm.UBv32Sort
+import org.usvm.UComposer
+import org.usvm.UContext
+import org.usvm.UExpr
+import org.usvm.api.readArrayIndex
+import org.usvm.constraints.UPathConstraints
+import org.usvm.memory.UMemory
+
+/**
+ * Composes a read over a long update chain with a memory where all the indices are concrete,
+ * as it happens when a callee's summary is applied or a model is evaluated.
+ */
+@State(Scope.Thread)
+open class ComposerBenchmark {
+    @Param("16", "128", "1024")
+    @JvmField
+    var updatesCount: Int = 0
+
+    private lateinit var ctx: UContext<UBv32Sort>
+    private lateinit var expr: UExpr<UBv32Sort>
+    private lateinit var composedMemory: UMemory<Int, Any?>
+
+    @Setup
+    fun setup() {
+        ctx = mkBenchmarkContext()
+        val array = ctx.mkRegisterReading(0, ctx.addressSort)
+        val indices = List(updatesCount) { ctx.mkRegisterReading(it + 1, ctx.bv32Sort) }
+        val readIndex = ctx.mkRegisterReading(updatesCount + 1, ctx.bv32Sort)
+        expr = ctx.mkMemoryWithUpdates(array, indices).readArrayIndex(array, readIndex, ARRAY_TYPE, ctx.bv32Sort)
+
+        composedMemory = UMemory(ctx, UPathConstraints<Int>(ctx).typeConstraints)
+        composedMemory.stack.push(updatesCount + 2)
+        for (register in 1..updatesCount + 1) {
+            composedMemory.stack.writeRegister(register, ctx.mkBv(register % INDICES_RANGE))
+        }
+    }
+
+    // The composer memoizes its results, so a fresh one is created for each invocation
+    @Benchmark
+    fun compose(): UExpr<UBv32Sort> = UComposer(ctx, composedMemory).compose(expr)
+
+    companion object {
+        private const val INDICES_RANGE = 32
+    }
+}
@@ -0,0 +1,39 @@
+package org.usvm.benchmarks
+
+import io.ksmt.expr.KExpr
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.usvm.UBv32Sort
+import org.usvm.UContext
+import org.usvm.UExpr
+import org.usvm.api.readArrayIndex
+import org.usvm.solver.UExprTranslator
+
+/**
+ * Translates a read over a long update chain to SMT.
+ */
+@State(Scope.Thread)
+open class ExprTranslatorBenchmark {
+    @Param("16", "128", "1024")
+    @JvmField
+    var updatesCount: Int = 0
+
+    private lateinit var ctx: UContext<UBv32Sort>
+    private lateinit var expr: UExpr<UBv32Sort>
+
+    @Setup
+    fun setup() {
+        ctx = mkBenchmarkContext()
+        val array = ctx.mkRegisterReading(0, ctx.addressSort)
+        val indices = List(updatesCount) { ctx.mkRegisterReading(it + 1, ctx.bv32Sort) }
+        val readIndex = ctx.mkRegisterReading(updatesCount + 1, ctx.bv32Sort)
+        expr = ctx.mkMemoryWithUpdates(array, indices).readArrayIndex(array, readIndex, ARRAY_TYPE, ctx.bv32Sort)
+    }
+
+    // The translator caches translated expressions and regions, so a fresh one is created for each invocation
+    @Benchmark
+    fun translate(): KExpr<UBv32Sort> = UExprTranslator<Int, UBv32Sort>(ctx).translate(expr)
+}
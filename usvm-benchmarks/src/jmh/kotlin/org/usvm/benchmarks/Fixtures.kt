@@ -0,0 +1,29 @@
+package org.usvm.benchmarks
+
+import org.usvm.UBv32Sort
+import org.usvm.UContext
+import org.usvm.UExpr
+import org.usvm.UHeapRef
+import org.usvm.api.writeArrayIndex
+import org.usvm.constraints.UPathConstraints
+import org.usvm.memory.UMemory
+
+internal const val ARRAY_TYPE = BenchmarkTypeSystem.TOP_TYPE
+
+internal fun mkBenchmarkContext(): UContext<UBv32Sort> =
+    UContext(BenchmarkComponents(BenchmarkTypeSystem(depth = 4, fanout = 4)))
+
+/**
+ * Returns a memory where the i-th value is written to the [array] at the i-th of the [indices].
+ * Reads from the array in this memory have to look through all the updates.
+ */
+internal fun UContext<UBv32Sort>.mkMemoryWithUpdates(
+    array: UHeapRef,
+    indices: List<UExpr<UBv32Sort>>,
+): UMemory<Int, Any?> {
+    val memory = UMemory<Int, Any?>(this, UPathConstraints<Int>(this).typeConstraints)
+    for ((value, index) in indices.withIndex()) {
+        memory.writeArrayIndex(array, index, ARRAY_TYPE, bv32Sort, mkBv(value), trueExpr)
+    }
+    return memory
+}
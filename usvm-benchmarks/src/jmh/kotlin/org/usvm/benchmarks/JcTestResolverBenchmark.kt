@@ -0,0 +1,79 @@
+package org.usvm.benchmarks
+
+import kotlinx.coroutines.runBlocking
+import org.jacodb.api.JcClasspath
+import org.jacodb.api.JcDatabase
+import org.jacodb.api.JcTypedMethod
+import org.jacodb.api.ext.findClass
+import org.jacodb.api.ext.toType
+import org.jacodb.impl.features.InMemoryHierarchy
+import org.jacodb.impl.jacodb
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.usvm.CoverageZone
+import org.usvm.PathSelectionStrategy
+import org.usvm.StateCollectionStrategy
+import org.usvm.UMachineOptions
+import org.usvm.api.JcTest
+import org.usvm.api.util.JcTestInterpreter
+import org.usvm.benchmarks.samples.ResolverSamples
+import org.usvm.machine.JcMachine
+import org.usvm.machine.state.JcState
+import java.io.File
+import kotlin.time.Duration
+
+/**
+ * Resolves tests from all the states of a sample method, i.e. decodes their models into objects and arrays.
+ * The states are collected once in [setup], so only the resolution is measured. Models memoize the values
+ * they evaluate, so after the first invocation it is mostly the resolver itself.
+ */
+@State(Scope.Thread)
+open class JcTestResolverBenchmark {
+    private lateinit var db: JcDatabase
+    private lateinit var cp: JcClasspath
+    private lateinit var machine: JcMachine
+    private lateinit var method: JcTypedMethod
+    private lateinit var states: List<JcState>
+
+    private val testResolver = JcTestInterpreter()
+
+    @Setup
+    fun setup() {
+        // The samples are compiled along with the benchmarks, so the classpath is where this class is loaded from
+        val classpath = listOf(File(ResolverSamples::class.java.protectionDomain.codeSource.location.toURI()))
+        runBlocking {
+            db = jacodb {
+                useProcessJavaRuntime()
+                installFeatures(InMemoryHierarchy)
+                loadByteCode(classpath)
+            }
+            cp = db.classpath(classpath)
+            db.awaitBackgroundJobs()
+        }
+
+        method = cp.findClass<ResolverSamples>().toType().declaredMethods.first { it.name == "sumPrefix" }
+        val options = UMachineOptions(
+            pathSelectionStrategies = listOf(PathSelectionStrategy.BFS),
+            stateCollectionStrategy = StateCollectionStrategy.ALL,
+            coverageZone = CoverageZone.METHOD,
+            stopOnCoverage = -1,
+            solverTimeout = Duration.INFINITE,
+            typeOperationsTimeout = Duration.INFINITE,
+        )
+        machine = JcMachine(cp, options)
+        states = machine.analyze(method.method)
+    }
+
+    @TearDown
+    fun tearDown() {
+        machine.close()
+        cp.close()
+        db.close()
+    }
+
+    @Benchmark
+    fun resolve(): List<JcTest> = states.map { testResolver.resolve(method, it) }
+}
@@ -0,0 +1,56 @@
+package org.usvm.benchmarks
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.usvm.UBoolExpr
+import org.usvm.UBv32Sort
+import org.usvm.UContext
+import org.usvm.constraints.UNumericConstraints
+import kotlin.random.Random
+
+/**
+ * Adds bounds and orderings of integer variables in a random order, like a path through nested loops and branches.
+ */
+@State(Scope.Thread)
+open class NumericConstraintsBenchmark {
+    @Param("16", "128")
+    @JvmField
+    var variablesCount: Int = 0
+
+    private lateinit var ctx: UContext<UBv32Sort>
+    private lateinit var constraints: List<UBoolExpr>
+
+    @Setup
+    fun setup() {
+        ctx = mkBenchmarkContext()
+        val random = Random(SEED)
+        val variables = List(variablesCount) { ctx.mkRegisterReading(it, ctx.bv32Sort) }
+
+        // x_0 < x_1 < ... < x_n, each of them bounded, is satisfiable as long as the bounds are wide enough
+        constraints = with(ctx) {
+            val orderings = variables.zipWithNext { x, y -> mkBvSignedLessExpr(x, y) }
+            val bounds = variables.flatMap { x ->
+                listOf(
+                    mkBvSignedGreaterOrEqualExpr(x, mkBv(-random.nextInt(BOUND, 2 * BOUND))),
+                    mkBvSignedLessOrEqualExpr(x, mkBv(random.nextInt(BOUND, 2 * BOUND))),
+                )
+            }
+            (orderings + bounds).shuffled(random)
+        }
+    }
+
+    @Benchmark
+    fun addNumericConstraints(): UNumericConstraints<UBv32Sort> {
+        val numericConstraints = UNumericConstraints(ctx, ctx.bv32Sort)
+        constraints.forEach(numericConstraints::addNumericConstraint)
+        return numericConstraints
+    }
+
+    companion object {
+        private const val SEED = 42
+        private const val BOUND = 1000
+    }
+}
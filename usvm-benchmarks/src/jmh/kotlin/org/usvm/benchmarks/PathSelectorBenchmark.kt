@@ -0,0 +1,131 @@
+package org.usvm.benchmarks
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.usvm.PathSelectionStrategy
+import org.usvm.UBv32Sort
+import org.usvm.UContext
+import org.usvm.UMachineOptions
+import org.usvm.language.Body
+import org.usvm.language.BooleanConst
+import org.usvm.language.Goto
+import org.usvm.language.If
+import org.usvm.language.Label
+import org.usvm.language.Method
+import org.usvm.language.Program
+import org.usvm.language.Return
+import org.usvm.language.SetLabel
+import org.usvm.language.Stmt
+import org.usvm.machine.SampleApplicationGraph
+import org.usvm.machine.SampleState
+import org.usvm.machine.SampleTarget
+import org.usvm.machine.addEntryMethodCall
+import org.usvm.ps.createPathSelector
+import org.usvm.statistics.CoverageStatistics
+import org.usvm.statistics.distances.CfgStatisticsImpl
+import org.usvm.statistics.distances.PlainCallGraphStatistics
+import org.usvm.targets.UTargetsSet
+
+/**
+ * Grows a binary execution tree by repeatedly forking the peeked state, then drains the path selector.
+ * Measures add/peek/update/remove of the path selector, together with the forks themselves.
+ *
+ * States fork in a loop of a sample-language method, one branch goes around the loop, another one leaves it,
+ * so the distance-based strategies compute real distances to the uncovered statements and to the target.
+ */
+@State(Scope.Thread)
+open class PathSelectorBenchmark {
+    @Param(
+        "DFS",
+        "BFS",
+        "RANDOM_PATH",
+        "DEPTH",
+        "DEPTH_RANDOM",
+        "FORK_DEPTH",
+        "FORK_DEPTH_RANDOM",
+        "CLOSEST_TO_UNCOVERED",
+        "CLOSEST_TO_UNCOVERED_RANDOM",
+        "TARGETED",
+        "TARGETED_RANDOM",
+        "TARGETED_CALL_STACK_LOCAL",
+        "TARGETED_CALL_STACK_LOCAL_RANDOM",
+    )
+    @JvmField
+    var strategy: PathSelectionStrategy = PathSelectionStrategy.BFS
+
+    @Param("1024")
+    @JvmField
+    var forksCount: Int = 0
+
+    private lateinit var ctx: UContext<UBv32Sort>
+    private lateinit var options: UMachineOptions
+    private lateinit var applicationGraph: SampleApplicationGraph
+    private lateinit var cfgStatistics: CfgStatisticsImpl<Method<*>, Stmt>
+
+    private val loopHead = Label(0)
+    private val loopExit = Label(1)
+    private val trueBranch: Stmt = Goto(loopHead)
+    private val falseBranch: Stmt = SetLabel(loopExit)
+    private val exit: Stmt = Return(null)
+
+    private val loopMethod = Method(
+        "loop",
+        argumentsTypes = emptyList(),
+        returnType = null,
+        body = Body(
+            registersCount = 0,
+            stmts = listOf(SetLabel(loopHead), If(BooleanConst(true), loopExit), trueBranch, falseBranch, exit)
+        ),
+    )
+
+    private class ExitTarget(location: Stmt) : SampleTarget(location)
+
+    @Setup
+    fun setup() {
+        ctx = mkSampleContext()
+        options = UMachineOptions(pathSelectionStrategies = listOf(strategy))
+        applicationGraph = SampleApplicationGraph(Program("benchmark", emptyList(), listOf(loopMethod)))
+        // Distances are cached between the invocations, like between the steps of a machine
+        cfgStatistics = CfgStatisticsImpl(applicationGraph)
+    }
+
+    @Benchmark
+    fun forkAndDrain(): Int {
+        val initialState = SampleState(ctx, loopMethod, targets = UTargetsSet.from(listOf(ExitTarget(exit))))
+        initialState.addEntryMethodCall(applicationGraph, loopMethod)
+        // Coverage observers are registered by the path selector, so the statistics are created for each of them
+        val coverageStatistics = CoverageStatistics<Method<*>, Stmt, SampleState>(setOf(loopMethod), applicationGraph)
+        val pathSelector = createPathSelector<Method<*>, Stmt, SampleTarget, SampleState>(
+            initialState,
+            options,
+            applicationGraph,
+            coverageStatisticsFactory = { coverageStatistics },
+            cfgStatisticsFactory = { cfgStatistics },
+            callGraphStatisticsFactory = { PlainCallGraphStatistics() },
+        )
+
+        repeat(forksCount) {
+            val state = pathSelector.peek()
+            val forkedState = state.clone()
+            val forkPoint = state.pathNode
+
+            state.pathNode += trueBranch
+            state.forkPoints += forkPoint
+            forkedState.pathNode += falseBranch
+            forkedState.forkPoints += forkPoint
+
+            pathSelector.update(state)
+            pathSelector.add(listOf(forkedState))
+        }
+
+        var removedCount = 0
+        while (!pathSelector.isEmpty()) {
+            pathSelector.remove(pathSelector.peek())
+            removedCount++
+        }
+        return removedCount
+    }
+}
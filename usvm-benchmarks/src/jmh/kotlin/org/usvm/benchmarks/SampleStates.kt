@@ -0,0 +1,14 @@
+package org.usvm.benchmarks
+
+import org.usvm.UBv32Sort
+import org.usvm.UContext
+import org.usvm.UMachineOptions
+import org.usvm.language.Method
+import org.usvm.machine.SampleLanguageComponents
+import org.usvm.machine.SampleTypeSystem
+import kotlin.time.Duration
+
+internal fun mkSampleContext(): UContext<UBv32Sort> =
+    UContext(SampleLanguageComponents(SampleTypeSystem(Duration.INFINITE), UMachineOptions()))
+
+internal val benchmarkMethod: Method<*> = Method("benchmark", argumentsTypes = emptyList(), returnType = null, body = null)
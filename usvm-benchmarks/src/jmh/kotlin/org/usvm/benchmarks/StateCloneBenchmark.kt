@@ -0,0 +1,60 @@
+package org.usvm.benchmarks
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.usvm.UBv32Sort
+import org.usvm.UContext
+import org.usvm.machine.SampleState
+
+/**
+ * Clones a state with a deep call stack and many path constraints, as it happens on each fork.
+ */
+@State(Scope.Thread)
+open class StateCloneBenchmark {
+    @Param("4", "32")
+    @JvmField
+    var callDepth: Int = 0
+
+    @Param("16", "256")
+    @JvmField
+    var constraintsCount: Int = 0
+
+    private lateinit var ctx: UContext<UBv32Sort>
+    private lateinit var state: SampleState
+
+    @Setup
+    fun setup() {
+        ctx = mkSampleContext()
+        state = SampleState(ctx, benchmarkMethod)
+
+        repeat(callDepth) {
+            state.callStack.push(benchmarkMethod, returnSite = null)
+            state.memory.stack.push(REGISTERS_PER_FRAME)
+            for (register in 0 until REGISTERS_PER_FRAME) {
+                state.memory.stack.writeRegister(register, ctx.mkBv(register))
+            }
+        }
+
+        val variables = List(constraintsCount + 1) { ctx.mkRegisterReading(it, ctx.bv32Sort) }
+        variables.zipWithNext { x, y -> state.pathConstraints += ctx.mkBvSignedLessExpr(x, y) }
+    }
+
+    @Benchmark
+    fun cloneState(): SampleState = state.clone()
+
+    // A clone is usually modified right away: the forked branch adds its condition and updates the top frame
+    @Benchmark
+    fun cloneAndModify(): SampleState {
+        val clone = state.clone()
+        clone.pathConstraints += ctx.mkBvSignedLessExpr(ctx.mkRegisterReading(0, ctx.bv32Sort), ctx.mkBv(0))
+        clone.memory.stack.writeRegister(0, ctx.mkBv(-1))
+        return clone
+    }
+
+    companion object {
+        private const val REGISTERS_PER_FRAME = 8
+    }
+}
@@ -0,0 +1,47 @@
+package org.usvm.benchmarks
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.usvm.UBv32Sort
+import org.usvm.UContext
+import org.usvm.UExpr
+import org.usvm.UHeapRef
+import org.usvm.api.readArrayIndex
+import org.usvm.memory.UMemory
+
+/**
+ * Reads from and writes to an input array with a long chain of updates at symbolic indices.
+ */
+@State(Scope.Thread)
+open class SymbolicCollectionBenchmark {
+    @Param("16", "128", "1024")
+    @JvmField
+    var updatesCount: Int = 0
+
+    private lateinit var ctx: UContext<UBv32Sort>
+    private lateinit var array: UHeapRef
+    private lateinit var indices: List<UExpr<UBv32Sort>>
+    private lateinit var memory: UMemory<Int, Any?>
+
+    @Setup
+    fun setup() {
+        ctx = mkBenchmarkContext()
+        array = ctx.mkRegisterReading(0, ctx.addressSort)
+        indices = List(updatesCount) { ctx.mkRegisterReading(it + 1, ctx.bv32Sort) }
+        memory = ctx.mkMemoryWithUpdates(array, indices)
+    }
+
+    @Benchmark
+    fun readSymbolicIndex(): UExpr<UBv32Sort> =
+        memory.readArrayIndex(array, ctx.mkRegisterReading(updatesCount + 1, ctx.bv32Sort), ARRAY_TYPE, ctx.bv32Sort)
+
+    @Benchmark
+    fun readWrittenIndex(): UExpr<UBv32Sort> =
+        memory.readArrayIndex(array, indices.first(), ARRAY_TYPE, ctx.bv32Sort)
+
+    @Benchmark
+    fun writeUpdatesChain(): UMemory<Int, Any?> = ctx.mkMemoryWithUpdates(array, indices)
+}
@@ -0,0 +1,59 @@
+package org.usvm.benchmarks
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.usvm.INITIAL_INPUT_ADDRESS
+import org.usvm.UHeapRef
+import org.usvm.model.UTypeModel
+import org.usvm.solver.TypeSolverQuery
+import org.usvm.solver.USolverResult
+import org.usvm.solver.UTypeSolver
+import org.usvm.types.UTypeRegion
+
+/**
+ * Checks a cluster of input references which the model maps to the same object.
+ * Each reference is constrained to be a subtype of one of the ancestors of a leaf class,
+ * so the type solver has to intersect all the regions down to the leaf.
+ */
+@State(Scope.Thread)
+open class TypeSolverBenchmark {
+    @Param("8", "64")
+    @JvmField
+    var referencesCount: Int = 0
+
+    @Param("4", "8")
+    @JvmField
+    var hierarchyDepth: Int = 0
+
+    private lateinit var typeSolver: UTypeSolver<Int>
+    private lateinit var query: TypeSolverQuery<Int>
+
+    @Setup
+    fun setup() {
+        val typeSystem = BenchmarkTypeSystem(hierarchyDepth, fanout = 3)
+        val ctx = mkBenchmarkContext()
+        typeSolver = UTypeSolver(typeSystem)
+
+        val leaf = typeSystem.typesCount - 1
+        val ancestors = generateSequence(leaf) { if (it == BenchmarkTypeSystem.TOP_TYPE) null else typeSystem.parent(it) }
+            .toList()
+        val topRegion = UTypeRegion(typeSystem, typeSystem.topTypeStream())
+        val references: List<UHeapRef> = List(referencesCount) { ctx.mkRegisterReading(it, ctx.addressSort) }
+        val regions = references.withIndex().associate { (idx, ref) ->
+            ref to topRegion.addSupertype(ancestors[idx % ancestors.size])
+        }
+
+        val address = ctx.mkConcreteHeapRef(INITIAL_INPUT_ADDRESS)
+        query = TypeSolverQuery(
+            inputToConcrete = { address },
+            inputRefToTypeRegion = regions,
+            isExprToInterpretation = emptyList(),
+        )
+    }
+
+    @Benchmark
+    fun check(): USolverResult<UTypeModel<Int>> = typeSolver.check(query)
+}
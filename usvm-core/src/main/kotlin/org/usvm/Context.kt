@@ -45,10 +45,13 @@ import org.usvm.collection.set.ref.UInputRefSetWithInputElementsReading
 import org.usvm.memory.UAddressCounter
 import org.usvm.memory.UReadOnlyMemory
 import org.usvm.memory.splitUHeapRef
+import org.usvm.model.ULazyModelDecoder
 import org.usvm.regions.Region
+import org.usvm.solver.UExprTranslator
 import org.usvm.solver.USoftConstraintsProvider
 import org.usvm.solver.USolverBase
 import org.usvm.types.UTypeSystem
+import java.util.concurrent.atomic.AtomicInteger
 
 @Suppress("LeakingThis")
 open class UContext<USizeSort : USort>(
@@ -58,7 +61,13 @@ open class UContext<USizeSort : USort>(
     simplificationMode: SimplificationMode = SimplificationMode.SIMPLIFY,
 ) : KContext(operationMode, astManagementMode, simplificationMode) {
 
-    private val solver by lazy { components.mkSolver(this) }
+    /**
+     * Solvers are not thread-safe, so every thread running symbolic execution steps gets its own one.
+     * Threads release their solvers with [releaseSolver] when they stop using the context.
+     */
+    private val solver = ThreadLocal<USolverBase<*>>()
+    private val solverBuilder: () -> USolverBase<*> = { components.mkSolver(this) }
+    private val translatorAndDecoderBuilder = { components.buildTranslatorAndLazyDecoder(this) }
     private val typeSystem by lazy { components.mkTypeSystem(this) }
     private val softConstraintsProvider by lazy { components.mkSoftConstraintsProvider(this) }
     private val composerBuilder: (UReadOnlyMemory<*>) -> UComposer<*, USizeSort> by lazy {
@@ -69,16 +78,53 @@ open class UContext<USizeSort : USort>(
     val sizeExprs by lazy { components.mkSizeExprProvider(this) }
     val statesForkProvider by lazy { components.mkStatesForkProvider() }
 
-    private var currentStateId = 0u
+    private val currentStateId = AtomicInteger(0)
 
     /**
      * Generates new deterministic id of state in this context.
+     * Ids are unique across threads, but deterministic only when states are created by a single thread.
      */
     fun getNextStateId(): StateId {
-        return currentStateId++
+        return currentStateId.getAndIncrement().toUInt()
+    }
+
+    private val cacheEpoch = AtomicInteger(0)
+
+    /**
+     * The current epoch of translation and soft constraints caches. Owners of these caches drop them
+     * as soon as they notice that the epoch has changed.
+     */
+    val currentCacheEpoch: Int get() = cacheEpoch.get()
+
+    /**
+     * Invalidates translation and soft constraints caches of all threads, e.g. between analyzed entrypoints,
+     * so expressions of the previous ones don't occupy the memory anymore.
+     */
+    fun startNewCacheEpoch() {
+        cacheEpoch.incrementAndGet()
+    }
+
+    fun <Type> solver(): USolverBase<Type> {
+        val solver = this.solver.get() ?: solverBuilder().also(this.solver::set)
+        return solver.uncheckedCast()
     }
 
-    fun <Type> solver(): USolverBase<Type> = this.solver.uncheckedCast()
+    /**
+     * Closes and forgets the solver of the calling thread, if it has one. The solver refers to this context,
+     * so it keeps all the expressions of the context reachable while the thread is alive. Should be called by every
+     * thread which has used [solver], e.g. by a machine worker when it stops.
+     */
+    fun releaseSolver() {
+        val solver = this.solver.get() ?: return
+        this.solver.remove()
+        solver.close()
+    }
+
+    /**
+     * Builds a translator and a decoder which are not shared with any solver, see [USolverBase.checkDetached].
+     */
+    internal fun <Type> buildTranslatorAndDecoder(): Pair<UExprTranslator<Type, *>, ULazyModelDecoder<Type>> =
+        translatorAndDecoderBuilder().uncheckedCast()
 
     @Suppress("UNCHECKED_CAST")
     fun <Type> typeSystem(): UTypeSystem<Type> =
@@ -360,12 +406,12 @@ open class UContext<USizeSort : USort>(
     }.cast()
 
     private val trackedSymbols = mkAstInterner<UTrackedSymbol<out USort>>()
-    private var trackedIndex = 0
+    private val trackedIndex = AtomicInteger(0)
 
     fun <Sort : USort> mkTrackedSymbol(
         sort: Sort
     ): UTrackedSymbol<Sort> = trackedSymbols.createIfContextActive {
-        UTrackedSymbol(this, name = "tracked#${trackedIndex++}", sort)
+        UTrackedSymbol(this, name = "tracked#${trackedIndex.getAndIncrement()}", sort)
     }.cast()
     
     private val isSubtypeExprCache = mkAstInterner<UIsSubtypeExpr<Any>>()
@@ -20,6 +20,7 @@ import io.ksmt.expr.printer.ExpressionPrinter
 import io.ksmt.expr.transformer.KTransformerBase
 import io.ksmt.sort.KBoolSort
 import io.ksmt.sort.KBv32Sort
+import io.ksmt.sort.KBv64Sort
 import io.ksmt.sort.KBvSort
 import io.ksmt.sort.KFpSort
 import io.ksmt.sort.KSort
@@ -35,6 +36,7 @@ typealias USort = KSort
 typealias UBoolSort = KBoolSort
 typealias UBvSort = KBvSort
 typealias UBv32Sort = KBv32Sort
+typealias UBv64Sort = KBv64Sort
 typealias UFpSort = KFpSort
 
 typealias UExpr<Sort> = KExpr<Sort>
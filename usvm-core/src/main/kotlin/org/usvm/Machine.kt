@@ -6,6 +6,10 @@ import org.usvm.stopstrategies.StopStrategy
 import org.usvm.util.bracket
 import org.usvm.util.debug
 import org.usvm.utils.isSat
+import java.util.concurrent.locks.Condition
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.thread
+import kotlin.concurrent.withLock
 
 val logger = object : KLogging() {}.logger
 
@@ -42,44 +46,224 @@ abstract class UMachine<State : UState<*, *, *, *, *, *>> : AutoCloseable {
                     observer.onStatePeeked(state)
 
                     val (forkedStates, stateAlive) = interpreter.step(state)
-                    observer.onState(state, forkedStates)
-
-                    val originalStateAlive = stateAlive && !isStateTerminated(state)
-                    val aliveForkedStates = mutableListOf<State>()
-                    for (forkedState in forkedStates) {
-                        if (!isStateTerminated(forkedState)) {
-                            aliveForkedStates.add(forkedState)
-                        } else {
-                            // TODO: distinguish between states terminated by exception (runtime or user) and
-                            //  those which just exited
-                            if (forkedState.isSat()) {
-                                observer.onStateTerminated(forkedState, stateReachable = true)
-                            }
-                        }
-                    }
+                    processStep(state, forkedStates, stateAlive, pathSelector, observer, isStateTerminated)
+                }
+            } finally {
+                observer.onMachineStopped()
+            }
 
-                    if (originalStateAlive) {
-                        pathSelector.update(state)
-                    } else {
-                        pathSelector.remove(state)
-                        if (state.isSat()) {
-                            observer.onStateTerminated(state, stateReachable = stateAlive)
-                        }
-                    }
+            if (!pathSelector.isEmpty()) {
+                logger.debug { stopStrategy.stopReason() }
+            }
+        }
+    }
+
+    /**
+     * Runs symbolic execution loop in [workersCount] worker threads over [pathSelectors]. Each worker has its home
+     * path selector, `pathSelectors[workerIdx % pathSelectors.size]`, and steps its states. When the home selector
+     * is empty, the worker helps the others: it steps a state of another non-empty selector and puts the results
+     * back into that selector. A state is removed from its selector while it is stepped, so no state is stepped
+     * by two workers at once, and added back if it is still alive.
+     *
+     * [UInterpreter.step] is the only operation executed concurrently. Peeking, updating path selectors,
+     * [stopStrategy] checks and all [observer] callbacks are serialized by a single machine-wide lock,
+     * so an observer sees the events of one step (`onStatePeeked`, `onState`, `onStateTerminated`)
+     * in the same order as in [run], though steps of different workers may interleave between `onStatePeeked`
+     * and `onState`. `onMachineStarted` and `onMachineStopped` are called once on the calling thread.
+     * Workers stop when all the selectors are empty and no state is being stepped, or when the [stopStrategy] says so.
+     *
+     * The [interpreter] must be safe to call from several threads with different states.
+     *
+     * @param onWorkerStopped is called on every worker thread when it stops, e.g. to release the resources
+     * the worker has allocated for itself.
+     * @see run
+     */
+    protected fun runParallel(
+        interpreter: UInterpreter<State>,
+        pathSelectors: List<UPathSelector<State>>,
+        observer: UMachineObserver<State>,
+        isStateTerminated: (State) -> Boolean,
+        stopStrategy: StopStrategy = StopStrategy { false },
+        workersCount: Int = pathSelectors.size,
+        onWorkerStopped: () -> Unit = { },
+    ) {
+        require(pathSelectors.isNotEmpty()) { "At least one path selector is required" }
+        require(workersCount > 0) { "At least one worker is required" }
+
+        logger.debug().bracket("$this.runParallel($interpreter, $workersCount workers)") {
+            val workers = WorkersState(pathSelectors)
 
-                    if (aliveForkedStates.isNotEmpty()) {
-                        pathSelector.add(aliveForkedStates)
+            observer.onMachineStarted()
+            try {
+                val threads = List(workersCount) { idx ->
+                    thread(name = "$this-worker-$idx") {
+                        try {
+                            try {
+                                runWorker(
+                                    interpreter,
+                                    homeSelectorIdx = idx % pathSelectors.size,
+                                    workers,
+                                    observer,
+                                    isStateTerminated,
+                                    stopStrategy,
+                                )
+                            } finally {
+                                onWorkerStopped()
+                            }
+                        } catch (e: Throwable) {
+                            workers.fail(e)
+                        }
                     }
                 }
+                threads.forEach(Thread::join)
             } finally {
                 observer.onMachineStopped()
             }
 
-            if (!pathSelector.isEmpty()) {
+            workers.failure?.let { throw it }
+
+            if (pathSelectors.any { !it.isEmpty() }) {
                 logger.debug { stopStrategy.stopReason() }
             }
         }
     }
 
+    /**
+     * Path selectors of [runParallel] along with the number of states being stepped, guarded by the [lock].
+     */
+    private class WorkersState<State>(val pathSelectors: List<UPathSelector<State>>) {
+        val lock = ReentrantLock()
+
+        /**
+         * Signalled when a step is finished, since it may add states to the selectors, or when a worker fails.
+         */
+        val stepFinished: Condition = lock.newCondition()
+
+        var steppedStatesCount = 0
+
+        @Volatile
+        var failure: Throwable? = null
+            private set
+
+        fun fail(e: Throwable) = lock.withLock {
+            if (failure == null) {
+                failure = e
+            }
+            stepFinished.signalAll()
+        }
+    }
+
+    private fun runWorker(
+        interpreter: UInterpreter<State>,
+        homeSelectorIdx: Int,
+        workers: WorkersState<State>,
+        observer: UMachineObserver<State>,
+        isStateTerminated: (State) -> Boolean,
+        stopStrategy: StopStrategy,
+    ) {
+        // Other selectors are visited starting from the next one, so idle workers spread over the busy ones
+        val pathSelectors = workers.pathSelectors.indices.map { idx ->
+            workers.pathSelectors[(homeSelectorIdx + idx) % workers.pathSelectors.size]
+        }
+
+        while (true) {
+            val (pathSelector, state) = workers.lock.withLock {
+                takeState(workers, pathSelectors, observer, stopStrategy)
+            } ?: return
+
+            val (forkedStates, stateAlive) = interpreter.step(state)
+
+            workers.lock.withLock {
+                workers.steppedStatesCount--
+                try {
+                    processStep(
+                        state,
+                        forkedStates,
+                        stateAlive,
+                        pathSelector,
+                        observer,
+                        isStateTerminated,
+                        isStateInSelector = false,
+                    )
+                } finally {
+                    workers.stepFinished.signalAll()
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the next state to step from the first non-empty of the [pathSelectors] and returns it along with
+     * its selector. Returns `null` when the worker should stop. Must be called under the [WorkersState.lock].
+     */
+    private fun takeState(
+        workers: WorkersState<State>,
+        pathSelectors: List<UPathSelector<State>>,
+        observer: UMachineObserver<State>,
+        stopStrategy: StopStrategy,
+    ): Pair<UPathSelector<State>, State>? {
+        while (workers.failure == null && !stopStrategy.shouldStop()) {
+            val pathSelector = pathSelectors.firstOrNull { !it.isEmpty() }
+            if (pathSelector != null) {
+                val state = pathSelector.peek()
+                pathSelector.remove(state)
+                workers.steppedStatesCount++
+                observer.onStatePeeked(state)
+                return pathSelector to state
+            }
+            if (workers.steppedStatesCount == 0) {
+                return null
+            }
+            // The states being stepped may fork, so wait for them
+            workers.stepFinished.await()
+        }
+        return null
+    }
+
+    private fun processStep(
+        state: State,
+        forkedStates: Sequence<State>,
+        stateAlive: Boolean,
+        pathSelector: UPathSelector<State>,
+        observer: UMachineObserver<State>,
+        isStateTerminated: (State) -> Boolean,
+        isStateInSelector: Boolean = true,
+    ) {
+        observer.onState(state, forkedStates)
+
+        val originalStateAlive = stateAlive && !isStateTerminated(state)
+        val aliveForkedStates = mutableListOf<State>()
+        for (forkedState in forkedStates) {
+            if (!isStateTerminated(forkedState)) {
+                aliveForkedStates.add(forkedState)
+            } else {
+                // TODO: distinguish between states terminated by exception (runtime or user) and
+                //  those which just exited
+                if (forkedState.isSat()) {
+                    observer.onStateTerminated(forkedState, stateReachable = true)
+                }
+            }
+        }
+
+        if (originalStateAlive) {
+            if (isStateInSelector) {
+                pathSelector.update(state)
+            } else {
+                pathSelector.add(listOf(state))
+            }
+        } else {
+            if (isStateInSelector) {
+                pathSelector.remove(state)
+            }
+            if (state.isSat()) {
+                observer.onStateTerminated(state, stateReachable = stateAlive)
+            }
+        }
+
+        if (aliveForkedStates.isNotEmpty()) {
+            pathSelector.add(aliveForkedStates)
+        }
+    }
+
     override fun toString(): String = this::class.simpleName?:"<empty>"
 }
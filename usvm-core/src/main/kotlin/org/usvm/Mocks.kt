@@ -84,13 +84,18 @@ class UIndexedMocker<Method>(
      * @return the merged indexed mocker.
      */
     override fun mergeWith(other: UIndexedMocker<Method>, by: MergeGuard): UIndexedMocker<Method>? {
-        if (methodMockClauses !== other.methodMockClauses
-            || trackedSymbols !== other.trackedSymbols
-            || untrackedSymbols !== other.untrackedSymbols
-        ) {
+        if (!hasSameContentsAs(other)) {
             return null
         }
 
         return this
     }
+
+    /**
+     * Check if this [UIndexedMocker] internal content reference equals to [other] internal content.
+     */
+    fun hasSameContentsAs(other: UIndexedMocker<Method>): Boolean =
+        methodMockClauses === other.methodMockClauses &&
+            trackedSymbols === other.trackedSymbols &&
+            untrackedSymbols === other.untrackedSymbols
 }
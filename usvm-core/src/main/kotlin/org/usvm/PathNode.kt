@@ -31,33 +31,58 @@ sealed interface PathSegment<Statement> {
     }
 }
 
+/**
+ * A node of the execution tree. Every state keeps the node of its last statement,
+ * and the nodes of the path prefixes are shared between forked states.
+ *
+ * Nodes are allocated on every step, so they are kept compact: a node stores its statement directly,
+ * and [PathSegment]s are materialized only for merged nodes.
+ */
 class PathNode<Statement> private constructor(
     val parent: PathNode<Statement>?,
-    private val _segment: PathSegment<Statement>?,
-    depth: Int,
+    private val _statement: Statement?,
+    /**
+     * Non-null only for nodes created by [mergeWith].
+     */
+    private val mergedSegment: PathSegment.Merged<Statement>?,
+    val depth: Int,
 ) : UMergeable<PathNode<Statement>, Unit> {
-    var depth: Int = depth
-        private set
+    private val isRoot: Boolean get() = parent == null
+
+    /**
+     * A mark of the coverage accounting which has already counted the statements of this node and all its ancestors.
+     * Lets coverage observers stop walking the path at the prefixes shared with already terminated states.
+     */
+    @Volatile
+    internal var coverageMark: Int = 0
+
+    @Suppress("UNCHECKED_CAST")
+    val statement: Statement
+        get() {
+            require(!isRoot) { "Root path node has no statement" }
+            return _statement as Statement
+        }
 
-    val statement: Statement get() = requireNotNull(_segment).statement
+    private val segment: PathSegment<Statement>
+        get() = mergedSegment ?: PathSegment.Single(statement)
 
     operator fun plus(statement: Statement): PathNode<Statement> {
-        return PathNode(this, PathSegment.Single(statement), depth + 1)
+        return PathNode(this, statement, mergedSegment = null, depth + 1)
     }
 
     val allStatements
         get(): Iterable<Statement> = Iterable {
             object : Iterator<Statement> {
                 var cur = this@PathNode
-                override fun hasNext(): Boolean = cur._segment != null
+                override fun hasNext(): Boolean = !cur.isRoot
 
                 override fun next(): Statement {
                     if (!hasNext()) {
                         throw NoSuchElementException()
                     }
-                    val element = requireNotNull(cur._segment)
+                    val statement = cur.statement
                     cur = requireNotNull(cur.parent)
-                    return element.statement
+                    return statement
                 }
 
             }
@@ -74,7 +99,7 @@ class PathNode<Statement> private constructor(
      * @return the merged path node.
      */
     override fun mergeWith(other: PathNode<Statement>, by: Unit): PathNode<Statement>? {
-        if (_segment != other._segment) {
+        if (isRoot || other.isRoot || segment != other.segment) {
             return null
         }
         val (lca, suffixLeft, suffixRight) = findLcaLinear(
@@ -82,16 +107,16 @@ class PathNode<Statement> private constructor(
             other,
             { it.parent!! },
             { it.depth },
-            { it._segment!! }
+            { it.segment }
         )
 
         val segment = PathSegment.Merged(statement, suffixLeft, suffixRight)
 
-        return PathNode(lca, segment, lca.depth + 1)
+        return PathNode(lca, statement, segment, lca.depth + 1)
     }
 
     companion object {
-        private val EMPTY = PathNode<Nothing?>(parent = null, _segment = null, depth = 0)
+        private val EMPTY = PathNode<Nothing?>(parent = null, _statement = null, mergedSegment = null, depth = 0)
 
         @Suppress("UNCHECKED_CAST")
         fun <Statement> root(): PathNode<Statement> = EMPTY as PathNode<Statement>
@@ -99,7 +124,7 @@ class PathNode<Statement> private constructor(
 
     override fun toString(): String =
         buildString {
-            appendLine(_segment)
+            appendLine(if (isRoot) null else segment)
             appendLine(parent)
         }
 }
@@ -66,4 +66,11 @@ abstract class UState<Type, Method, Statement, Context, Target, State>(
      * A property containing information about whether the state is exceptional or not.
      */
     abstract val isExceptional: Boolean
+
+    /**
+     * Whether the state has returned to a call statement with a method result which is not processed yet.
+     * Such a state is at the same statement as before the call, but it continues after the call instead of making it.
+     */
+    open val hasPendingMethodResult: Boolean
+        get() = false
 }
@@ -1,5 +1,6 @@
 package org.usvm.collection.array
 
+import io.ksmt.expr.KInterpretedValue
 import kotlinx.collections.immutable.PersistentMap
 import kotlinx.collections.immutable.persistentHashMapOf
 import org.usvm.UBoolExpr
@@ -10,11 +11,19 @@ import org.usvm.USort
 import org.usvm.memory.ULValue
 import org.usvm.memory.UMemoryRegion
 import org.usvm.memory.UMemoryRegionId
+import org.usvm.memory.UMergeableMemoryRegion
 import org.usvm.memory.USymbolicCollection
+import org.usvm.memory.collectionsMergeCost
+import org.usvm.memory.countDifferentValues
 import org.usvm.memory.foldHeapRef2
 import org.usvm.memory.foldHeapRefWithStaticAsSymbolic
+import org.usvm.memory.guardedWrite
 import org.usvm.memory.key.USizeExprKeyInfo
 import org.usvm.memory.mapWithStaticAsSymbolic
+import org.usvm.memory.mergeCollections
+import org.usvm.memory.mergeWith
+import org.usvm.merging.MergeGuard
+import org.usvm.uctx
 
 data class UArrayIndexLValue<ArrayType, Sort : USort, USizeSort : USort>(
     override val sort: Sort,
@@ -61,10 +70,48 @@ interface UArrayRegion<ArrayType, Sort : USort, USizeSort : USort> : UMemoryRegi
     ): UArrayRegion<ArrayType, Sort, USizeSort>
 }
 
+/**
+ * Contents of an allocated array accessed only by concrete indices. The elements are stored directly,
+ * so reads and writes build no update nodes. Absent elements have the [UAllocatedArrayId.defaultValue].
+ */
+internal class UConcreteArrayContents<ArrayType, Sort : USort, USizeSort : USort>(
+    val arrayId: UAllocatedArrayId<ArrayType, Sort, USizeSort>,
+    private val elements: PersistentMap<UExpr<USizeSort>, UExpr<Sort>> = persistentHashMapOf(),
+) {
+    fun read(index: UExpr<USizeSort>): UExpr<Sort> = elements[index] ?: arrayId.defaultValue
+
+    fun write(index: UExpr<USizeSort>, value: UExpr<Sort>, guard: UBoolExpr) =
+        UConcreteArrayContents(arrayId, elements.guardedWrite(index, value, guard) { arrayId.defaultValue })
+
+    fun mergeWith(other: UConcreteArrayContents<ArrayType, Sort, USizeSort>, by: MergeGuard) =
+        UConcreteArrayContents(arrayId, elements.mergeWith(other.elements, by) { arrayId.defaultValue })
+
+    fun mergeCost(other: UConcreteArrayContents<ArrayType, Sort, USizeSort>): Int =
+        elements.countDifferentValues(other.elements)
+
+    /**
+     * Converts these contents to the symbolic collection with the same elements.
+     */
+    fun toCollection(): UAllocatedArray<ArrayType, Sort, USizeSort> =
+        if (elements.isEmpty()) {
+            arrayId.emptyRegion()
+        } else {
+            arrayId.initializedArray(elements, arrayId.sort.uctx.trueExpr)
+        }
+}
+
+/**
+ * Allocated arrays are stored as [UConcreteArrayContents] while they are accessed by concrete indices only.
+ * The first access by a symbolic index or a copy converts the array to the [UAllocatedArray] collection.
+ * An address is present in at most one of [concreteArrays] and [allocatedArrays], an absent address denotes
+ * an untouched array.
+ */
 internal class UArrayMemoryRegion<ArrayType, Sort : USort, USizeSort : USort>(
     private var allocatedArrays: PersistentMap<UConcreteHeapAddress, UAllocatedArray<ArrayType, Sort, USizeSort>> = persistentHashMapOf(),
-    private var inputArray: UInputArray<ArrayType, Sort, USizeSort>? = null
-) : UArrayRegion<ArrayType, Sort, USizeSort> {
+    private var inputArray: UInputArray<ArrayType, Sort, USizeSort>? = null,
+    private var concreteArrays: PersistentMap<UConcreteHeapAddress, UConcreteArrayContents<ArrayType, Sort, USizeSort>> = persistentHashMapOf(),
+) : UArrayRegion<ArrayType, Sort, USizeSort>,
+    UMergeableMemoryRegion<UArrayIndexLValue<ArrayType, Sort, USizeSort>, Sort> {
 
     private fun getAllocatedArray(
         arrayType: ArrayType,
@@ -73,14 +120,38 @@ internal class UArrayMemoryRegion<ArrayType, Sort : USort, USizeSort : USort>(
     ): UAllocatedArray<ArrayType, Sort, USizeSort> {
         var collection = allocatedArrays[address]
         if (collection == null) {
-            collection = UAllocatedArrayId<_, _, USizeSort>(arrayType, sort, address).emptyRegion()
+            collection = concreteArrays[address]?.toCollection()
+                ?: UAllocatedArrayId<_, _, USizeSort>(arrayType, sort, address).emptyRegion()
             allocatedArrays = allocatedArrays.put(address, collection)
+            concreteArrays = concreteArrays.remove(address)
         }
         return collection
     }
 
     private fun updateAllocatedArray(ref: UConcreteHeapAddress, updated: UAllocatedArray<ArrayType, Sort, USizeSort>) =
-        UArrayMemoryRegion(allocatedArrays.put(ref, updated), inputArray)
+        UArrayMemoryRegion(allocatedArrays.put(ref, updated), inputArray, concreteArrays.remove(ref))
+
+    /**
+     * Returns the contents of the array at the [address] if it is still stored concretely and the [index] is
+     * concrete, or `null` otherwise.
+     */
+    private fun getConcreteArray(
+        arrayType: ArrayType,
+        sort: Sort,
+        address: UConcreteHeapAddress,
+        index: UExpr<USizeSort>,
+    ): UConcreteArrayContents<ArrayType, Sort, USizeSort>? {
+        if (index !is KInterpretedValue<*> || address in allocatedArrays) {
+            return null
+        }
+        return concreteArrays[address]
+            ?: UConcreteArrayContents(UAllocatedArrayId<_, _, USizeSort>(arrayType, sort, address))
+    }
+
+    private fun updateConcreteArray(
+        address: UConcreteHeapAddress,
+        updated: UConcreteArrayContents<ArrayType, Sort, USizeSort>,
+    ) = UArrayMemoryRegion(allocatedArrays, inputArray, concreteArrays.put(address, updated))
 
     private fun getInputArray(arrayType: ArrayType, sort: Sort): UInputArray<ArrayType, Sort, USizeSort> {
         if (inputArray == null)
@@ -89,10 +160,13 @@ internal class UArrayMemoryRegion<ArrayType, Sort : USort, USizeSort : USort>(
     }
 
     private fun updateInput(updated: UInputArray<ArrayType, Sort, USizeSort>) =
-        UArrayMemoryRegion(allocatedArrays, updated)
+        UArrayMemoryRegion(allocatedArrays, updated, concreteArrays)
 
     override fun read(key: UArrayIndexLValue<ArrayType, Sort, USizeSort>): UExpr<Sort> = key.ref.mapWithStaticAsSymbolic(
-        concreteMapper = { concreteRef -> getAllocatedArray(key.arrayType, key.sort, concreteRef.address).read(key.index) },
+        concreteMapper = { concreteRef ->
+            getConcreteArray(key.arrayType, key.sort, concreteRef.address, key.index)?.read(key.index)
+                ?: getAllocatedArray(key.arrayType, key.sort, concreteRef.address).read(key.index)
+        },
         symbolicMapper = { symbolicRef -> getInputArray(key.arrayType, key.sort).read(symbolicRef to key.index) }
     )
 
@@ -105,9 +179,14 @@ internal class UArrayMemoryRegion<ArrayType, Sort : USort, USizeSort : USort>(
         initial = this,
         initialGuard = guard,
         blockOnConcrete = { region, (concreteRef, innerGuard) ->
-            val oldRegion = region.getAllocatedArray(key.arrayType, key.sort, concreteRef.address)
-            val newRegion = oldRegion.write(key.index, value, innerGuard)
-            region.updateAllocatedArray(concreteRef.address, newRegion)
+            val concreteArray = region.getConcreteArray(key.arrayType, key.sort, concreteRef.address, key.index)
+            if (concreteArray != null) {
+                region.updateConcreteArray(concreteRef.address, concreteArray.write(key.index, value, innerGuard))
+            } else {
+                val oldRegion = region.getAllocatedArray(key.arrayType, key.sort, concreteRef.address)
+                val newRegion = oldRegion.write(key.index, value, innerGuard)
+                region.updateAllocatedArray(concreteRef.address, newRegion)
+            }
         },
         blockOnSymbolic = { region, (symbolicRef, innerGuard) ->
             val oldRegion = region.getInputArray(key.arrayType, key.sort)
@@ -186,7 +265,97 @@ internal class UArrayMemoryRegion<ArrayType, Sort : USort, USizeSort : USort>(
         operationGuard: UBoolExpr
     ): UArrayMemoryRegion<ArrayType, Sort, USizeSort> {
         val arrayId = UAllocatedArrayId<_, _, USizeSort>(arrayType, sort, address)
+        if (content.keys.all { it is KInterpretedValue<*> }) {
+            val contents = content.entries.fold(UConcreteArrayContents(arrayId)) { contents, (index, value) ->
+                contents.write(index, value, operationGuard)
+            }
+            return UArrayMemoryRegion(
+                allocatedArrays.remove(address),
+                inputArray,
+                concreteArrays.put(address, contents)
+            )
+        }
+
         val newCollection = arrayId.initializedArray(content, operationGuard)
-        return UArrayMemoryRegion(allocatedArrays.put(address, newCollection), inputArray)
+        return UArrayMemoryRegion(
+            allocatedArrays.put(address, newCollection),
+            inputArray,
+            concreteArrays.remove(address)
+        )
+    }
+
+    override fun mergeWith(
+        other: UMemoryRegion<UArrayIndexLValue<ArrayType, Sort, USizeSort>, Sort>,
+        by: MergeGuard,
+    ): UArrayMemoryRegion<ArrayType, Sort, USizeSort>? {
+        if (other !is UArrayMemoryRegion<ArrayType, Sort, USizeSort>) {
+            return null
+        }
+
+        val mergedAllocated = allocatedArrays.builder()
+        val mergedConcrete = concreteArrays.builder()
+        val addresses = allocatedArrays.keys + other.allocatedArrays.keys +
+            concreteArrays.keys + other.concreteArrays.keys
+        for (address in addresses) {
+            val array = allocatedArrays[address]
+            val otherArray = other.allocatedArrays[address]
+            val concreteArray = concreteArrays[address]
+            val otherConcreteArray = other.concreteArrays[address]
+
+            if (array == null && otherArray == null) {
+                if (concreteArray !== otherConcreteArray) {
+                    val arrayId = (concreteArray ?: checkNotNull(otherConcreteArray)).arrayId
+                    val left = concreteArray ?: UConcreteArrayContents(arrayId)
+                    val right = otherConcreteArray ?: UConcreteArrayContents(arrayId)
+                    mergedConcrete[address] = left.mergeWith(right, by)
+                }
+                continue
+            }
+
+            // The array is converted to a collection at least in one of the states
+            val left = array ?: concreteArray?.toCollection()
+            val right = otherArray ?: otherConcreteArray?.toCollection()
+            if (left !== right) {
+                mergedAllocated[address] = mergeCollections(left, right, by) ?: return null
+                mergedConcrete.remove(address)
+            }
+        }
+        val mergedInput = if (inputArray === other.inputArray) {
+            inputArray
+        } else {
+            mergeCollections(inputArray, other.inputArray, by) ?: return null
+        }
+        return UArrayMemoryRegion(mergedAllocated.build(), mergedInput, mergedConcrete.build())
+    }
+
+    override fun mergeCost(other: UMemoryRegion<UArrayIndexLValue<ArrayType, Sort, USizeSort>, Sort>): Int {
+        if (other !is UArrayMemoryRegion<ArrayType, Sort, USizeSort>) {
+            return 0
+        }
+
+        var cost = collectionsMergeCost(inputArray, other.inputArray)
+        val addresses = allocatedArrays.keys + other.allocatedArrays.keys +
+            concreteArrays.keys + other.concreteArrays.keys
+        for (address in addresses) {
+            val array = allocatedArrays[address]
+            val otherArray = other.allocatedArrays[address]
+            val concreteArray = concreteArrays[address]
+            val otherConcreteArray = other.concreteArrays[address]
+
+            if (array == null && otherArray == null) {
+                if (concreteArray !== otherConcreteArray) {
+                    val arrayId = (concreteArray ?: checkNotNull(otherConcreteArray)).arrayId
+                    val left = concreteArray ?: UConcreteArrayContents(arrayId)
+                    val right = otherConcreteArray ?: UConcreteArrayContents(arrayId)
+                    cost += left.mergeCost(right)
+                }
+                continue
+            }
+
+            val left = array ?: concreteArray?.toCollection()
+            val right = otherArray ?: otherConcreteArray?.toCollection()
+            cost += collectionsMergeCost(left, right)
+        }
+        return cost
     }
 }
@@ -10,10 +10,16 @@ import org.usvm.USort
 import org.usvm.memory.ULValue
 import org.usvm.memory.UMemoryRegion
 import org.usvm.memory.UMemoryRegionId
+import org.usvm.memory.UMergeableMemoryRegion
 import org.usvm.memory.USymbolicCollection
+import org.usvm.memory.collectionsMergeCost
+import org.usvm.memory.countDifferentValues
 import org.usvm.memory.foldHeapRefWithStaticAsSymbolic
 import org.usvm.memory.guardedWrite
 import org.usvm.memory.mapWithStaticAsSymbolic
+import org.usvm.memory.mergeCollections
+import org.usvm.memory.mergeWith
+import org.usvm.merging.MergeGuard
 import org.usvm.sampleUValue
 
 typealias UInputArrayLengths<ArrayType, USizeSort> = USymbolicCollection<UInputArrayLengthId<ArrayType, USizeSort>, UHeapRef, USizeSort>
@@ -44,7 +50,8 @@ internal class UArrayLengthsMemoryRegion<ArrayType, USizeSort : USort>(
     private val arrayType: ArrayType,
     private val allocatedLengths: PersistentMap<UConcreteHeapAddress, UExpr<USizeSort>> = persistentHashMapOf(),
     private var inputLengths: UInputArrayLengths<ArrayType, USizeSort>? = null
-) : UArrayLengthsRegion<ArrayType, USizeSort> {
+) : UArrayLengthsRegion<ArrayType, USizeSort>,
+    UMergeableMemoryRegion<UArrayLengthLValue<ArrayType, USizeSort>, USizeSort> {
 
     private fun updateAllocated(updated: PersistentMap<UConcreteHeapAddress, UExpr<USizeSort>>) =
         UArrayLengthsMemoryRegion(sort, arrayType, updated, inputLengths)
@@ -83,4 +90,30 @@ internal class UArrayLengthsMemoryRegion<ArrayType, USizeSort : USort>(
             region.updatedInput(newRegion)
         }
     )
+
+    override fun mergeWith(
+        other: UMemoryRegion<UArrayLengthLValue<ArrayType, USizeSort>, USizeSort>,
+        by: MergeGuard,
+    ): UArrayLengthsMemoryRegion<ArrayType, USizeSort>? {
+        if (other !is UArrayLengthsMemoryRegion<ArrayType, USizeSort>) {
+            return null
+        }
+
+        val mergedAllocated = allocatedLengths.mergeWith(other.allocatedLengths, by) { sort.sampleUValue() }
+        val mergedInput = if (inputLengths === other.inputLengths) {
+            inputLengths
+        } else {
+            mergeCollections(inputLengths, other.inputLengths, by) ?: return null
+        }
+        return UArrayLengthsMemoryRegion(sort, arrayType, mergedAllocated, mergedInput)
+    }
+
+    override fun mergeCost(other: UMemoryRegion<UArrayLengthLValue<ArrayType, USizeSort>, USizeSort>): Int {
+        if (other !is UArrayLengthsMemoryRegion<ArrayType, USizeSort>) {
+            return 0
+        }
+
+        return allocatedLengths.countDifferentValues(other.allocatedLengths) +
+            collectionsMergeCost(inputLengths, other.inputLengths)
+    }
 }
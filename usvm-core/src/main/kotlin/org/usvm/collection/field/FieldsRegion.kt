@@ -10,10 +10,16 @@ import org.usvm.USort
 import org.usvm.memory.ULValue
 import org.usvm.memory.UMemoryRegion
 import org.usvm.memory.UMemoryRegionId
+import org.usvm.memory.UMergeableMemoryRegion
 import org.usvm.memory.USymbolicCollection
+import org.usvm.memory.collectionsMergeCost
+import org.usvm.memory.countDifferentValues
 import org.usvm.memory.foldHeapRefWithStaticAsSymbolic
 import org.usvm.memory.guardedWrite
 import org.usvm.memory.mapWithStaticAsSymbolic
+import org.usvm.memory.mergeCollections
+import org.usvm.memory.mergeWith
+import org.usvm.merging.MergeGuard
 import org.usvm.sampleUValue
 
 data class UFieldLValue<Field, Sort : USort>(override val sort: Sort, val ref: UHeapRef, val field: Field) :
@@ -41,7 +47,7 @@ internal class UFieldsMemoryRegion<Field, Sort : USort>(
     private val field: Field,
     private val allocatedFields: PersistentMap<UConcreteHeapAddress, UExpr<Sort>> = persistentHashMapOf(),
     private var inputFields: UInputFields<Field, Sort>? = null
-) : UFieldsRegion<Field, Sort> {
+) : UFieldsRegion<Field, Sort>, UMergeableMemoryRegion<UFieldLValue<Field, Sort>, Sort> {
 
     private fun updateAllocated(updated: PersistentMap<UConcreteHeapAddress, UExpr<Sort>>) =
         UFieldsMemoryRegion(sort, field, updated, inputFields)
@@ -80,4 +86,30 @@ internal class UFieldsMemoryRegion<Field, Sort : USort>(
             region.updateInput(newRegion)
         }
     )
+
+    override fun mergeWith(
+        other: UMemoryRegion<UFieldLValue<Field, Sort>, Sort>,
+        by: MergeGuard,
+    ): UFieldsMemoryRegion<Field, Sort>? {
+        if (other !is UFieldsMemoryRegion<Field, Sort>) {
+            return null
+        }
+
+        val mergedAllocated = allocatedFields.mergeWith(other.allocatedFields, by) { sort.sampleUValue() }
+        val mergedInput = if (inputFields === other.inputFields) {
+            inputFields
+        } else {
+            mergeCollections(inputFields, other.inputFields, by) ?: return null
+        }
+        return UFieldsMemoryRegion(sort, field, mergedAllocated, mergedInput)
+    }
+
+    override fun mergeCost(other: UMemoryRegion<UFieldLValue<Field, Sort>, Sort>): Int {
+        if (other !is UFieldsMemoryRegion<Field, Sort>) {
+            return 0
+        }
+
+        return allocatedFields.countDifferentValues(other.allocatedFields) +
+            collectionsMergeCost(inputFields, other.inputFields)
+    }
 }
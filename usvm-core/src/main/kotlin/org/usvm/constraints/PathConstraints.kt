@@ -3,6 +3,7 @@ package org.usvm.constraints
 import org.usvm.UAndExpr
 import org.usvm.UBoolExpr
 import org.usvm.UBv32Sort
+import org.usvm.UBv64Sort
 import org.usvm.UConcreteHeapRef
 import org.usvm.UContext
 import org.usvm.UEqExpr
@@ -39,6 +40,16 @@ open class UPathConstraints<Type> private constructor(
      * Specially represented numeric constraints (e.g. >, <, >=, ...).
      */
     private val numericConstraints: UNumericConstraints<UBv32Sort> = UNumericConstraints(ctx, sort = ctx.bv32Sort),
+    /**
+     * Specially represented numeric constraints over 64-bit bit-vectors.
+     */
+    private val longNumericConstraints: UNumericConstraints<UBv64Sort> =
+        UNumericConstraints(ctx, sort = ctx.bv64Sort),
+    /**
+     * Intervals of floating-point terms. Unlike the other specially represented constraints, floating-point ones
+     * are kept in [logicalConstraints] too, the intervals only detect contradictions early.
+     */
+    private val fpIntervalConstraints: UFpIntervalConstraints = UFpIntervalConstraints(),
 ) : UMergeable<UPathConstraints<Type>, MutableMergeGuard> {
     init {
         // Use the information from the type constraints to check whether any static ref is assignable to any symbolic ref
@@ -49,7 +60,9 @@ open class UPathConstraints<Type> private constructor(
      * Constraints solved by SMT solver.
      */
     val softConstraintsSourceSequence: Sequence<UBoolExpr>
-        get() = logicalConstraints.asSequence() + numericConstraints.constraints()
+        get() = logicalConstraints.asSequence() +
+            numericConstraints.constraints() +
+            longNumericConstraints.constraints()
 
     constructor(ctx: UContext<*>) : this(ctx, ULogicalConstraints.empty())
 
@@ -57,6 +70,8 @@ open class UPathConstraints<Type> private constructor(
         get() = equalityConstraints.isContradicting ||
             typeConstraints.isContradicting ||
             numericConstraints.isContradicting ||
+            longNumericConstraints.isContradicting ||
+            fpIntervalConstraints.isContradicting ||
             logicalConstraints.isContradicting
 
     // TODO: refactor
@@ -67,6 +82,7 @@ open class UPathConstraints<Type> private constructor(
         return logicalConstraints.asSequence().map(translator::translate) +
             equalityConstraints.constraints(translator) +
             numericConstraints.constraints(translator) +
+            longNumericConstraints.constraints(translator) +
             typeConstraints.constraints(translator)
     }
 
@@ -81,6 +97,9 @@ open class UPathConstraints<Type> private constructor(
                 numericConstraints.isNumericConstraint(constraint) ->
                     numericConstraints.addNumericConstraint(constraint)
 
+                longNumericConstraints.isNumericConstraint(constraint) ->
+                    longNumericConstraints.addNumericConstraint(constraint)
+
                 constraint is UEqExpr<*> && isSymbolicHeapRef(constraint.lhs) && isSymbolicHeapRef(constraint.rhs) ->
                     equalityConstraints.makeEqual(
                         constraint.lhs as USymbolicHeapRef,
@@ -146,16 +165,29 @@ open class UPathConstraints<Type> private constructor(
                         numericConstraints.isNumericConstraint(notConstraint) ->
                             numericConstraints.addNegatedNumericConstraint(notConstraint)
 
+                        longNumericConstraints.isNumericConstraint(notConstraint) ->
+                            longNumericConstraints.addNegatedNumericConstraint(notConstraint)
+
                         notConstraint in logicalConstraints -> contradiction(ctx)
 
                         notConstraint is UOrExpr -> notConstraint.args.forEach { plusAssign(ctx.mkNot(it)) }
 
+                        fpIntervalConstraints.isFpConstraint(notConstraint) -> {
+                            fpIntervalConstraints.addNegatedFpConstraint(notConstraint)
+                            logicalConstraints += constraint
+                        }
+
                         else -> logicalConstraints += constraint
                     }
                 }
 
                 logicalConstraints.contains(constraint.not()) -> contradiction(ctx)
 
+                fpIntervalConstraints.isFpConstraint(constraint) -> {
+                    fpIntervalConstraints.addFpConstraint(constraint)
+                    logicalConstraints += constraint
+                }
+
                 else -> logicalConstraints += constraint
             }
         }
@@ -165,12 +197,16 @@ open class UPathConstraints<Type> private constructor(
         val clonedEqualityConstraints = equalityConstraints.clone()
         val clonedTypeConstraints = typeConstraints.clone(clonedEqualityConstraints)
         val clonedNumericConstraints = numericConstraints.clone()
+        val clonedLongNumericConstraints = longNumericConstraints.clone()
+        val clonedFpIntervalConstraints = fpIntervalConstraints.clone()
         return UPathConstraints(
             ctx = ctx,
             logicalConstraints = clonedLogicalConstraints,
             equalityConstraints = clonedEqualityConstraints,
             typeConstraints = clonedTypeConstraints,
-            numericConstraints = clonedNumericConstraints
+            numericConstraints = clonedNumericConstraints,
+            longNumericConstraints = clonedLongNumericConstraints,
+            fpIntervalConstraints = clonedFpIntervalConstraints
         )
     }
 
@@ -185,8 +221,10 @@ open class UPathConstraints<Type> private constructor(
      * TODO: now the only supported case is:
      *  - logical constraints are always merged
      *  - equality constraints are merged only if their contents are equal
-     *  - type constraints are merged only if their contents are equal, except types for concrete refs
+     *  - type constraints are merged by keeping the common type regions, the rest type constraints are put
+     *    into the merge guard
      *  - numeric constraints are always merged
+     *  - floating-point intervals are joined
      *
      * TODO: there are no heuristics on merged constraints complexity compared to the former ones
      *
@@ -200,13 +238,17 @@ open class UPathConstraints<Type> private constructor(
             .clone(mergedEqualityConstraints)
             .mergeWith(other.typeConstraints, by) ?: return null
         val mergedNumericConstraints = numericConstraints.mergeWith(other.numericConstraints, by)
+        val mergedLongNumericConstraints = longNumericConstraints.mergeWith(other.longNumericConstraints, by)
+        val mergedFpIntervalConstraints = fpIntervalConstraints.mergeWith(other.fpIntervalConstraints, by)
 
         return UPathConstraints(
             ctx,
             mergedLogicalConstraints,
             mergedEqualityConstraints,
             mergedTypeConstraints,
-            mergedNumericConstraints
+            mergedNumericConstraints,
+            mergedLongNumericConstraints,
+            mergedFpIntervalConstraints
         )
     }
 }
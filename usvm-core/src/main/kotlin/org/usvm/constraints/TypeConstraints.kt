@@ -449,22 +449,80 @@ class UTypeConstraints<Type>(
         )
 
     /**
-     * Check if this [UTypeConstraints] can be merged with [other] type constraints.
+     * Merges this [UTypeConstraints] with [other] type constraints.
      *
-     * Ignores [equalityConstraints]. Verifies, that [inputRefToTypeRegion] equals to
-     * [other]`.symbolicRefToTypeRegion`. Merges the type constraints for concrete references.
+     * Ignores [equalityConstraints]: they are merged by the caller and define the same representatives for
+     * both type constraints. For every symbolic reference, keeps the type region built from the constraints
+     * common to both states. The rest constraints of each state are added to the [by] merge guard as
+     * [org.usvm.UIsSubtypeExpr]s and [org.usvm.UIsSupertypeExpr]s, so they are checked by the type solver.
+     * Merges the type constraints for concrete references.
      *
-     * @return the merged type constraints.
+     * @return the merged type constraints or `null` if some reference is null in one of the states
+     * according to its type region.
      */
     override fun mergeWith(other: UTypeConstraints<Type>, by: MutableMergeGuard): UTypeConstraints<Type>? {
-        // TODO: should we check equality constraints?
-        if (symbolicRefToTypeRegion != other.symbolicRefToTypeRegion) {
-            return null
-        }
         val mergedConcreteRefs = concreteRefToType.builder().apply { putAll(other.concreteRefToType) }.build()
-        return UTypeConstraints(typeSystem, equalityConstraints, mergedConcreteRefs, symbolicRefToTypeRegion)
+        if (symbolicRefToTypeRegion == other.symbolicRefToTypeRegion) {
+            return UTypeConstraints(typeSystem, equalityConstraints, mergedConcreteRefs, symbolicRefToTypeRegion)
+        }
+
+        val mergedRegions = symbolicRefToTypeRegion.builder()
+        val thisConstraints = mutableListOf<UBoolExpr>()
+        val otherConstraints = mutableListOf<UBoolExpr>()
+        for (ref in symbolicRefToTypeRegion.keys + other.symbolicRefToTypeRegion.keys) {
+            val thisRegion = symbolicRefToTypeRegion[ref] ?: topTypeRegion
+            val otherRegion = other.symbolicRefToTypeRegion[ref] ?: topTypeRegion
+            if (thisRegion === otherRegion) {
+                continue
+            }
+            if (thisRegion.isEmpty || otherRegion.isEmpty) {
+                return null
+            }
+
+            val commonRegion = commonRegion(thisRegion, otherRegion)
+            mergedRegions[ref] = commonRegion
+            thisRegion.constraintsNotIn(commonRegion, ref, thisConstraints)
+            otherRegion.constraintsNotIn(commonRegion, ref, otherConstraints)
+        }
+
+        by.appendThis(thisConstraints.asSequence())
+        by.appendOther(otherConstraints.asSequence())
+        return UTypeConstraints(typeSystem, equalityConstraints, mergedConcreteRefs, mergedRegions.build())
     }
 
+    /**
+     * Builds the region from the constraints present in both [first] and [second] regions.
+     */
+    private fun commonRegion(first: UTypeRegion<Type>, second: UTypeRegion<Type>): UTypeRegion<Type> {
+        var region = topTypeRegion
+        first.supertypes.filter { it in second.supertypes }.forEach { region = region.addSupertype(it) }
+        first.notSupertypes.filter { it in second.notSupertypes }.forEach { region = region.excludeSupertype(it) }
+        first.subtypes.filter { it in second.subtypes }.forEach { region = region.addSubtype(it) }
+        first.notSubtypes.filter { it in second.notSubtypes }.forEach { region = region.excludeSubtype(it) }
+        return region
+    }
+
+    /**
+     * Adds the constraints of this region for the [ref] absent in the [commonRegion] to the [constraints].
+     */
+    private fun UTypeRegion<Type>.constraintsNotIn(
+        commonRegion: UTypeRegion<Type>,
+        ref: USymbolicHeapRef,
+        constraints: MutableList<UBoolExpr>,
+    ) {
+        supertypes.filterNot { it in commonRegion.supertypes }.mapTo(constraints) {
+            ctx.mkIsSubtypeExpr(ref, it)
+        }
+        notSupertypes.filterNot { it in commonRegion.notSupertypes }.mapTo(constraints) {
+            ctx.mkNot(ctx.mkIsSubtypeExpr(ref, it))
+        }
+        subtypes.filterNot { it in commonRegion.subtypes }.mapTo(constraints) {
+            ctx.mkIsSupertypeExpr(ref, it)
+        }
+        notSubtypes.filterNot { it in commonRegion.notSubtypes }.mapTo(constraints) {
+            ctx.mkNot(ctx.mkIsSupertypeExpr(ref, it))
+        }
+    }
 
     @Suppress("UNUSED_PARAMETER")
     fun constraints(translator: UExprTranslator<Type, *>): Sequence<UBoolExpr> {
@@ -0,0 +1,270 @@
+package org.usvm.constraints
+
+import io.ksmt.expr.KFp32Value
+import io.ksmt.expr.KFp64Value
+import io.ksmt.expr.KFpEqualExpr
+import io.ksmt.expr.KFpGreaterExpr
+import io.ksmt.expr.KFpGreaterOrEqualExpr
+import io.ksmt.expr.KFpLessExpr
+import io.ksmt.expr.KFpLessOrEqualExpr
+import kotlinx.collections.immutable.PersistentMap
+import kotlinx.collections.immutable.persistentHashMapOf
+import org.usvm.UBoolExpr
+import org.usvm.UExpr
+import org.usvm.UFpSort
+import org.usvm.merging.MutableMergeGuard
+import org.usvm.merging.UMergeable
+
+/**
+ * Intervals of floating-point terms implied by their comparisons with constants (e.g. `x < 1.0` or `!(2.0 <= x)`).
+ * Only 32-bit and 64-bit floating-point sorts are supported.
+ *
+ * Unlike [UNumericConstraints], it doesn't replace the constraints, they are still kept as logical ones.
+ * The intervals over-approximate the values of the terms, so they are used only to detect contradictions
+ * without the solver and to [evalInterval] of a term.
+ *
+ * [isFpConstraint] --- check if expression is a comparison of a floating-point term with a constant.
+ *
+ * [addFpConstraint] --- add constraint. Throws exception if constraint is not [isFpConstraint].
+ *
+ * [addNegatedFpConstraint] --- add negation of constraint. Throws exception if constraint is not [isFpConstraint].
+ * */
+class UFpIntervalConstraints private constructor(
+    persistentIntervals: PersistentMap<UExpr<*>, UFpInterval>,
+) : UMergeable<UFpIntervalConstraints, MutableMergeGuard> {
+    constructor() : this(persistentHashMapOf())
+
+    private val intervals = persistentIntervals.builder()
+
+    /**
+     * Return true if no value of some term, including NaN, satisfies the constraints.
+     * */
+    var isContradicting = false
+        private set
+
+    fun isFpConstraint(expr: UBoolExpr): Boolean =
+        recognizeFpConstraint(expr, onConstraint = { _, _, _ -> true }, unknownConstraint = { false })
+
+    fun addFpConstraint(expr: UBoolExpr) {
+        recognizeFpConstraint(
+            expr,
+            onConstraint = { term, kind, value -> updateInterval(term) { it.constrain(kind, value) } },
+            unknownConstraint = { error("Unknown floating-point constraint: $expr") }
+        )
+    }
+
+    fun addNegatedFpConstraint(expr: UBoolExpr) {
+        recognizeFpConstraint(
+            expr,
+            onConstraint = { term, kind, value -> updateInterval(term) { it.constrainNegated(kind, value) } },
+            unknownConstraint = { error("Unknown floating-point constraint: $expr") }
+        )
+    }
+
+    /**
+     * Retrieve possible values of the [expr].
+     * */
+    fun evalInterval(expr: UExpr<out UFpSort>): UFpInterval {
+        val value = expr.doubleValue() ?: return intervals[expr] ?: UFpInterval.UNIVERSE
+        return if (value.isNaN()) UFpInterval.NAN else UFpInterval.point(value)
+    }
+
+    fun clone(): UFpIntervalConstraints {
+        if (isContradicting) {
+            return this
+        }
+        return UFpIntervalConstraints(intervals.build())
+    }
+
+    /**
+     * Joins the intervals of the terms constrained in both [UFpIntervalConstraints]. Nothing is put into the merge
+     * guard [by], since the constraints themselves are merged as logical ones.
+     *
+     * @return the joined constraints.
+     */
+    override fun mergeWith(other: UFpIntervalConstraints, by: MutableMergeGuard): UFpIntervalConstraints {
+        if (isContradicting) {
+            return other.clone()
+        }
+        if (other.isContradicting) {
+            return clone()
+        }
+
+        val merged = persistentHashMapOf<UExpr<*>, UFpInterval>().builder()
+        for ((term, interval) in intervals) {
+            val otherInterval = other.intervals[term] ?: continue
+            merged[term] = interval.join(otherInterval)
+        }
+        return UFpIntervalConstraints(merged.build())
+    }
+
+    private inline fun updateInterval(term: UExpr<*>, update: (UFpInterval) -> UFpInterval) {
+        if (isContradicting) return
+
+        val interval = update(intervals[term] ?: UFpInterval.UNIVERSE)
+        if (interval.isEmpty) {
+            isContradicting = true
+            return
+        }
+        intervals[term] = interval
+    }
+
+    private inline fun <T> recognizeFpConstraint(
+        expr: UBoolExpr,
+        onConstraint: (UExpr<*>, ComparisonKind, Double) -> T,
+        unknownConstraint: () -> T,
+    ): T {
+        val (kind, lhs, rhs) = when (expr) {
+            is KFpLessExpr<*> -> Triple(ComparisonKind.LT, expr.arg0, expr.arg1)
+            is KFpLessOrEqualExpr<*> -> Triple(ComparisonKind.LE, expr.arg0, expr.arg1)
+            is KFpGreaterExpr<*> -> Triple(ComparisonKind.GT, expr.arg0, expr.arg1)
+            is KFpGreaterOrEqualExpr<*> -> Triple(ComparisonKind.GE, expr.arg0, expr.arg1)
+            is KFpEqualExpr<*> -> Triple(ComparisonKind.EQ, expr.arg0, expr.arg1)
+            else -> return unknownConstraint()
+        }
+
+        val lhsValue = lhs.doubleValue()
+        val rhsValue = rhs.doubleValue()
+        return when {
+            lhsValue == null && rhsValue != null -> onConstraint(lhs, kind, rhsValue)
+            lhsValue != null && rhsValue == null -> onConstraint(rhs, kind.mirrored(), lhsValue)
+            else -> unknownConstraint()
+        }
+    }
+
+    private fun UExpr<*>.doubleValue(): Double? = when (this) {
+        is KFp32Value -> value.toDouble()
+        is KFp64Value -> value
+        else -> null
+    }
+
+    enum class ComparisonKind {
+        LT, LE, GT, GE, EQ;
+
+        /**
+         * The kind of the comparison with swapped arguments.
+         */
+        fun mirrored(): ComparisonKind = when (this) {
+            LT -> GT
+            LE -> GE
+            GT -> LT
+            GE -> LE
+            EQ -> EQ
+        }
+    }
+}
+
+/**
+ * Values of a floating-point term: numbers between [lower] and [upper], including infinities, and NaN if [mayBeNaN].
+ * Zeros of both signs are not distinguished, like in floating-point comparisons.
+ */
+data class UFpInterval(
+    val lower: Double,
+    val isLowerStrict: Boolean,
+    val upper: Double,
+    val isUpperStrict: Boolean,
+    val mayBeNaN: Boolean,
+) {
+    val hasNumbers: Boolean
+        get() = lower < upper || (lower == upper && !isLowerStrict && !isUpperStrict)
+
+    val isEmpty: Boolean get() = !hasNumbers && !mayBeNaN
+
+    /**
+     * Applies `term (kind) value`, which is false for NaN operands.
+     */
+    fun constrain(kind: UFpIntervalConstraints.ComparisonKind, value: Double): UFpInterval {
+        if (value.isNaN()) {
+            return EMPTY
+        }
+
+        val interval = copy(mayBeNaN = false)
+        return when (kind) {
+            UFpIntervalConstraints.ComparisonKind.LT -> interval.withUpperBound(value, isStrict = true)
+            UFpIntervalConstraints.ComparisonKind.LE -> interval.withUpperBound(value, isStrict = false)
+            UFpIntervalConstraints.ComparisonKind.GT -> interval.withLowerBound(value, isStrict = true)
+            UFpIntervalConstraints.ComparisonKind.GE -> interval.withLowerBound(value, isStrict = false)
+            UFpIntervalConstraints.ComparisonKind.EQ -> interval
+                .withLowerBound(value, isStrict = false)
+                .withUpperBound(value, isStrict = false)
+        }
+    }
+
+    /**
+     * Applies `!(term (kind) value)`, which is true for NaN operands.
+     */
+    fun constrainNegated(kind: UFpIntervalConstraints.ComparisonKind, value: Double): UFpInterval {
+        if (value.isNaN()) {
+            return this
+        }
+
+        return when (kind) {
+            UFpIntervalConstraints.ComparisonKind.LT -> withLowerBound(value, isStrict = false)
+            UFpIntervalConstraints.ComparisonKind.LE -> withLowerBound(value, isStrict = true)
+            UFpIntervalConstraints.ComparisonKind.GT -> withUpperBound(value, isStrict = false)
+            UFpIntervalConstraints.ComparisonKind.GE -> withUpperBound(value, isStrict = true)
+            UFpIntervalConstraints.ComparisonKind.EQ -> when {
+                // Only the bounds can be excluded, the interval has no holes
+                value == lower -> copy(isLowerStrict = true)
+                value == upper -> copy(isUpperStrict = true)
+                else -> this
+            }
+        }
+    }
+
+    fun join(other: UFpInterval): UFpInterval {
+        if (!other.hasNumbers) {
+            return copy(mayBeNaN = mayBeNaN || other.mayBeNaN)
+        }
+        if (!hasNumbers) {
+            return other.copy(mayBeNaN = mayBeNaN || other.mayBeNaN)
+        }
+
+        val (lower, isLowerStrict) = when {
+            this.lower < other.lower -> this.lower to this.isLowerStrict
+            this.lower > other.lower -> other.lower to other.isLowerStrict
+            else -> this.lower to (this.isLowerStrict && other.isLowerStrict)
+        }
+        val (upper, isUpperStrict) = when {
+            this.upper > other.upper -> this.upper to this.isUpperStrict
+            this.upper < other.upper -> other.upper to other.isUpperStrict
+            else -> this.upper to (this.isUpperStrict && other.isUpperStrict)
+        }
+        return UFpInterval(lower, isLowerStrict, upper, isUpperStrict, mayBeNaN || other.mayBeNaN)
+    }
+
+    private fun withLowerBound(value: Double, isStrict: Boolean): UFpInterval = when {
+        value > lower -> copy(lower = value, isLowerStrict = isStrict)
+        value == lower && isStrict -> copy(isLowerStrict = true)
+        else -> this
+    }
+
+    private fun withUpperBound(value: Double, isStrict: Boolean): UFpInterval = when {
+        value < upper -> copy(upper = value, isUpperStrict = isStrict)
+        value == upper && isStrict -> copy(isUpperStrict = true)
+        else -> this
+    }
+
+    companion object {
+        val UNIVERSE = UFpInterval(
+            Double.NEGATIVE_INFINITY,
+            isLowerStrict = false,
+            Double.POSITIVE_INFINITY,
+            isUpperStrict = false,
+            mayBeNaN = true
+        )
+
+        val NAN = UFpInterval(
+            Double.POSITIVE_INFINITY,
+            isLowerStrict = true,
+            Double.POSITIVE_INFINITY,
+            isUpperStrict = true,
+            mayBeNaN = true
+        )
+
+        val EMPTY = NAN.copy(mayBeNaN = false)
+
+        fun point(value: Double): UFpInterval =
+            UFpInterval(value, isLowerStrict = false, value, isUpperStrict = false, mayBeNaN = false)
+    }
+}
@@ -1,6 +1,9 @@
 package org.usvm.constraints
 
+import io.ksmt.expr.KBitVec16Value
 import io.ksmt.expr.KBitVec32Value
+import io.ksmt.expr.KBitVec64Value
+import io.ksmt.expr.KBitVec8Value
 import io.ksmt.expr.KBitVecValue
 import io.ksmt.expr.KBvAddExpr
 import io.ksmt.expr.KBvNegationExpr
@@ -228,9 +231,10 @@ class UNumericConstraints<Sort : UBvSort> private constructor(
 
     /**
      * Retrieve lower and upper bounds for the [expr].
+     * Supported only for sorts which fit into [Int], see [evalBounds] for the wider ones.
      * */
     fun evalInterval(expr: UExpr<Sort>): IntIntervalsRegion {
-        require(sort == ctx.bv32Sort) { "Unsupported sort: $sort" }
+        require(sort.sizeBits <= Int.SIZE_BITS.toUInt()) { "Unsupported sort: $sort" }
 
         val (terms, const) = collectLinearTerms(expr)
 
@@ -245,8 +249,8 @@ class UNumericConstraints<Sort : UBvSort> private constructor(
 
                 val actualConstraints = bounds.actualizeConstraint(bias)
 
-                val lowerBound = actualConstraints.lowerBound(bias)?.value?.intValue ?: Int.MIN_VALUE
-                val upperBound = actualConstraints.upperBound(bias)?.value?.intValue ?: Int.MAX_VALUE
+                val lowerBound = (actualConstraints.lowerBound(bias)?.value ?: minValue).intValue
+                val upperBound = (actualConstraints.upperBound(bias)?.value ?: maxValue).intValue
 
                 var interval = IntIntervalsRegion.ofClosed(lowerBound, upperBound)
 
@@ -262,12 +266,55 @@ class UNumericConstraints<Sort : UBvSort> private constructor(
                 IntIntervalsRegion.point(biasedValue.intValue)
             },
             noConstraint = {
-                IntIntervalsRegion.universe()
+                IntIntervalsRegion.ofClosed(minValue.intValue, maxValue.intValue)
             }
         )
     }
 
-    private val KBitVecValue<Sort>.intValue: Int get() = (this as KBitVec32Value).intValue
+    /**
+     * Retrieve signed lower and upper bounds for the [expr] of any supported sort, e.g. of a 64-bit one.
+     * Unlike [evalInterval], points excluded between the bounds are not taken into account.
+     * */
+    fun evalBounds(expr: UExpr<Sort>): LongRange {
+        val (terms, const) = collectLinearTerms(expr)
+
+        if (terms == null) {
+            val value = const?.longValue ?: 0L
+            return value..value
+        }
+
+        return withConstraint(
+            terms = terms,
+            bounds = { bounds, boundsBias ->
+                val bias = add(boundsBias, const)
+
+                val actualConstraints = bounds.actualizeConstraint(bias)
+
+                val lowerBound = actualConstraints.lowerBound(bias)?.value ?: minValue
+                val upperBound = actualConstraints.upperBound(bias)?.value ?: maxValue
+
+                lowerBound.longValue..upperBound.longValue
+            },
+            value = { value ->
+                val biasedValue = add(value, const).longValue
+                biasedValue..biasedValue
+            },
+            noConstraint = {
+                minValue.longValue..maxValue.longValue
+            }
+        )
+    }
+
+    private val KBitVecValue<Sort>.intValue: Int get() = longValue.toInt()
+
+    private val KBitVecValue<Sort>.longValue: Long
+        get() = when (this) {
+            is KBitVec8Value -> byteValue.toLong()
+            is KBitVec16Value -> shortValue.toLong()
+            is KBitVec32Value -> intValue.toLong()
+            is KBitVec64Value -> longValue
+            else -> error("Unsupported sort: $sort")
+        }
 
     fun clone(): UNumericConstraints<Sort> {
         if (this.isContradicting) {
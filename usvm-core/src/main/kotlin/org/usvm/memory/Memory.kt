@@ -18,6 +18,7 @@ import org.usvm.constraints.UTypeConstraints
 import org.usvm.constraints.UTypeEvaluator
 import org.usvm.merging.MergeGuard
 import org.usvm.merging.UMergeable
+import java.util.concurrent.atomic.AtomicInteger
 
 interface UMemoryRegionId<Key, Sort : USort> {
     val sort: Sort
@@ -33,6 +34,18 @@ interface UMemoryRegion<Key, Sort : USort> : UReadOnlyMemoryRegion<Key, Sort> {
     fun write(key: Key, value: UExpr<Sort>, guard: UBoolExpr): UMemoryRegion<Key, Sort>
 }
 
+/**
+ * A memory region which can be merged with the region of the same [UMemoryRegionId] from another state.
+ */
+interface UMergeableMemoryRegion<Key, Sort : USort> :
+    UMemoryRegion<Key, Sort>,
+    UMergeable<UMemoryRegion<Key, Sort>, MergeGuard> {
+    /**
+     * Estimates the cost of [mergeWith] as the number of values and collection updates it guards.
+     */
+    fun mergeCost(other: UMemoryRegion<Key, Sort>): Int
+}
+
 interface ULValue<Key, Sort : USort> {
     val sort: Sort
     val memoryRegionId: UMemoryRegionId<Key, Sort>
@@ -45,20 +58,22 @@ interface ULValue<Key, Sort : USort> {
  * That is, allocation of an object in one state updates counter in all states.
  * This would help to avoid overlapping addresses in merged states.
  * Copying is prohibited.
+ *
+ * Operations are thread-safe.
  */
 class UAddressCounter {
-    private var lastAllocatedAddress: Int = INITIAL_CONCRETE_ADDRESS
-    private var lastStaticAddress: Int = INITIAL_STATIC_ADDRESS
+    private val lastAllocatedAddress = AtomicInteger(INITIAL_CONCRETE_ADDRESS)
+    private val lastStaticAddress = AtomicInteger(INITIAL_STATIC_ADDRESS)
 
     /**
      * Returns the [lastAllocatedAddress] and increments it.
      */
-    fun freshAllocatedAddress(): UConcreteHeapAddress = lastAllocatedAddress++
+    fun freshAllocatedAddress(): UConcreteHeapAddress = lastAllocatedAddress.getAndIncrement()
 
     /**
      * Returns the [lastStaticAddress] and decrements it.
      */
-    fun freshStaticAddress(): UConcreteHeapAddress = lastStaticAddress--
+    fun freshStaticAddress(): UConcreteHeapAddress = lastStaticAddress.getAndDecrement()
 }
 
 interface UReadOnlyMemory<Type> {
@@ -161,38 +176,91 @@ class UMemory<Type, Method>(
         UMemory(ctx, types, stack, mocks, regions.build())
 
 
+    /**
+     * Check if this [UMemory] has the same contents as [other] memory, so any read gives the same value in both.
+     *
+     * As in [mergeWith], regions and mocks are compared by reference, stacks are compared deeply
+     * and types are not checked.
+     */
+    fun hasSameContentsAs(other: UMemory<Type, Method>): Boolean {
+        if (regions.keys != other.regions.keys) {
+            return false
+        }
+        for ((id, region) in regions) {
+            if (region !== other.regions[id]) {
+                return false
+            }
+        }
+        return mocks.hasSameContentsAs(other.mocks) && stack.hasSameContentsAs(other.stack)
+    }
+
+    /**
+     * Estimates the cost of merging this [UMemory] with [other] memory as the number of values which are guarded
+     * by [mergeWith]: the registers differing in the stacks, and the allocated values and collection updates
+     * differing in the regions. A region absent in one of the memories is compared with the empty one,
+     * a differing region which is not mergeable is counted once.
+     */
+    fun mergeCost(other: UMemory<*, *>): Int {
+        var cost = stack.countDifferentRegisters(other.stack)
+        for (id in regions.keys + other.regions.keys) {
+            val leftRegion = regions[id]
+            val rightRegion = other.regions[id]
+            if (leftRegion === rightRegion) {
+                continue
+            }
+            cost += regionsMergeCost(leftRegion ?: id.emptyRegion(), rightRegion ?: id.emptyRegion())
+        }
+        return cost
+    }
+
     /**
      * Check if this [UMemory] can be merged with [other] memory.
      *
+     * Regions differing by reference are merged if they are [UMergeableMemoryRegion]s: their values are
+     * combined with if-then-else expressions and their updates are guarded by the constraints of the [by]
+     * merge guard. A region absent in one of the memories is merged with the empty one.
+     *
      * TODO: now only the following case is supported:
-     *  - regions are reference equal
      *  - mocks are reference equal
      *  - types are not checked and taken from this [UMemory]
      *  - stacks are compared and merged deeply
      *
-     * @return the merged memory.
+     * @return the merged memory or `null` if some differing region is not mergeable.
      */
     override fun mergeWith(other: UMemory<Type, Method>, by: MergeGuard): UMemory<Type, Method>? {
-        val ids = regions.keys
-        val otherIds = other.regions.keys
-        if (ids != otherIds) {
-            return null
-        }
-
-        // TODO: types ?
-
-        for (id in ids) {
-            val leftRegion = getRegion(id)
-            val rightRegion = other.getRegion(id)
-            if (leftRegion !== rightRegion) {
-                return null
+        val mergedRegions = regions.build().builder()
+        for (id in regions.keys + other.regions.keys) {
+            val leftRegion = regions[id]
+            val rightRegion = other.regions[id]
+            if (leftRegion === rightRegion) {
+                continue
             }
+            mergedRegions[id] = mergeRegions(
+                leftRegion ?: id.emptyRegion(),
+                rightRegion ?: id.emptyRegion(),
+                by
+            ) ?: return null
         }
 
-        val mergedRegions = regions.build()
         val mergedStack = stack.mergeWith(other.stack, by) ?: return null
         val mergedMocks = mocks.mergeWith(other.mocks, by) ?: return null
 
-        return UMemory(ctx, types, mergedStack, mergedMocks, mergedRegions)
+        return UMemory(ctx, types, mergedStack, mergedMocks, mergedRegions.build())
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun regionsMergeCost(left: UMemoryRegion<*, *>, right: UMemoryRegion<*, *>): Int {
+        val mergeableRegion = left as? UMergeableMemoryRegion<Any?, USort> ?: return 1
+        return mergeableRegion.mergeCost(right as UMemoryRegion<Any?, USort>)
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun mergeRegions(
+        left: UMemoryRegion<*, *>,
+        right: UMemoryRegion<*, *>,
+        by: MergeGuard,
+    ): UMemoryRegion<*, *>? {
+        val mergeableRegion = left as? UMergeableMemoryRegion<Any?, USort> ?: return null
+        return mergeableRegion.mergeWith(right as UMemoryRegion<Any?, USort>, by)
     }
 }
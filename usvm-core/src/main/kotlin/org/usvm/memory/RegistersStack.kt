@@ -33,9 +33,20 @@ interface UReadOnlyRegistersStack : UReadOnlyMemoryRegion<URegisterStackLValue<*
     override fun read(key: URegisterStackLValue<*>): UExpr<USort> = readRegister(key.idx, key.sort)
 }
 
-class URegistersStack(
-    private val frames: MutableList<Array<UExpr<out USort>?>> = mutableListOf(),
+/**
+ * A stack of register frames with copy-on-write semantics. [clone] shares all the frames with the clone,
+ * and a frame is copied only when it is written for the first time after that. Writes go to the top frame only,
+ * so a forked state usually copies a single frame regardless of the stack depth.
+ */
+class URegistersStack private constructor(
+    private val frames: MutableList<Array<UExpr<out USort>?>>,
+    /**
+     * Frames with indices less than this value may be shared with other stacks and must be copied before writing.
+     */
+    private var sharedFramesCount: Int,
 ) : UReadOnlyRegistersStack, UMemoryRegion<URegisterStackLValue<*>, USort>, UMergeable<URegistersStack, MergeGuard> {
+    constructor() : this(mutableListOf(), sharedFramesCount = 0)
+
     fun push(registersCount: Int) = frames.add(Array(registersCount) { null })
 
     fun push(argumentsCount: Int, localsCount: Int) =
@@ -61,14 +72,34 @@ class URegistersStack(
     }
 
     fun writeRegister(index: Int, value: UExpr<out USort>) {
-        frames.last()[index] = value
+        ownedFrame(frames.lastIndex)[index] = value
     }
 
-    fun pop() = frames.removeLast()
+    fun pop(): Array<UExpr<out USort>?> {
+        val frame = frames.removeLast()
+        sharedFramesCount = minOf(sharedFramesCount, frames.size)
+        return frame
+    }
 
     fun clone(): URegistersStack {
-        val newStack = ArrayDeque(frames.map { it.clone() })
-        return URegistersStack(newStack)
+        sharedFramesCount = frames.size
+        return URegistersStack(frames.toMutableList(), sharedFramesCount)
+    }
+
+    /**
+     * Returns the frame with the [frameIdx] which is not shared with other stacks, copying it if necessary.
+     */
+    private fun ownedFrame(frameIdx: Int): Array<UExpr<out USort>?> {
+        val frame = frames[frameIdx]
+        if (frameIdx >= sharedFramesCount) {
+            return frame
+        }
+
+        val ownedFrame = frame.copyOf()
+        frames[frameIdx] = ownedFrame
+        // Only the top frame is written, so the frames below it remain shared
+        sharedFramesCount = frameIdx
+        return ownedFrame
     }
 
     private fun validate(
@@ -95,6 +126,34 @@ class URegistersStack(
         return true
     }
 
+    /**
+     * Check if this [URegistersStack] has the same frames as [other] stack, so all the registers read the same values.
+     */
+    fun hasSameContentsAs(other: URegistersStack): Boolean {
+        if (frames.size != other.frames.size) {
+            return false
+        }
+        return frames.indices.all { frames[it] === other.frames[it] || frames[it].contentEquals(other.frames[it]) }
+    }
+
+    /**
+     * Counts the registers with different values in this [URegistersStack] and [other] stack.
+     * Frames present only in one of the stacks are counted entirely.
+     */
+    fun countDifferentRegisters(other: URegistersStack): Int {
+        var count = 0
+        for (frameIdx in 0 until maxOf(frames.size, other.frames.size)) {
+            val frame = frames.getOrNull(frameIdx)
+            val otherFrame = other.frames.getOrNull(frameIdx)
+            if (frame === otherFrame) {
+                continue
+            }
+            val size = maxOf(frame?.size ?: 0, otherFrame?.size ?: 0)
+            count += (0 until size).count { frame?.getOrNull(it) != otherFrame?.getOrNull(it) }
+        }
+        return count
+    }
+
     /**
      * Check if this [URegistersStack] can be merged with [other] stack.
      *
@@ -108,7 +167,8 @@ class URegistersStack(
             return null
         }
         val clonedStack = clone()
-        for ((frameIdx, leftFrame) in clonedStack.frames.withIndex()) {
+        for (frameIdx in clonedStack.frames.indices.reversed()) {
+            val leftFrame = clonedStack.ownedFrame(frameIdx)
             val rightFrame = other.frames[frameIdx]
             for ((registerIdx, leftRegister) in leftFrame.withIndex()) {
                 val rightRegister = rightFrame[registerIdx]
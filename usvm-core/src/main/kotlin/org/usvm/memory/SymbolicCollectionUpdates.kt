@@ -1,10 +1,13 @@
 package org.usvm.memory
 
+import kotlinx.collections.immutable.PersistentMap
+import kotlinx.collections.immutable.persistentHashMapOf
 import org.usvm.UBoolExpr
 import org.usvm.UComposer
 import org.usvm.UExpr
 import org.usvm.USort
 import org.usvm.isFalse
+import org.usvm.merging.MergeGuard
 import org.usvm.regions.Region
 import org.usvm.regions.RegionTree
 import org.usvm.regions.emptyRegionTree
@@ -61,6 +64,24 @@ interface USymbolicCollectionUpdates<Key, Sort : USort> : Sequence<UUpdateNode<K
         guard: UBoolExpr,
     ): USymbolicCollectionUpdates<Key, Sort>
 
+    /**
+     * Merges these updates with the [other] ones made along another path from a common ancestor. The common
+     * updates are kept as is, the updates made only along the other path are guarded with the negation of
+     * [MergeGuard.thisConstraint] and the updates made only along this path are applied last, guarded with it.
+     *
+     * @return the merged updates or `null` if the [other] updates are of another kind.
+     */
+    fun mergeWith(other: USymbolicCollectionUpdates<Key, Sort>, by: MergeGuard): USymbolicCollectionUpdates<Key, Sort>?
+
+    /**
+     * Estimates the cost of [mergeWith] as the number of updates guarded by it, i.e. the updates of both
+     * these and the [other] updates except the common ones.
+     *
+     * @return the number of guarded updates or `0` if the [other] updates are of another kind,
+     * since they are not merged at all.
+     */
+    fun mergeCost(other: USymbolicCollectionUpdates<Key, Sort>): Int
+
     /**
      * Returns the last updated element if there were any updates or null otherwise.
      *
@@ -104,6 +125,16 @@ interface UMemoryUpdatesVisitor<Key, Sort : USort, Result> {
 
 //region Flat memory updates
 
+/**
+ * A linked list of updates, the most recent one first.
+ *
+ * Besides, every list indexes its writes by concrete keys (see [USymbolicCollectionKeyInfo.isConcrete])
+ * and remembers its most recent update which is not such a write.
+ * Such an update may include any key, so it is a barrier for the index. Reading a concrete key without
+ * composition jumps directly to the most recent of the last write by this key and the barrier instead of
+ * walking all the writes by other concrete keys. Writes to the input collections by static refs are such writes.
+ * Tree updates need no such index, since a write by a concrete key is found by its region in [UTreeUpdates].
+ */
 class UFlatUpdates<Key, Sort : USort> private constructor(
     internal val node: UFlatUpdatesNode<Key, Sort>?,
     private val keyInfo: USymbolicCollectionKeyInfo<Key, *>,
@@ -115,11 +146,79 @@ class UFlatUpdates<Key, Sort : USort> private constructor(
         val next: UFlatUpdates<Key, Sort>,
     )
 
-    override fun read(key: Key, composer: UComposer<*, *>?): UFlatUpdates<Key, Sort> =
+    /**
+     * The number of updates in this list, used to compare the positions of its suffixes.
+     */
+    private val size: Int = node?.next?.size?.plus(1) ?: 0
+
+    /**
+     * Maps concrete keys to the suffixes of this list starting with the most recent write by the key.
+     */
+    private val concreteKeyWrites: PersistentMap<Key, UFlatUpdates<Key, Sort>>
+
+    /**
+     * The suffix of this list starting with the most recent update which is not a write by a concrete key.
+     */
+    private val lastSymbolicUpdate: UFlatUpdates<Key, Sort>?
+
+    init {
+        val next = node?.next
+        val update = node?.update
         when {
+            next == null -> {
+                concreteKeyWrites = persistentHashMapOf()
+                lastSymbolicUpdate = null
+            }
+
+            update is UPinpointUpdateNode<Key, Sort> && keyInfo.isConcrete(update.key) -> {
+                // Writes guarded by false never include any key, so reads skip them
+                concreteKeyWrites = if (update.guard.isFalse) {
+                    next.concreteKeyWrites
+                } else {
+                    next.concreteKeyWrites.put(update.key, this)
+                }
+                lastSymbolicUpdate = next.lastSymbolicUpdate
+            }
+
+            else -> {
+                concreteKeyWrites = next.concreteKeyWrites
+                lastSymbolicUpdate = this
+            }
+        }
+    }
+
+    override fun read(key: Key, composer: UComposer<*, *>?): UFlatUpdates<Key, Sort> {
+        if (composer == null && keyInfo.isConcrete(key)) {
+            return readConcrete(key)
+        }
+
+        return when {
             node != null && node.update.includesSymbolically(key, composer).isFalse -> node.next.read(key, composer)
             else -> this
         }
+    }
+
+    /**
+     * Reads the concrete [key] without composition using the index of concrete key writes. Writes by other
+     * concrete keys never include the [key], so the result is the same as of walking the list.
+     */
+    private fun readConcrete(key: Key): UFlatUpdates<Key, Sort> {
+        var barrier = lastSymbolicUpdate
+        while (barrier != null) {
+            val barrierNode = checkNotNull(barrier.node)
+            if (!barrierNode.update.includesSymbolically(key, composer = null).isFalse) {
+                break
+            }
+            barrier = barrierNode.next.lastSymbolicUpdate
+        }
+
+        val lastWrite = concreteKeyWrites[key]
+        return when {
+            lastWrite != null && (barrier == null || lastWrite.size > barrier.size) -> lastWrite
+            barrier != null -> barrier
+            else -> UFlatUpdates(keyInfo)
+        }
+    }
 
     override fun write(
         key: Key,
@@ -180,6 +279,70 @@ class UFlatUpdates<Key, Sort : USort> private constructor(
         )
     }
 
+    override fun mergeWith(other: USymbolicCollectionUpdates<Key, Sort>, by: MergeGuard): UFlatUpdates<Key, Sort>? {
+        if (other !is UFlatUpdates<Key, Sort>) {
+            return null
+        }
+
+        val (thisUpdates, otherUpdates, commonSuffix) = splitByCommonSuffix(other)
+
+        val thisConstraint = by.thisConstraint
+        val otherConstraint = thisConstraint.ctx.mkNot(thisConstraint)
+        var merged = commonSuffix
+        for (update in otherUpdates.asReversed()) {
+            merged = UFlatUpdates(UFlatUpdatesNode(update.guardedWith(otherConstraint), merged), keyInfo)
+        }
+        for (update in thisUpdates.asReversed()) {
+            merged = UFlatUpdates(UFlatUpdatesNode(update.guardedWith(thisConstraint), merged), keyInfo)
+        }
+        return merged
+    }
+
+    override fun mergeCost(other: USymbolicCollectionUpdates<Key, Sort>): Int {
+        if (other !is UFlatUpdates<Key, Sort>) {
+            return 0
+        }
+
+        val (thisUpdates, otherUpdates) = splitByCommonSuffix(other)
+        return thisUpdates.size + otherUpdates.size
+    }
+
+    /**
+     * Finds the longest common suffix of these and the [other] updates.
+     *
+     * @return the updates of this and the [other] lists preceding the common suffix, the most recent first,
+     * and the common suffix itself.
+     */
+    private fun splitByCommonSuffix(
+        other: UFlatUpdates<Key, Sort>,
+    ): Triple<List<UUpdateNode<Key, Sort>>, List<UUpdateNode<Key, Sort>>, UFlatUpdates<Key, Sort>> {
+        val otherSuffixes = hashSetOf<UFlatUpdates<Key, Sort>>()
+        var current = other
+        while (true) {
+            otherSuffixes += current
+            current = current.node?.next ?: break
+        }
+
+        // Both updates end with an empty list, so there is always a common suffix
+        val thisUpdates = mutableListOf<UUpdateNode<Key, Sort>>()
+        var commonSuffix = this
+        while (commonSuffix !in otherSuffixes) {
+            val node = commonSuffix.node ?: break
+            thisUpdates += node.update
+            commonSuffix = node.next
+        }
+
+        val otherUpdates = mutableListOf<UUpdateNode<Key, Sort>>()
+        current = other
+        while (current !== commonSuffix) {
+            val node = current.node ?: break
+            otherUpdates += node.update
+            current = node.next
+        }
+
+        return Triple(thisUpdates, otherUpdates, commonSuffix)
+    }
+
     /**
      * Returns updates in the FIFO order: the iterator emits updates from the oldest updates to the most recent one.
      * It means that the `initialNode` from the [UFlatUpdatesIterator] will be returned as the last element.
@@ -293,12 +456,7 @@ data class UTreeUpdates<Key, Reg : Region<Reg>, Sort : USort>(
 
         // add an update to result tree
         fun applyUpdate(update: UUpdateNode<Key, Sort>) {
-            val region = when (update) {
-                is UPinpointUpdateNode<Key, Sort> -> keyInfo.keyToRegion(update.key)
-                is URangedUpdateNode<*, *, Key, Sort> -> update.adapter.region()
-            }
-            splitRegionTree = splitRegionTree
-                .write(region, update) { !it.isIncludedByUpdateConcretely(update) }
+            splitRegionTree = splitRegionTree.writeUpdate(update)
         }
 
 
@@ -339,6 +497,68 @@ data class UTreeUpdates<Key, Reg : Region<Reg>, Sort : USort>(
         return this.copy(updates = splitRegionTree)
     }
 
+    override fun mergeWith(
+        other: USymbolicCollectionUpdates<Key, Sort>,
+        by: MergeGuard,
+    ): UTreeUpdates<Key, Reg, Sort>? {
+        if (other !is UTreeUpdates<*, *, *>) {
+            return null
+        }
+
+        val thisUpdates = toList()
+        val otherUpdates = other.toList()
+        val commonPrefixSize = commonPrefixSize(thisUpdates, otherUpdates)
+
+        val thisConstraint = by.thisConstraint
+        val otherConstraint = thisConstraint.ctx.mkNot(thisConstraint)
+        var mergedRegionTree = emptyRegionTree<Reg, UUpdateNode<Key, Sort>>()
+        for (i in 0 until commonPrefixSize) {
+            mergedRegionTree = mergedRegionTree.writeUpdate(thisUpdates[i])
+        }
+        for (i in commonPrefixSize until otherUpdates.size) {
+            @Suppress("UNCHECKED_CAST")
+            val update = otherUpdates[i] as UUpdateNode<Key, Sort>
+            mergedRegionTree = mergedRegionTree.writeUpdate(update.guardedWith(otherConstraint))
+        }
+        for (i in commonPrefixSize until thisUpdates.size) {
+            mergedRegionTree = mergedRegionTree.writeUpdate(thisUpdates[i].guardedWith(thisConstraint))
+        }
+
+        return this.copy(updates = mergedRegionTree)
+    }
+
+    override fun mergeCost(other: USymbolicCollectionUpdates<Key, Sort>): Int {
+        if (other !is UTreeUpdates<*, *, *>) {
+            return 0
+        }
+
+        val thisUpdates = toList()
+        val otherUpdates = other.toList()
+        return thisUpdates.size + otherUpdates.size - 2 * commonPrefixSize(thisUpdates, otherUpdates)
+    }
+
+    private fun commonPrefixSize(thisUpdates: List<UUpdateNode<Key, Sort>>, otherUpdates: List<Any?>): Int {
+        var commonPrefixSize = 0
+        while (
+            commonPrefixSize < thisUpdates.size &&
+            commonPrefixSize < otherUpdates.size &&
+            thisUpdates[commonPrefixSize] === otherUpdates[commonPrefixSize]
+        ) {
+            commonPrefixSize++
+        }
+        return commonPrefixSize
+    }
+
+    private fun RegionTree<Reg, UUpdateNode<Key, Sort>>.writeUpdate(
+        update: UUpdateNode<Key, Sort>,
+    ): RegionTree<Reg, UUpdateNode<Key, Sort>> {
+        val region = when (update) {
+            is UPinpointUpdateNode<Key, Sort> -> keyInfo.keyToRegion(update.key)
+            is URangedUpdateNode<*, *, Key, Sort> -> update.adapter.region()
+        }
+        return write(region, update) { !it.isIncludedByUpdateConcretely(update) }
+    }
+
     /**
      * Returns updates in the FIFO order: the iterator emits updates from the oldest updates to the most recent one.
      * Note that if some key in the tree is presented in more than one node, it will be returned exactly ones.
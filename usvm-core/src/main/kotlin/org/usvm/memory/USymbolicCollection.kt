@@ -9,6 +9,7 @@ import org.usvm.UExpr
 import org.usvm.USort
 import org.usvm.isFalse
 import org.usvm.isTrue
+import org.usvm.merging.MergeGuard
 import org.usvm.uctx
 
 /**
@@ -213,6 +214,36 @@ data class USymbolicCollection<out CollectionId : USymbolicCollectionId<Key, Sor
         return this.copy(updates = updatesCopy)
     }
 
+    /**
+     * Merges this collection with the [other] one from another state.
+     *
+     * @return the merged collection or `null` if the [other] collection has another [collectionId]
+     * or its updates can't be merged with these ones.
+     * @see USymbolicCollectionUpdates.mergeWith
+     */
+    fun mergeWith(
+        other: USymbolicCollection<*, Key, Sort>,
+        by: MergeGuard,
+    ): USymbolicCollection<CollectionId, Key, Sort>? {
+        if (updates === other.updates) {
+            return this
+        }
+        if (collectionId != other.collectionId) {
+            return null
+        }
+
+        val mergedUpdates = updates.mergeWith(other.updates, by) ?: return null
+        return this.copy(updates = mergedUpdates)
+    }
+
+    /**
+     * Estimates the cost of [mergeWith] as the number of updates it guards.
+     *
+     * @see USymbolicCollectionUpdates.mergeCost
+     */
+    fun mergeCost(other: USymbolicCollection<*, Key, Sort>): Int =
+        if (updates === other.updates) 0 else updates.mergeCost(other.updates)
+
     override fun read(key: Key): UExpr<Sort> = read(key, composer = null)
 
     override fun toString(): String =
@@ -258,3 +289,75 @@ inline fun <K, VSort : USort> PersistentMap<K, UExpr<VSort>>.guardedWrite(
     )
     return put(key, guardedValue)
 }
+
+/**
+ * Merges the values of this map with the ones of the [other] map from another state. The values differing in
+ * the maps are combined with if-then-else expressions, an absent value is the [defaultValue].
+ */
+inline fun <K, VSort : USort> PersistentMap<K, UExpr<VSort>>.mergeWith(
+    other: PersistentMap<K, UExpr<VSort>>,
+    by: MergeGuard,
+    defaultValue: () -> UExpr<VSort>,
+): PersistentMap<K, UExpr<VSort>> {
+    if (this === other) {
+        return this
+    }
+
+    val thisConstraint = by.thisConstraint
+    val merged = builder()
+    for ((key, otherValue) in other) {
+        val value = this[key]
+        if (value != otherValue) {
+            merged[key] = thisConstraint.uctx.mkIte(thisConstraint, value ?: defaultValue(), otherValue)
+        }
+    }
+    for ((key, value) in this) {
+        if (key !in other) {
+            merged[key] = thisConstraint.uctx.mkIte(thisConstraint, value, defaultValue())
+        }
+    }
+    return merged.build()
+}
+
+/**
+ * Counts the values differing in this map and the [other] one, i.e. the if-then-else expressions made by [mergeWith].
+ */
+fun <K, V> PersistentMap<K, V>.countDifferentValues(other: PersistentMap<K, V>): Int {
+    if (this === other) {
+        return 0
+    }
+
+    val differentValues = other.count { (key, otherValue) -> this[key] != otherValue }
+    return differentValues + keys.count { it !in other }
+}
+
+/**
+ * Merges the [left] and [right] collections from different states, at least one of them must be present.
+ * An absent collection is merged as the empty one.
+ *
+ * @return the merged collection or `null` if the collections can't be merged.
+ */
+fun <CollectionId : USymbolicCollectionId<Key, Sort, CollectionId>, Key, Sort : USort> mergeCollections(
+    left: USymbolicCollection<CollectionId, Key, Sort>?,
+    right: USymbolicCollection<CollectionId, Key, Sort>?,
+    by: MergeGuard,
+): USymbolicCollection<CollectionId, Key, Sort>? {
+    val leftCollection = left ?: checkNotNull(right).collectionId.emptyRegion()
+    val rightCollection = right ?: checkNotNull(left).collectionId.emptyRegion()
+    return leftCollection.mergeWith(rightCollection, by)
+}
+
+/**
+ * Estimates the cost of [mergeCollections] for the [left] and [right] collections from different states.
+ */
+fun <CollectionId : USymbolicCollectionId<Key, Sort, CollectionId>, Key, Sort : USort> collectionsMergeCost(
+    left: USymbolicCollection<CollectionId, Key, Sort>?,
+    right: USymbolicCollection<CollectionId, Key, Sort>?,
+): Int {
+    if (left === right) {
+        return 0
+    }
+    val leftCollection = left ?: checkNotNull(right).collectionId.emptyRegion()
+    val rightCollection = right ?: checkNotNull(left).collectionId.emptyRegion()
+    return leftCollection.mergeCost(rightCollection)
+}
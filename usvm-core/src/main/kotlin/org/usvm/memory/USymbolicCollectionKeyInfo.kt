@@ -22,6 +22,12 @@ interface USymbolicCollectionKeyInfo<Key, Reg : Region<Reg>> {
      */
     fun eqConcrete(key1: Key, key2: Key): Boolean
 
+    /**
+     * Returns if [key] is a concrete value, i.e. [eqSymbolic] of it and any other concrete key is
+     * simplified to either true or false.
+     */
+    fun isConcrete(key: Key): Boolean = false
+
     /**
      * Returns symbolic expression guaranteeing that [key1] is less or equal to [key2].
      * Assumes that [Key] domain is linearly ordered.
@@ -63,6 +63,11 @@ sealed interface UUpdateNode<Key, Sort : USort> {
      * Guard is a symbolic condition for this update. That is, this update is done only in states satisfying this guard.
      */
     val guard: UBoolExpr
+
+    /**
+     * @return the same update done only in states satisfying both [guard] and [condition].
+     */
+    fun guardedWith(condition: UBoolExpr): UUpdateNode<Key, Sort>
 }
 
 /**
@@ -121,6 +126,9 @@ class UPinpointUpdateNode<Key, Sort : USort>(
         return res
     }
 
+    override fun guardedWith(condition: UBoolExpr): UPinpointUpdateNode<Key, Sort> =
+        UPinpointUpdateNode(key, keyInfo, value, guard.ctx.mkAnd(guard, condition))
+
     override fun toString(): String = "{$key <- $value}".takeIf { guard.isTrue } ?: "{$key <- $value | $guard}"
 }
 
@@ -211,6 +219,9 @@ class URangedUpdateNode<CollectionId : USymbolicCollectionId<SrcKey, Sort, Colle
         return resultUpdateNode
     }
 
+    override fun guardedWith(condition: UBoolExpr): URangedUpdateNode<CollectionId, SrcKey, DstKey, Sort> =
+        URangedUpdateNode(sourceCollection, adapter, guard.ctx.mkAnd(guard, condition))
+
     /**
      * Applies this update node to the [memory] with applying composition via [composer].
      */
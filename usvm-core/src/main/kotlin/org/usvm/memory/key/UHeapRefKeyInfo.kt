@@ -24,6 +24,8 @@ object UHeapRefKeyInfo : USymbolicCollectionKeyInfo<UHeapRef, UHeapRefRegion> {
     override fun eqConcrete(key1: UHeapRef, key2: UHeapRef): Boolean =
         key1 == key2
 
+    override fun isConcrete(key: UHeapRef): Boolean = key is UConcreteHeapRef
+
     override fun cmpSymbolicLe(ctx: UContext<*>, key1: UHeapRef, key2: UHeapRef): UBoolExpr =
         error("Heap references should not be compared!")
 
@@ -1,5 +1,6 @@
 package org.usvm.memory.key
 
+import io.ksmt.expr.KInterpretedValue
 import io.ksmt.utils.cast
 import org.usvm.UBoolExpr
 import org.usvm.UContext
@@ -63,6 +64,8 @@ class USizeExprKeyInfo<USizeSort : USort> private constructor() :
     override fun eqConcrete(key1: UExpr<USizeSort>, key2: UExpr<USizeSort>): Boolean =
         key1 === key2
 
+    override fun isConcrete(key: UExpr<USizeSort>): Boolean = key is KInterpretedValue<*>
+
     override fun topRegion() =
         IntIntervalsRegion.universe()
 
@@ -13,13 +13,15 @@ val logger = KotlinLogging.logger { }
  * - then it searches for close states to the peeked one via [closeStatesSearcher]
  * - if no states were found, returns the original one
  * - if there are some states, peeks the first one, tries to merge it with the original one and returns the result
- * - if merging fails, returns the closest state to the original one
+ * - if merging is estimated to cost more than [mergeCostLimit] (see [org.usvm.memory.UMemory.mergeCost]) or fails,
+ *   returns the closest state to the original one, so it is executed separately as if the states were forked
  * - when there are no successful merges in [advanceLimit] peeks, returns the state from the [underlyingPathSelector]
  */
 class MergingPathSelector<State : UState<*, *, *, *, *, State>>(
     private val underlyingPathSelector: UPathSelector<State>,
     private val closeStatesSearcher: CloseStatesSearcher<State>,
     private val advanceLimit: Int = 15,
+    private val mergeCostLimit: Int = DEFAULT_MERGE_COST_LIMIT,
 ) : UPathSelector<State> {
     override fun isEmpty(): Boolean = underlyingPathSelector.isEmpty()
 
@@ -36,7 +38,11 @@ class MergingPathSelector<State : UState<*, *, *, *, *, State>>(
         val resultState = when (val selectorState = selectorState) {
             is SelectorState.Advancing -> {
                 val closeState = closeStatesSearcher.findCloseStates(state).firstOrNull() ?: return state
-                val mergedState = state.mergeWith(closeState, Unit)
+                val mergedState = if (state.memory.mergeCost(closeState.memory) <= mergeCostLimit) {
+                    state.mergeWith(closeState, Unit)
+                } else {
+                    null
+                }
                 if (mergedState == null) {
                     selectorState.steps++
                     if (selectorState.steps == advanceLimit) {
@@ -79,4 +85,8 @@ class MergingPathSelector<State : UState<*, *, *, *, *, State>>(
         underlyingPathSelector.remove(state)
         closeStatesSearcher.remove(state)
     }
+
+    companion object {
+        const val DEFAULT_MERGE_COST_LIMIT = 32
+    }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package org.usvm.ps
+
+import org.usvm.UPathSelector
+import org.usvm.UState
+import org.usvm.constraints.UPathConstraints
+import org.usvm.model.UModelBase
+import org.usvm.solver.USatResult
+import java.util.concurrent.Executor
+import java.util.concurrent.LinkedBlockingQueue
+
+/**
+ * A path selector which hides possibly unsatisfiable states from the wrapped [selector].
+ *
+ * States without models, i.e. forked without the solver, are pending: they are collected into batches and
+ * checked on the [executor] threads, while the machine keeps stepping states known to be satisfiable.
+ * Unsatisfiable states are discarded by the checkers, satisfiable ones are added to the [selector] along with
+ * the models found by the checkers, which share nothing with their solvers.
+ * [isEmpty] and [peek] wait for the checks only when the [selector] has nothing to offer.
+ *
+ * The order of states depends on the solver speed, so the exploration is not deterministic.
+ * Like other path selectors, it is not thread-safe.
+ *
+ * @param maxBatchesInFlight the number of batches checked at the same time, usually the number of [executor] threads.
+ * While all of them are busy, pending states are accumulated into the next batch.
+ * @param maxBatchSize a batch is submitted as soon as it reaches this size, even if all the checkers are busy.
+ */
+class FeasibilityCheckingPathSelector<Type, State : UState<Type, *, *, *, *, State>>(
+    private val selector: UPathSelector<State>,
+    private val executor: Executor,
+    private val maxBatchesInFlight: Int,
+    private val maxBatchSize: Int = DEFAULT_BATCH_SIZE,
+) : UPathSelector<State> {
+    init {
+        require(maxBatchesInFlight > 0) { "At least one batch must be checked at a time" }
+    }
+
+    private var batch = mutableListOf<PendingState<Type, State>>()
+    private var batchesInFlight = 0
+    private val checkedBatches = LinkedBlockingQueue<Result<List<CheckedState<Type, State>>>>()
+
+    override fun isEmpty(): Boolean {
+        awaitStates()
+        return selector.isEmpty()
+    }
+
+    override fun peek(): State {
+        awaitStates()
+        return selector.peek()
+    }
+
+    override fun remove(state: State) = selector.remove(state)
+
+    override fun add(states: Collection<State>) {
+        val (satStates, pendingStates) = states.partition { it.models.isNotEmpty() }
+        if (satStates.isNotEmpty()) {
+            selector.add(satStates)
+        }
+        pendingStates.forEach(::enqueue)
+    }
+
+    override fun update(state: State) {
+        if (state.models.isNotEmpty()) {
+            selector.update(state)
+            return
+        }
+
+        // The state has just taken a branch which none of its models satisfies
+        selector.remove(state)
+        enqueue(state)
+    }
+
+    private fun enqueue(state: State) {
+        // Path constraints are cloned here, so the checker never reads a state which may be modified
+        batch += PendingState(state, state.pathConstraints.clone())
+        if (batch.size >= maxBatchSize) {
+            submitBatch()
+        }
+    }
+
+    private fun awaitStates() {
+        drainCheckedBatches()
+        if (batchesInFlight < maxBatchesInFlight) {
+            submitBatch()
+        }
+
+        while (selector.isEmpty() && (batchesInFlight > 0 || batch.isNotEmpty())) {
+            submitBatch()
+            onBatchChecked(checkedBatches.take())
+            drainCheckedBatches()
+        }
+    }
+
+    private fun submitBatch() {
+        if (batch.isEmpty()) {
+            return
+        }
+
+        val statesToCheck = batch
+        batch = mutableListOf()
+        batchesInFlight++
+        executor.execute {
+            checkedBatches += runCatching { statesToCheck.map { it.check() } }
+        }
+    }
+
+    private fun drainCheckedBatches() {
+        while (true) {
+            val checkedBatch = checkedBatches.poll() ?: return
+            onBatchChecked(checkedBatch)
+        }
+    }
+
+    private fun onBatchChecked(checkedBatch: Result<List<CheckedState<Type, State>>>) {
+        batchesInFlight--
+
+        val satStates = checkedBatch.getOrThrow().mapNotNull { (state, model) ->
+            model ?: return@mapNotNull null
+            state.models = listOf(model)
+            state
+        }
+        if (satStates.isNotEmpty()) {
+            selector.add(satStates)
+        }
+    }
+
+    private class PendingState<Type, State : UState<Type, *, *, *, *, State>>(
+        val state: State,
+        val pathConstraints: UPathConstraints<Type>,
+    ) {
+        /**
+         * Called on a checker thread, so it uses the solver of this thread. The found model is detached from
+         * the solver, since it is used by the machine thread.
+         */
+        fun check(): CheckedState<Type, State> {
+            val solverResult = state.ctx.solver<Type>().checkDetached(pathConstraints)
+            return CheckedState(state, (solverResult as? USatResult)?.model)
+        }
+    }
+
+    /**
+     * @property model a model of the [state] or `null` if the state is unsatisfiable or the solver
+     * has failed to prove that it is satisfiable.
+     */
+    private data class CheckedState<Type, State>(
+        val state: State,
+        val model: UModelBase<Type>?,
+    )
+
+    companion object {
+        const val DEFAULT_BATCH_SIZE = 32
+    }
+}
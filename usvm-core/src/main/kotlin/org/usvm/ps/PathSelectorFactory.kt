@@ -270,6 +270,9 @@ private fun <Statement, Method, State : UState<*, Method, Statement, *, *, State
     if (options.exceptionsPropagation && ps !is ExceptionPropagationPathSelector<State>) {
         ps = ExceptionPropagationPathSelector(ps)
     }
+    if (options.useSubsumption && ps !is SubsumptionPathSelector<*, *, State>) {
+        ps = createSubsumptionPathSelector(ps, loopStatisticFactory)
+    }
     if (options.loopIterativeDeepening && ps !is IterativeDeepeningPs<*, *, *, State>) {
         ps = createIterativeDeepeningPathSelector(ps, options, loopStatisticFactory)
     }
@@ -385,6 +388,14 @@ internal fun <Method, Statement, State> createIterativeDeepeningPathSelector(
     return IterativeDeepeningPs(underlyingPathSelector, loopTracker, options.loopIterationLimit)
 }
 
+internal fun <Method, Statement, State> createSubsumptionPathSelector(
+    underlyingPathSelector: UPathSelector<State>,
+    loopStatisticFactory: () -> StateLoopTracker<*, Statement, State>?,
+): UPathSelector<State> where State : UState<*, Method, Statement, *, *, State> {
+    val loopTracker = requireNotNull(loopStatisticFactory()) { "Loop tracker is required for subsumption" }
+    return SubsumptionPathSelector(underlyingPathSelector, loopTracker)
+}
+
 internal fun <Method, Statement, State> createLoopLimiterPathSelector(
     underlyingPathSelector: UPathSelector<State>,
     options: UMachineOptions,
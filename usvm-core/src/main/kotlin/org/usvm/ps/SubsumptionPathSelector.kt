@@ -0,0 +1,157 @@
+package org.usvm.ps
+
+import org.usvm.PathNode
+import org.usvm.StateId
+import org.usvm.UCallStackFrame
+import org.usvm.UPathSelector
+import org.usvm.UState
+import org.usvm.constraints.UPathConstraints
+import org.usvm.logger
+import org.usvm.memory.UMemory
+
+/**
+ * Drops states subsumed by already explored ones at loop heads.
+ *
+ * Every state entering a loop head is compared with the states explored at the same statement with the same
+ * call stack. A state is subsumed by an explored one if both have the same memory, the same targets and
+ * the path constraints of the state imply the ones of the explored state, so any path from the state
+ * is a path from the explored one. Implications are checked with the solver of the current thread.
+ *
+ * A state is never compared with the states explored by itself or its ancestors, since its paths are the part
+ * of theirs which is not explored yet. States with [UState.hasPendingMethodResult] are neither compared nor recorded,
+ * since they continue after the call at their statement instead of executing it.
+ *
+ * Only [maxStatesPerLocation] most recent states are kept for each location. Subsumed states are not
+ * added to the [underlyingPs], like the states dropped by [LoopLimiterPs].
+ */
+class SubsumptionPathSelector<Method, Statement, State : UState<*, Method, Statement, *, *, State>>(
+    private val underlyingPs: UPathSelector<State>,
+    private val loopTracker: StateLoopTracker<*, Statement, State>,
+    private val maxStatesPerLocation: Int = DEFAULT_MAX_STATES_PER_LOCATION,
+) : UPathSelector<State> {
+    private val exploredStates =
+        hashMapOf<Location<Method, Statement>, ArrayDeque<ExploredState<Method, Statement>>>()
+
+    override fun isEmpty(): Boolean = underlyingPs.isEmpty()
+
+    override fun peek(): State = underlyingPs.peek()
+
+    override fun add(states: Collection<State>) {
+        val notSubsumedStates = states.filterNot(::isSubsumed)
+        if (notSubsumedStates.isNotEmpty()) {
+            underlyingPs.add(notSubsumedStates)
+        }
+    }
+
+    override fun update(state: State) {
+        if (isSubsumed(state)) {
+            underlyingPs.remove(state)
+            return
+        }
+        underlyingPs.update(state)
+    }
+
+    override fun remove(state: State) = underlyingPs.remove(state)
+
+    /**
+     * Checks the [state] against the states explored at its location and records it if it is not subsumed.
+     */
+    private fun isSubsumed(state: State): Boolean {
+        if (state.isExceptional || state.hasPendingMethodResult) {
+            return false
+        }
+        if (loopTracker.findLoopEntrance(state.currentStatement) == null) {
+            return false
+        }
+
+        val location = Location(state.currentStatement, state.callStack.toList())
+        val locationStates = exploredStates.getOrPut(location, ::ArrayDeque)
+        val targets = state.targets.toList()
+
+        for (exploredState in locationStates) {
+            if (exploredState.subsumes(state, targets)) {
+                logger.debug {
+                    "Drop state ${state.id} | subsumed at ${state.lastEnteredMethod} ${state.currentStatement}"
+                }
+                return true
+            }
+        }
+
+        val pathConstraints = state.typedPathConstraints().clone()
+        locationStates.addLast(
+            ExploredState(
+                state.id,
+                state.pathNode,
+                pathConstraints,
+                state.typedMemory().clone(pathConstraints.typeConstraints),
+                targets
+            )
+        )
+        if (locationStates.size > maxStatesPerLocation) {
+            locationStates.removeFirst()
+        }
+        return false
+    }
+
+    private fun ExploredState<Method, Statement>.subsumes(state: State, stateTargets: List<Any?>): Boolean {
+        if (isExploredByAncestorOf(state)) {
+            return false
+        }
+        if (targets != stateTargets || !memory.hasSameContentsAs(state.typedMemory())) {
+            return false
+        }
+
+        // Type constraints aren't checked by the solver, so the state must keep the same type regions
+        val stateTypeRegions = state.pathConstraints.typeConstraints.inputRefToTypeRegion
+        val typeRegions = pathConstraints.typeConstraints.inputRefToTypeRegion
+        if (typeRegions.any { (ref, region) -> stateTypeRegions[ref] !== region }) {
+            return false
+        }
+
+        return state.ctx.solver<Any?>().checkImplication(state.typedPathConstraints(), pathConstraints)
+    }
+
+    /**
+     * Checks if this state has been recorded by the [state] itself or by a state it has been forked from,
+     * i.e. the recorded path node lies on the path of the [state].
+     */
+    private fun ExploredState<Method, Statement>.isExploredByAncestorOf(state: State): Boolean {
+        if (stateId == state.id) {
+            return true
+        }
+
+        var node = state.pathNode
+        while (node.depth > pathNode.depth) {
+            node = node.parent ?: return false
+        }
+        return node === pathNode
+    }
+
+    // All the states of a machine share the type system, so the exact type of types doesn't matter here
+    @Suppress("UNCHECKED_CAST")
+    private fun State.typedPathConstraints(): UPathConstraints<Any?> = pathConstraints as UPathConstraints<Any?>
+
+    @Suppress("UNCHECKED_CAST")
+    private fun State.typedMemory(): UMemory<Any?, Method> = memory as UMemory<Any?, Method>
+
+    private data class Location<Method, Statement>(
+        val statement: Statement,
+        val callStack: List<UCallStackFrame<Method, Statement>>,
+    )
+
+    /**
+     * @property stateId the id of the state which has been explored.
+     * @property pathNode the path node of the explored state at the moment it has been recorded.
+     */
+    private class ExploredState<Method, Statement>(
+        val stateId: StateId,
+        val pathNode: PathNode<Statement>,
+        val pathConstraints: UPathConstraints<Any?>,
+        val memory: UMemory<Any?, Method>,
+        val targets: List<Any?>,
+    )
+
+    companion object {
+        const val DEFAULT_MAX_STATES_PER_LOCATION = 16
+    }
+}
@@ -68,12 +68,63 @@ import java.util.concurrent.ConcurrentHashMap
  * Translates custom [UExpr] to a [KExpr]. Region readings are translated via [URegionTranslator]s.
  * Base version cache everything, but doesn't track translated expressions like register readings, mock symbols, etc.
  *
+ * Translations of top-level expressions are kept in an LRU cache of [cacheSize] entries. The cache of translated
+ * subexpressions is generational: it is dropped as a whole after every [cacheSize] new top-level translations
+ * and when the [UContext.currentCacheEpoch] changes. Region decoders and consts of is-expressions live until
+ * the epoch changes, since models decoded in the current epoch refer to them.
+ *
+ * Not thread-safe, every thread translates with the translator of its own solver.
+ *
  * To show semantics of the translator, we use [KExpr] as return values, though [UExpr] is a typealias for it.
  */
 open class UExprTranslator<Type, USizeSort : USort>(
     override val ctx: UContext<USizeSort>,
+    private val cacheSize: Int = DEFAULT_CACHE_SIZE,
 ) : UExprTransformer<Type, USizeSort>(ctx) {
-    open fun <Sort : USort> translate(expr: UExpr<Sort>): KExpr<Sort> = apply(expr)
+    private val translationCache = UBoundedCache<UExpr<*>, KExpr<*>>(cacheSize)
+    private var cacheEpoch = ctx.currentCacheEpoch
+    private var translationsInGeneration = 0
+    private var translationDepth = 0
+
+    open fun <Sort : USort> translate(expr: UExpr<Sort>): KExpr<Sort> {
+        if (translationDepth == 0) {
+            dropCachesIfOutdated()
+        }
+
+        translationCache[expr]?.let { return it.uncheckedCast() }
+
+        translationDepth++
+        val translated = try {
+            apply(expr)
+        } finally {
+            translationDepth--
+        }
+
+        translationCache[expr] = translated
+        translationsInGeneration++
+        return translated
+    }
+
+    fun cacheStatistics(): UCacheStatistics = translationCache.statistics()
+
+    /**
+     * Must be called only when no translation is in progress, since the transformer can't drop its cache otherwise.
+     */
+    private fun dropCachesIfOutdated() {
+        val currentEpoch = ctx.currentCacheEpoch
+        if (currentEpoch != cacheEpoch) {
+            cacheEpoch = currentEpoch
+            translationCache.clear()
+            isExprToConst.clear()
+            _declToIsExpr.clear()
+            regionIdToDecoder.clear()
+        } else if (translationsInGeneration < cacheSize) {
+            return
+        }
+
+        translationsInGeneration = 0
+        resetCache()
+    }
 
     override fun <Sort : USort> transform(expr: URegisterReading<Sort>): KExpr<Sort> {
         val registerConst = expr.sort.mkConst("r${expr.idx}_${expr.sort}")
@@ -103,24 +154,35 @@ open class UExprTranslator<Type, USizeSort : USort>(
     private val _declToIsExpr = mutableMapOf<KDecl<UBoolSort>, UIsExpr<Type>>()
     val declToIsExpr: Map<KDecl<UBoolSort>, UIsExpr<Type>> get() = _declToIsExpr
 
+    /**
+     * Consts of the translated is-expressions. Unlike the translation caches, it is dropped only when the epoch
+     * changes, so an is-expression is translated to the same const after the caches are reset.
+     */
+    private val isExprToConst = mutableMapOf<UIsExpr<Type>, KExpr<KBoolSort>>()
+
+    // Never reset, so the consts of different epochs don't clash, e.g. in the query cache
+    private var isExprConstsCount = 0
+
     override fun transform(expr: UIsSubtypeExpr<Type>): KExpr<KBoolSort> {
         require(expr.ref is USymbolicHeapRef) { "Unexpected ref: ${expr.ref}" }
 
-        val const = expr.sort.mkConst("isSubtype#${_declToIsExpr.size}")
-        // we need to track declarations to pass them to the type solver in the DPLL(T) procedure
-        _declToIsExpr[const.decl] = expr
-        return const
+        return translateIsExpr(expr, "isSubtype")
     }
 
     override fun transform(expr: UIsSupertypeExpr<Type>): KExpr<KBoolSort> {
         require(expr.ref is USymbolicHeapRef) { "Unexpected ref: ${expr.ref}" }
 
-        val const = expr.sort.mkConst("isSupertype#${_declToIsExpr.size}")
-        // we need to track declarations to pass them to the type solver in the DPLL(T) procedure
-        _declToIsExpr[const.decl] = expr
-        return const
+        return translateIsExpr(expr, "isSupertype")
     }
 
+    private fun translateIsExpr(expr: UIsExpr<Type>, prefix: String): KExpr<KBoolSort> =
+        isExprToConst.getOrPut(expr) {
+            val const = expr.sort.mkConst("$prefix#${isExprConstsCount++}")
+            // we need to track declarations to pass them to the type solver in the DPLL(T) procedure
+            _declToIsExpr[const.decl] = expr
+            const
+        }
+
     override fun transform(expr: UInputArrayLengthReading<Type, USizeSort>): KExpr<USizeSort> =
         transformExprAfterTransformed(expr, expr.address) { address ->
             val translator = arrayLengthRegionDecoder(expr.collection.collectionId)
@@ -315,4 +377,8 @@ open class UExprTranslator<Type, USizeSort : USort>(
     ): D = regionIdToDecoder.getOrPut(regionId) {
         buildDecoder()
     }.uncheckedCast()
+
+    companion object {
+        const val DEFAULT_CACHE_SIZE = 65536
+    }
 }
@@ -1,7 +1,16 @@
 package org.usvm.solver
 
+import io.ksmt.decl.KDecl
+import io.ksmt.expr.KExpr
+import io.ksmt.expr.KUninterpretedSortValue
+import io.ksmt.expr.rewrite.KExprUninterpretedDeclCollector
+import io.ksmt.solver.KModel
 import io.ksmt.solver.KSolver
 import io.ksmt.solver.KSolverStatus
+import io.ksmt.solver.model.KFuncInterp
+import io.ksmt.solver.model.KModelImpl
+import io.ksmt.sort.KBoolSort
+import io.ksmt.sort.KUninterpretedSort
 import io.ksmt.utils.asExpr
 import org.usvm.UBoolExpr
 import org.usvm.UConcreteHeapRef
@@ -27,35 +36,268 @@ abstract class USolver<in Query, out Model> {
     abstract fun check(query: Query): USolverResult<Model>
 }
 
+/**
+ * Checks path constraints with SMT solvers leased from the [solverPool] for each query.
+ * The [translator] and [decoder] are not thread-safe, so an instance of [USolverBase] must be used by
+ * a single thread, while the [solverPool] may be shared between several instances.
+ *
+ * @param incremental if `true`, path constraints are left asserted in the solver after a query,
+ * so the next query asserts only the constraints which differ from the previous one.
+ * @param queryCache if not `null`, queries without soft constraints are answered from the cache when possible.
+ * @param constraintsSlicer if not `null` along with the [queryCache], independent slices of queries are solved
+ * separately and cached on their own, so a new branch condition requires solving only the slice it depends on.
+ * @param softConstraintsCores if not `null`, unsatisfiable cores of soft constraints are reused by later queries.
+ * @param ownsSolverPool if `true`, the [solverPool] is closed along with this solver. Pools shared between
+ * several solvers are closed by their creators.
+ * @see UAssertionsStack
+ */
 open class USolverBase<Type>(
     protected val ctx: UContext<*>,
-    protected val smtSolver: KSolver<*>,
+    protected val solverPool: USolverPool,
     protected val typeSolver: UTypeSolver<Type>,
     protected val translator: UExprTranslator<Type, *>,
     protected val decoder: UModelDecoder<UModelBase<Type>>,
     // TODO this timeout must not exceed time budget for the MUT
-    private val timeout: Duration
+    private val timeout: Duration,
+    private val incremental: Boolean = false,
+    private val queryCache: UQueryCache? = null,
+    private val constraintsSlicer: UConstraintsSlicer? = null,
+    private val softConstraintsCores: USoftConstraintsCores? = null,
+    private val ownsSolverPool: Boolean = true,
 ) : USolver<UPathConstraints<Type>, UModelBase<Type>>(), AutoCloseable {
 
+    constructor(
+        ctx: UContext<*>,
+        smtSolver: KSolver<*>,
+        typeSolver: UTypeSolver<Type>,
+        translator: UExprTranslator<Type, *>,
+        decoder: UModelDecoder<UModelBase<Type>>,
+        timeout: Duration,
+    ) : this(ctx, USolverPool.single(smtSolver), typeSolver, translator, decoder, timeout)
+
     override fun check(query: UPathConstraints<Type>): USolverResult<UModelBase<Type>> =
         internalCheck(query, softConstraints = emptyList())
 
+    /**
+     * Checks the [query] like [check], but the found model shares nothing with this solver, so it may be used by
+     * another thread. The model is decoded from a copy of the SMT model by a translator and a decoder of its own.
+     */
+    fun checkDetached(query: UPathConstraints<Type>): USolverResult<UModelBase<Type>> {
+        val (detachedTranslator, detachedDecoder) = ctx.buildTranslatorAndDecoder<Type>()
+        // Region decoders are created by the translation, so the query is translated once more
+        val detachedAssertions = query.constraints(detachedTranslator).toList()
+        val decoder = object : UModelDecoder<UModelBase<Type>> {
+            override fun decode(model: KModel, assertions: List<KExpr<KBoolSort>>): UModelBase<Type> =
+                detachedDecoder.decode(model.copy(), detachedAssertions)
+        }
+        return internalCheck(query, softConstraints = emptyList(), decoder)
+    }
+
     fun checkWithSoftConstraints(
         pc: UPathConstraints<Type>,
         softConstraints: Iterable<UBoolExpr>
     ): USolverResult<UModelBase<Type>> = internalCheck(pc, softConstraints)
 
+    /**
+     * Returns `true` if the [premise] is proven to imply the [conclusion]. Type constraints are not taken into account.
+     *
+     * The query negates the constraints of the [conclusion] missing in the [premise], so it is answered from
+     * the query cache when possible, just like path constraints.
+     */
+    fun checkImplication(premise: UPathConstraints<Type>, conclusion: UPathConstraints<Type>): Boolean {
+        if (premise.isFalse) {
+            return true
+        }
+        if (conclusion.isFalse) {
+            return false
+        }
+
+        val premiseAssertions = premise.constraints(translator).toHashSet()
+        val missingAssertions = conclusion.constraints(translator).filterNot { it in premiseAssertions }.toList()
+        if (missingAssertions.isEmpty()) {
+            return true
+        }
+
+        val query = premiseAssertions + ctx.mkNot(ctx.mkAnd(missingAssertions))
+        queryCache?.lookup(query)?.let { return it is UUnsatResult }
+        queryCache?.onMiss()
+
+        return solverPool.withSolver { smtSolver ->
+            solverPool.assertionsStack(smtSolver).clear(smtSolver)
+            smtSolver.withAssertionsScope {
+                smtSolver.assert(query.toList())
+                when (smtSolver.check(timeout)) {
+                    KSolverStatus.SAT -> false.also { queryCache?.addSat(query, smtSolver.model().detach()) }
+                    KSolverStatus.UNSAT -> true.also { queryCache?.addUnsat(query) }
+                    KSolverStatus.UNKNOWN -> false
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns hit and miss counters of the query cache or `null` if it is disabled.
+     */
+    fun queryCacheStatistics(): UQueryCacheStatistics? = queryCache?.statistics()
+
+    /**
+     * Returns hit and miss counters of the soft constraints cores cache or `null` if it is disabled.
+     */
+    fun softConstraintsCoresStatistics(): UCacheStatistics? = softConstraintsCores?.statistics()
+
     private fun internalCheck(
         pc: UPathConstraints<Type>,
         softConstraints: Iterable<UBoolExpr>,
+        decoder: UModelDecoder<UModelBase<Type>> = this.decoder,
     ): USolverResult<UModelBase<Type>> {
         if (pc.isFalse) {
             return UUnsatResult()
         }
 
+        val assertions = pc.constraints(translator).toList()
+
+        // Soft constraints affect the model, so such queries can't be answered with an arbitrary cached one
+        val cache = queryCache?.takeIf { softConstraints.none() }
+        if (cache != null) {
+            val cachedResult = if (constraintsSlicer != null) {
+                checkSliced(cache, constraintsSlicer, pc, assertions, decoder)
+            } else {
+                checkCached(cache, pc, assertions, decoder)
+            }
+            cachedResult?.let { return it }
+        }
+
+        return solverPool.withSolver { smtSolver ->
+            internalCheck(smtSolver, pc, assertions, softConstraints, cache, decoder)
+        }
+    }
+
+    private fun checkCached(
+        cache: UQueryCache,
+        pc: UPathConstraints<Type>,
+        assertions: List<UBoolExpr>,
+        decoder: UModelDecoder<UModelBase<Type>>,
+    ): USolverResult<UModelBase<Type>>? {
+        val kModel = when (val cachedResult = cache.lookup(assertions.toHashSet())) {
+            is USatResult -> cachedResult.model
+            is UUnsatResult -> return UUnsatResult()
+            is UUnknownResult, null -> cache.recentModels()
+                .firstOrNull { model -> assertions.all { model.eval(it, isComplete = true).isTrue } }
+                ?.also { cache.onModelReused() }
+        }
+
+        if (kModel == null) {
+            cache.onMiss()
+            return null
+        }
+
+        // The cached model satisfies the assertions, but not necessarily the type constraints.
+        // Type conflicts require new lemmas, so they are resolved by the solver
+        return decodeAndCheckTypes(kModel, assertions, pc, decoder, isExprDeclarations(assertions)) as? USatResult
+    }
+
+    /**
+     * Returns the declarations of the [assertions]. A cached model may have been found for another query,
+     * so it may lack some declarations of the is-expressions of the [assertions].
+     */
+    private fun isExprDeclarations(assertions: List<UBoolExpr>): Set<KDecl<*>> {
+        if (translator.declToIsExpr.isEmpty()) {
+            return emptySet()
+        }
+        return assertions.flatMapTo(hashSetOf()) { KExprUninterpretedDeclCollector.collectUninterpretedDeclarations(it) }
+    }
+
+    private fun checkSliced(
+        cache: UQueryCache,
+        slicer: UConstraintsSlicer,
+        pc: UPathConstraints<Type>,
+        assertions: List<UBoolExpr>,
+        decoder: UModelDecoder<UModelBase<Type>>,
+    ): USolverResult<UModelBase<Type>>? {
+        val slices = slicer.slice(assertions)
+        if (slices.size <= 1) {
+            return checkCached(cache, pc, assertions, decoder)
+        }
+
+        val slicesModels = mutableListOf<Pair<UConstraintsSlice, KModel>>()
+        for (slice in slices) {
+            when (val sliceResult = checkSlice(cache, slice)) {
+                is USatResult -> slicesModels += slice to sliceResult.model
+                // The whole query contains the unsatisfiable slice
+                is UUnsatResult -> return UUnsatResult()
+                is UUnknownResult -> return null
+            }
+        }
+
+        // As with cached models, type conflicts are resolved by the solver with the whole query
+        val declarations = slices.flatMapTo(hashSetOf()) { it.declarations }
+        return decodeAndCheckTypes(mergeModels(slicesModels), assertions, pc, decoder, declarations) as? USatResult
+    }
+
+    private fun checkSlice(cache: UQueryCache, slice: UConstraintsSlice): USolverResult<KModel> {
+        val query = slice.assertions.toHashSet()
+        cache.lookup(query)?.let { return it }
+
+        cache.recentModels()
+            .firstOrNull { model -> slice.assertions.all { model.eval(it, isComplete = true).isTrue } }
+            ?.let {
+                cache.onModelReused()
+                return USatResult(it)
+            }
+
+        cache.onMiss()
+        return solverPool.withSolver { smtSolver ->
+            // Slices are much smaller than whole queries, so they are always asserted from scratch
+            solverPool.assertionsStack(smtSolver).clear(smtSolver)
+            smtSolver.withAssertionsScope {
+                smtSolver.assert(slice.assertions)
+                when (smtSolver.check(timeout)) {
+                    KSolverStatus.SAT -> USatResult(smtSolver.model().detach().also { cache.addSat(query, it) })
+                    KSolverStatus.UNSAT -> UUnsatResult<KModel>().also { cache.addUnsat(query) }
+                    KSolverStatus.UNKNOWN -> UUnknownResult()
+                }
+            }
+        }
+    }
+
+    /**
+     * Combines models of independent slices. Slices share no declarations, so every declaration is taken
+     * from the model of its slice, while universes of uninterpreted sorts are united.
+     */
+    private fun mergeModels(slicesModels: List<Pair<UConstraintsSlice, KModel>>): KModel {
+        val interpretations = hashMapOf<KDecl<*>, KFuncInterp<*>>()
+        val universes = hashMapOf<KUninterpretedSort, MutableSet<KUninterpretedSortValue>>()
+        for ((slice, model) in slicesModels) {
+            for (decl in slice.declarations) {
+                model.interpretation(decl)?.let { interpretations[decl] = it }
+            }
+            for (sort in model.uninterpretedSorts) {
+                universes.getOrPut(sort) { hashSetOf() } += model.uninterpretedSortUniverse(sort).orEmpty()
+            }
+        }
+        return KModelImpl(ctx, interpretations, universes)
+    }
+
+    private fun internalCheck(
+        smtSolver: KSolver<*>,
+        pc: UPathConstraints<Type>,
+        assertions: List<UBoolExpr>,
+        softConstraints: Iterable<UBoolExpr>,
+        cache: UQueryCache?,
+        decoder: UModelDecoder<UModelBase<Type>>,
+    ): USolverResult<UModelBase<Type>> {
+        val assertionsStack = solverPool.assertionsStack(smtSolver)
+        if (incremental) {
+            assertionsStack.assertIncrementally(smtSolver, assertions)
+        } else {
+            assertionsStack.clear(smtSolver)
+        }
+
+        // Type lemmas and soft constraints are specific for the query, so they are always popped
         smtSolver.withAssertionsScope {
-            val assertions = pc.constraints(translator).toList()
-            smtSolver.assert(assertions)
+            if (!incremental) {
+                smtSolver.assert(assertions)
+            }
 
             val translatedSoftConstraints = softConstraints
                 .asSequence()
@@ -63,6 +305,12 @@ open class USolverBase<Type>(
                 .filterNot(UBoolExpr::isFalse)
                 .toMutableList()
 
+            val assertionsSet by lazy(LazyThreadSafetyMode.NONE) { assertions.toHashSet() }
+            if (softConstraintsCores != null && translatedSoftConstraints.isNotEmpty()) {
+                val conflicting = softConstraintsCores.findConflicting(assertionsSet, translatedSoftConstraints)
+                translatedSoftConstraints.removeAll { it in conflicting }
+            }
+
             // DPLL(T)-like solve procedure
             var iter = 0
             @Suppress("KotlinConstantConditions")
@@ -70,51 +318,34 @@ open class USolverBase<Type>(
                 iter++
 
                 // first, get a model from the SMT solver
-                val kModel = when (internalCheckWithSoftConstraints(translatedSoftConstraints)) {
+                // Cores found after type lemmas are asserted may depend on them, so only the first ones are kept
+                val onUnsatCore = softConstraintsCores
+                    ?.takeIf { iter == 1 }
+                    ?.let { cores -> { core: Set<UBoolExpr> -> cores.add(assertionsSet, core) } }
+                val status = internalCheckWithSoftConstraints(smtSolver, translatedSoftConstraints, onUnsatCore)
+                val kModel = when (status) {
                     KSolverStatus.SAT -> smtSolver.model().detach()
-                    KSolverStatus.UNSAT -> return UUnsatResult()
-                    KSolverStatus.UNKNOWN -> return UUnknownResult()
-                }
-
-                // second, decode it unto uModel
-                val uModel = decoder.decode(kModel, assertions)
-
-                // find interpretations of type constraints
-
-                val isExprToInterpretation = kModel.declarations.mapNotNull { decl ->
-                    translator.declToIsExpr[decl]?.let { isSubtypeExpr ->
-                        val expr = decl.apply(emptyList())
-                        isSubtypeExpr to kModel.eval(expr, isComplete = true).asExpr(ctx.boolSort).isTrue
+                    KSolverStatus.UNSAT -> {
+                        // Type lemmas are not implied by the assertions, so only the first check is cached
+                        if (iter == 1) {
+                            cache?.addUnsat(assertionsSet)
+                        }
+                        return UUnsatResult()
                     }
+                    KSolverStatus.UNKNOWN -> return UUnknownResult()
                 }
 
-                // third, build a type solver query
-                val typeSolverQuery = TypeSolverQuery(
-                    inputToConcrete = { uModel.eval(it) as UConcreteHeapRef },
-                    inputRefToTypeRegion = pc.typeConstraints.inputRefToTypeRegion,
-                    isExprToInterpretation = isExprToInterpretation,
-                )
-
-                // fourth, check it satisfies typeConstraints
-                when (val typeResult = typeSolver.check(typeSolverQuery)) {
-                    is USatResult -> return USatResult(
-                        UModelBase(
-                            ctx,
-                            uModel.stack,
-                            typeResult.model,
-                            uModel.mocker,
-                            uModel.regions,
-                            uModel.nullRef
-                        )
-                    )
+                // Any model of the assertions and type lemmas is a model of the assertions
+                cache?.addSat(assertionsSet, kModel)
 
+                // second, decode it and check it satisfies type constraints
+                when (val result = decodeAndCheckTypes(kModel, assertions, pc, decoder)) {
                     // in case of failure, assert reference disequality expressions
-                    is UTypeUnsatResult<Type> -> typeResult.conflictLemmas
+                    is UTypeConflictResult -> result.conflictLemmas
                         .map(translator::translate)
                         .let { smtSolver.assert(it) }
 
-                    is UUnknownResult -> return UUnknownResult()
-                    is UUnsatResult -> return UUnsatResult()
+                    else -> return result
                 }
             } while (iter < ITERATIONS_THRESHOLD || ITERATIONS_THRESHOLD == INFINITE_ITERATIONS)
 
@@ -122,8 +353,69 @@ open class USolverBase<Type>(
         }
     }
 
+    /**
+     * Decodes the [kModel] and finds interpretations of type constraints of the [pc].
+     * If the types can't be interpreted in the [kModel], returns [UTypeConflictResult] with lemmas for the SMT solver.
+     *
+     * @param decoder the decoder of the [kModel], usually the one of this solver.
+     * @param declarations the declarations of the [assertions] to find is-expressions among.
+     */
+    private fun decodeAndCheckTypes(
+        kModel: KModel,
+        assertions: List<UBoolExpr>,
+        pc: UPathConstraints<Type>,
+        decoder: UModelDecoder<UModelBase<Type>>,
+        declarations: Set<KDecl<*>> = kModel.declarations,
+    ): USolverResult<UModelBase<Type>> {
+        val uModel = decoder.decode(kModel, assertions)
+
+        // find interpretations of type constraints
+
+        val isExprToInterpretation = declarations.mapNotNull { decl ->
+            translator.declToIsExpr[decl]?.let { isSubtypeExpr ->
+                val expr = decl.apply(emptyList())
+                isSubtypeExpr to kModel.eval(expr, isComplete = true).asExpr(ctx.boolSort).isTrue
+            }
+        }
+
+        // build a type solver query
+        val typeSolverQuery = TypeSolverQuery(
+            inputToConcrete = { uModel.eval(it) as UConcreteHeapRef },
+            inputRefToTypeRegion = pc.typeConstraints.inputRefToTypeRegion,
+            isExprToInterpretation = isExprToInterpretation,
+        )
+
+        // check it satisfies typeConstraints
+        return when (val typeResult = typeSolver.check(typeSolverQuery)) {
+            is USatResult -> USatResult(
+                UModelBase(
+                    ctx,
+                    uModel.stack,
+                    typeResult.model,
+                    uModel.mocker,
+                    uModel.regions,
+                    uModel.nullRef
+                )
+            )
+
+            is UTypeUnsatResult<Type> -> UTypeConflictResult(typeResult.conflictLemmas)
+            is UUnknownResult -> UUnknownResult()
+            is UUnsatResult -> UUnsatResult()
+        }
+    }
+
+    private class UTypeConflictResult<Model>(
+        val conflictLemmas: List<UBoolExpr>,
+    ) : UUnsatResult<Model>()
+
+    /**
+     * Checks the assertions of the [smtSolver] along with as many [softConstraints] as possible. Unsatisfiable
+     * cores are removed from the [softConstraints] as a whole and passed to the [onUnsatCore].
+     */
     private fun internalCheckWithSoftConstraints(
+        smtSolver: KSolver<*>,
         softConstraints: MutableList<UBoolExpr>,
+        onUnsatCore: ((Set<UBoolExpr>) -> Unit)?,
     ): KSolverStatus {
         var status: KSolverStatus
         if (softConstraints.isNotEmpty()) {
@@ -132,6 +424,7 @@ open class USolverBase<Type>(
             while (status == KSolverStatus.UNSAT) {
                 val unsatCore = smtSolver.unsatCore().toHashSet()
                 if (unsatCore.isEmpty()) break
+                onUnsatCore?.invoke(unsatCore)
                 softConstraints.removeAll { it in unsatCore }
                 status = smtSolver.checkWithAssumptions(softConstraints, timeout)
             }
@@ -141,6 +434,15 @@ open class USolverBase<Type>(
         return status
     }
 
+    /**
+     * Copies the model, so its evaluation caches are not shared, e.g. with the models of the query cache.
+     */
+    private fun KModel.copy(): KModel = KModelImpl(
+        ctx,
+        declarations.associateWith { decl -> checkNotNull(interpretation(decl)) },
+        uninterpretedSorts.associateWith { sort -> uninterpretedSortUniverse(sort).orEmpty() },
+    )
+
     private inline fun <T> KSolver<*>.withAssertionsScope(block: KSolver<*>.() -> T): T = try {
         push()
         block()
@@ -152,7 +454,9 @@ open class USolverBase<Type>(
         (check(UPathConstraints(ctx)) as USatResult<UModelBase<Type>>).model
 
     override fun close() {
-        smtSolver.close()
+        if (ownsSolverPool) {
+            solverPool.close()
+        }
     }
 
     companion object {
@@ -22,11 +22,24 @@ class UTypeUnsatResult<Type>(
     val conflictLemmas: List<UBoolExpr>,
 ) : UUnsatResult<UTypeModel<Type>>()
 
+/**
+ * @param clusterCacheSize the number of checked clusters of references kept between queries, see [checkCluster].
+ */
 class UTypeSolver<Type>(
     private val typeSystem: UTypeSystem<Type>,
+    clusterCacheSize: Int = DEFAULT_CLUSTER_CACHE_SIZE,
 ) : USolver<TypeSolverQuery<Type>, UTypeModel<Type>>() {
     private val topTypeRegion by lazy { UTypeRegion(typeSystem, typeSystem.topTypeStream()) }
 
+    /**
+     * Cloned states share their type regions, so queries of sibling states and successive queries of
+     * the same state check the same clusters again and again. Regions are compared by identity here, since
+     * equal regions are almost always the same objects, while comparing their contents isn't cheap.
+     */
+    private val clusterCache = UBoundedCache<List<ClusterEntry<Type>>, CheckedCluster<Type>>(clusterCacheSize)
+
+    fun clusterCacheStatistics(): UCacheStatistics = clusterCache.statistics()
+
     /**
      * Checks the [query].
      *
@@ -97,7 +110,7 @@ class UTypeSolver<Type>(
 
         // then for each group check conflicting types
         val concreteToRegionWithCluster = concreteRefToCluster.mapValues { (_, cluster) ->
-            checkCluster(cluster, symbolicRefToIsExprs, conflictLemmas)
+            checkClusterCached(cluster, symbolicRefToIsExprs, conflictLemmas)
         }
 
         // if there were some conflicts, return constraints on reference equalities
@@ -124,6 +137,24 @@ class UTypeSolver<Type>(
         return USatResult(typeModel)
     }
 
+    private fun checkClusterCached(
+        cluster: List<Map.Entry<UHeapRef, UTypeRegion<Type>>>,
+        symbolicRefToIsExpr: Map<UHeapRef, List<Pair<UIsExpr<Type>, Boolean>>>,
+        conflictLemmas: MutableList<UBoolExpr>,
+    ): Pair<UTypeRegion<Type>, List<Map.Entry<UHeapRef, UTypeRegion<Type>>>> {
+        val key = cluster.map { (heapRef, region) ->
+            ClusterEntry(heapRef, region, symbolicRefToIsExpr[heapRef]?.toSet().orEmpty())
+        }
+        val checkedCluster = clusterCache[key] ?: run {
+            val clusterConflictLemmas = mutableListOf<UBoolExpr>()
+            val (region, _) = checkCluster(cluster, symbolicRefToIsExpr, clusterConflictLemmas)
+            CheckedCluster(region, clusterConflictLemmas).also { clusterCache[key] = it }
+        }
+
+        conflictLemmas += checkedCluster.conflictLemmas
+        return checkedCluster.region to cluster
+    }
+
     private fun checkCluster(
         cluster: List<Map.Entry<UHeapRef, UTypeRegion<Type>>>,
         symbolicRefToIsExpr: Map<UHeapRef, List<Pair<UIsExpr<Type>, Boolean>>>,
@@ -220,4 +251,28 @@ class UTypeSolver<Type>(
         return inputRefToIsSubtypeExprs
     }
 
+    /**
+     * @property isExprs the interpretations of the type constraints of the [ref], which are checked
+     * together with its [region].
+     */
+    private class ClusterEntry<Type>(
+        val ref: UHeapRef,
+        val region: UTypeRegion<Type>,
+        val isExprs: Set<Pair<UIsExpr<Type>, Boolean>>,
+    ) {
+        override fun equals(other: Any?): Boolean =
+            other is ClusterEntry<*> && ref == other.ref && region === other.region && isExprs == other.isExprs
+
+        override fun hashCode(): Int =
+            (ref.hashCode() * 31 + System.identityHashCode(region)) * 31 + isExprs.hashCode()
+    }
+
+    private class CheckedCluster<Type>(
+        val region: UTypeRegion<Type>,
+        val conflictLemmas: List<UBoolExpr>,
+    )
+
+    companion object {
+        const val DEFAULT_CLUSTER_CACHE_SIZE = 4096
+    }
 }
@@ -0,0 +1,63 @@
+package org.usvm.solver
+
+import io.ksmt.solver.KSolver
+import org.usvm.UBoolExpr
+
+/**
+ * Assertions of a [KSolver] grouped into assertion scopes in the order they were pushed.
+ *
+ * Used for incremental solving. A state forked from another one shares almost all of its constraints with
+ * the parent, so consecutive queries along a fork chain differ only in the latest branch conditions.
+ * A query keeps the longest prefix of scopes it fully contains, pops the others and asserts only
+ * the remaining constraints in a new scope. Thus, going deeper along the fork chain pushes one scope per query,
+ * and switching to a sibling state pops only the scopes of its sibling.
+ *
+ * Not thread-safe, must be used only by the current holder of the solver.
+ */
+class UAssertionsStack {
+    private val scopes = mutableListOf<Set<UBoolExpr>>()
+
+    /**
+     * The number of scopes pushed to the solver.
+     */
+    val depth: Int get() = scopes.size
+
+    /**
+     * Updates assertions of the [solver] to be equal to the [assertions], reusing already asserted scopes.
+     */
+    fun assertIncrementally(solver: KSolver<*>, assertions: List<UBoolExpr>) {
+        val query = assertions.toHashSet()
+
+        val keptAssertions = hashSetOf<UBoolExpr>()
+        var keptScopes = 0
+        while (keptScopes < scopes.size && query.containsAll(scopes[keptScopes])) {
+            keptAssertions += scopes[keptScopes]
+            keptScopes++
+        }
+        popTo(solver, keptScopes)
+
+        val newAssertions = assertions.filterNot { it in keptAssertions }
+        if (newAssertions.isEmpty()) {
+            return
+        }
+
+        // Register the scope before asserting, so the stack stays consistent with the solver even on failure
+        solver.push()
+        scopes += newAssertions.toHashSet()
+        solver.assert(newAssertions)
+    }
+
+    /**
+     * Pops all the scopes pushed to the [solver].
+     */
+    fun clear(solver: KSolver<*>) = popTo(solver, 0)
+
+    private fun popTo(solver: KSolver<*>, depth: Int) {
+        val scopesToPop = scopes.size - depth
+        if (scopesToPop <= 0) {
+            return
+        }
+        solver.pop(scopesToPop.toUInt())
+        scopes.subList(depth, scopes.size).clear()
+    }
+}
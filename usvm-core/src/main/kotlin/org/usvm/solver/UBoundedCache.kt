@@ -0,0 +1,77 @@
+package org.usvm.solver
+
+/**
+ * A cache holding at most [maxSize] entries, which are evicted in LRU order. Counts hits and misses of [get]s.
+ * Not thread-safe.
+ */
+class UBoundedCache<K, V : Any>(
+    private val maxSize: Int,
+) {
+    init {
+        require(maxSize > 0) { "Cache size must be positive" }
+    }
+
+    private var evictions = 0L
+    private var hits = 0L
+    private var misses = 0L
+
+    private val entries = object : LinkedHashMap<K, V>(INITIAL_CAPACITY, LOAD_FACTOR, /* accessOrder = */ true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, V>?): Boolean {
+            if (size <= maxSize) {
+                return false
+            }
+            evictions++
+            return true
+        }
+    }
+
+    val size: Int get() = entries.size
+
+    operator fun get(key: K): V? {
+        val value = entries[key]
+        if (value != null) {
+            hits++
+        } else {
+            misses++
+        }
+        return value
+    }
+
+    /**
+     * Returns the cached value without counting a hit or a miss.
+     */
+    fun peek(key: K): V? = entries[key]
+
+    operator fun set(key: K, value: V) {
+        entries[key] = value
+    }
+
+    /**
+     * Drops all the entries, but keeps the counters.
+     */
+    fun clear() {
+        entries.clear()
+    }
+
+    fun statistics(): UCacheStatistics = UCacheStatistics(entries.size, hits, misses, evictions)
+
+    companion object {
+        private const val INITIAL_CAPACITY = 16
+        private const val LOAD_FACTOR = 0.75f
+    }
+}
+
+/**
+ * @property size the number of cached entries.
+ * @property hits the number of lookups answered by the cache.
+ * @property misses the number of lookups of absent entries.
+ * @property evictions the number of entries dropped because the cache was full.
+ */
+data class UCacheStatistics(
+    val size: Int,
+    val hits: Long,
+    val misses: Long,
+    val evictions: Long,
+) {
+    val hitRate: Double get() = if (hits + misses == 0L) 0.0 else hits.toDouble() / (hits + misses)
+}
@@ -0,0 +1,83 @@
+package org.usvm.solver
+
+import io.ksmt.decl.KDecl
+import io.ksmt.expr.rewrite.KExprUninterpretedDeclCollector
+import org.usvm.UBoolExpr
+import org.usvm.algorithms.DisjointSets
+
+/**
+ * Splits translated path constraints into independent slices, i.e. groups of assertions
+ * which share no uninterpreted declarations (registers, input fields and arrays, mock results, etc.).
+ *
+ * Slices can be solved separately, and their models can be combined into a model of all the assertions.
+ * Usually, a new branch condition depends on a few of the path constraints, so all the slices but one
+ * are already solved for a parent state.
+ *
+ * Declarations of an assertion are collected once, because the same assertions are queried along the whole path.
+ * They are kept in an LRU cache of [cacheSize] entries. Not thread-safe.
+ */
+class UConstraintsSlicer(
+    cacheSize: Int = DEFAULT_CACHE_SIZE,
+) {
+    private val assertionDeclarations = UBoundedCache<UBoolExpr, Set<KDecl<*>>>(cacheSize)
+
+    fun cacheStatistics(): UCacheStatistics = assertionDeclarations.statistics()
+
+    /**
+     * Returns independent slices of the [assertions]. Assertions without uninterpreted declarations
+     * form a separate slice.
+     */
+    fun slice(assertions: List<UBoolExpr>): List<UConstraintsSlice> {
+        val components = DisjointSets<KDecl<*>>()
+        for (assertion in assertions) {
+            val declarations = declarations(assertion)
+            val representative = declarations.firstOrNull() ?: continue
+            declarations.forEach { components.union(representative, it) }
+        }
+
+        val groundAssertions = mutableListOf<UBoolExpr>()
+        val slices = linkedMapOf<KDecl<*>, UConstraintsSliceBuilder>()
+        for (assertion in assertions) {
+            val declarations = declarations(assertion)
+            val representative = declarations.firstOrNull()
+            if (representative == null) {
+                groundAssertions += assertion
+                continue
+            }
+
+            val slice = slices.getOrPut(components.find(representative)) { UConstraintsSliceBuilder() }
+            slice.assertions += assertion
+            slice.declarations += declarations
+        }
+
+        return buildList {
+            if (groundAssertions.isNotEmpty()) {
+                add(UConstraintsSlice(groundAssertions, emptySet()))
+            }
+            slices.values.mapTo(this) { UConstraintsSlice(it.assertions, it.declarations) }
+        }
+    }
+
+    private fun declarations(assertion: UBoolExpr): Set<KDecl<*>> =
+        assertionDeclarations[assertion]
+            ?: KExprUninterpretedDeclCollector.collectUninterpretedDeclarations(assertion)
+                .also { assertionDeclarations[assertion] = it }
+
+    private class UConstraintsSliceBuilder {
+        val assertions = mutableListOf<UBoolExpr>()
+        val declarations = hashSetOf<KDecl<*>>()
+    }
+
+    companion object {
+        const val DEFAULT_CACHE_SIZE = 65536
+    }
+}
+
+/**
+ * @property assertions independent assertions.
+ * @property declarations uninterpreted declarations of the [assertions], which are not used by other slices.
+ */
+class UConstraintsSlice(
+    val assertions: List<UBoolExpr>,
+    val declarations: Set<KDecl<*>>,
+)
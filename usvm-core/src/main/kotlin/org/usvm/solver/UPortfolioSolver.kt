@@ -0,0 +1,260 @@
+package org.usvm.solver
+
+import io.ksmt.expr.KApp
+import io.ksmt.expr.KExpr
+import io.ksmt.solver.KModel
+import io.ksmt.solver.KSolver
+import io.ksmt.solver.KSolverConfiguration
+import io.ksmt.solver.KSolverStatus
+import io.ksmt.sort.KArraySortBase
+import io.ksmt.sort.KBoolSort
+import io.ksmt.sort.KFpRoundingModeSort
+import io.ksmt.sort.KFpSort
+import java.util.Collections
+import java.util.IdentityHashMap
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.time.Duration
+
+/**
+ * A solver which keeps the same assertions in several [backends] and races them on each check.
+ * The first definitive (SAT or UNSAT) answer wins and is returned at once, the other backends are interrupted.
+ * The winner answers the following [model], [unsatCore] and [reasonOfUnknown] requests, while the next requests to
+ * all the backends, e.g. assertions, wait for the interrupted ones to stop.
+ *
+ * Winners are recorded per [UQueryClass] into the [statistics], if any, so the set of backends can be tuned
+ * for a workload. Classes of asserted expressions are cached, because the same path constraints are asserted
+ * again and again by the queries of the same path.
+ *
+ * Not thread-safe, like any other [KSolver]. Each check runs the backends on threads owned by this solver.
+ *
+ * @param backends named solvers over the same context. The solvers are closed together with the portfolio.
+ */
+class UPortfolioSolver(
+    private val backends: Map<String, KSolver<*>>,
+    private val statistics: UPortfolioStatistics? = null,
+) : KSolver<KSolverConfiguration> {
+    init {
+        require(backends.isNotEmpty()) { "Portfolio must contain at least one solver" }
+    }
+
+    private val executor: ExecutorService = Executors.newFixedThreadPool(backends.size) { task ->
+        Thread(task, "usvm-portfolio-solver").apply { isDaemon = true }
+    }
+
+    private val levelQueryClasses = mutableListOf(UQueryClass.BIT_VECTORS)
+    private val queryClasses = UBoundedCache<KExpr<KBoolSort>, UQueryClass>(QUERY_CLASSES_CACHE_SIZE)
+    private var winner: KSolver<*>? = null
+    private var unknownReasons: List<String> = emptyList()
+
+    /**
+     * Set when the current race is over, so the backends which haven't started checking yet don't start it.
+     */
+    @Volatile
+    private var raceCancelled = AtomicBoolean()
+
+    /**
+     * Checks of the interrupted backends of the last race which may be still running.
+     */
+    private val losersChecks = hashMapOf<String, Future<*>>()
+
+    override fun configure(configurator: KSolverConfiguration.() -> Unit) {
+        awaitLosers()
+        // Every backend configuration is a KSolverConfiguration, so the configurator is applicable to all of them
+        @Suppress("UNCHECKED_CAST")
+        backends.values.forEach { (it as KSolver<KSolverConfiguration>).configure(configurator) }
+    }
+
+    override fun assert(expr: KExpr<KBoolSort>) {
+        awaitLosers()
+        backends.values.forEach { it.assert(expr) }
+        onAsserted(expr)
+    }
+
+    override fun assertAndTrack(expr: KExpr<KBoolSort>) {
+        awaitLosers()
+        backends.values.forEach { it.assertAndTrack(expr) }
+        onAsserted(expr)
+    }
+
+    override fun push() {
+        awaitLosers()
+        backends.values.forEach(KSolver<*>::push)
+        levelQueryClasses += levelQueryClasses.last()
+    }
+
+    override fun pop(n: UInt) {
+        awaitLosers()
+        backends.values.forEach { it.pop(n) }
+        repeat(n.toInt()) { levelQueryClasses.removeAt(levelQueryClasses.lastIndex) }
+    }
+
+    override fun check(timeout: Duration): KSolverStatus =
+        race(levelQueryClasses.last()) { it.check(timeout) }
+
+    override fun checkWithAssumptions(assumptions: List<KExpr<KBoolSort>>, timeout: Duration): KSolverStatus {
+        val queryClass = assumptions.fold(levelQueryClasses.last()) { queryClass, assumption ->
+            maxOf(queryClass, queryClassOf(assumption))
+        }
+        return race(queryClass) { it.checkWithAssumptions(assumptions, timeout) }
+    }
+
+    override fun model(): KModel = lastWinner().model()
+
+    override fun unsatCore(): List<KExpr<KBoolSort>> = lastWinner().unsatCore()
+
+    override fun reasonOfUnknown(): String = winner?.reasonOfUnknown() ?: unknownReasons.joinToString("; ")
+
+    override fun interrupt() {
+        raceCancelled.set(true)
+        backends.values.forEach(KSolver<*>::interrupt)
+    }
+
+    override fun close() {
+        awaitLosers()
+        executor.shutdownNow()
+        backends.values.forEach(KSolver<*>::close)
+    }
+
+    private fun onAsserted(expr: KExpr<KBoolSort>) {
+        val lastLevel = levelQueryClasses.lastIndex
+        levelQueryClasses[lastLevel] = maxOf(levelQueryClasses[lastLevel], queryClassOf(expr))
+    }
+
+    private fun queryClassOf(expr: KExpr<KBoolSort>): UQueryClass =
+        queryClasses.peek(expr) ?: UQueryClass.of(expr).also { queryClasses[expr] = it }
+
+    private fun lastWinner(): KSolver<*> = checkNotNull(winner) { "No solver has answered the last check" }
+
+    private fun race(queryClass: UQueryClass, check: (KSolver<*>) -> KSolverStatus): KSolverStatus {
+        awaitLosers()
+        winner = null
+        unknownReasons = emptyList()
+
+        val cancelled = AtomicBoolean()
+        raceCancelled = cancelled
+        val completion = ExecutorCompletionService<Pair<String, Result<KSolverStatus>>>(executor)
+        val checks = backends.mapValues { (name, solver) ->
+            completion.submit {
+                // An interrupt coming before the check is started is lost, so the check is not started at all
+                name to if (cancelled.get()) Result.success(KSolverStatus.UNKNOWN) else runCatching { check(solver) }
+            }
+        }
+
+        val running = backends.keys.toHashSet()
+        val reasons = mutableListOf<String>()
+        while (running.isNotEmpty()) {
+            val (name, result) = completion.take().get()
+            running -= name
+
+            val backendStatus = result.getOrNull()
+            if (backendStatus == null || backendStatus == KSolverStatus.UNKNOWN) {
+                reasons += "$name: ${result.exceptionOrNull() ?: backends.getValue(name).reasonOfUnknown()}"
+                continue
+            }
+
+            // The winner is returned at once, the losers are awaited by the next request to all the backends
+            cancelled.set(true)
+            running.forEach { loser ->
+                backends.getValue(loser).interrupt()
+                losersChecks[loser] = checks.getValue(loser)
+            }
+            winner = backends.getValue(name)
+            statistics?.onWin(queryClass, name)
+            return backendStatus
+        }
+
+        unknownReasons = reasons
+        return KSolverStatus.UNKNOWN
+    }
+
+    /**
+     * Waits for the checks of the losers of the last race. The losers are interrupted again and again,
+     * because an interrupt coming right before a backend starts checking is lost.
+     */
+    private fun awaitLosers() {
+        for ((name, check) in losersChecks) {
+            while (true) {
+                try {
+                    check.get(LOSER_INTERRUPT_PERIOD_MS, TimeUnit.MILLISECONDS)
+                    break
+                } catch (e: TimeoutException) {
+                    backends.getValue(name).interrupt()
+                }
+            }
+        }
+        losersChecks.clear()
+    }
+
+    private companion object {
+        const val QUERY_CLASSES_CACHE_SIZE = 4096
+        const val LOSER_INTERRUPT_PERIOD_MS = 10L
+    }
+}
+
+/**
+ * A coarse class of SMT queries by the theories they use, ordered by how hard they usually are.
+ */
+enum class UQueryClass {
+    BIT_VECTORS,
+    ARRAYS,
+    FLOATING_POINT;
+
+    companion object {
+        /**
+         * Returns the hardest class of the subexpressions of the [expr].
+         */
+        fun of(expr: KExpr<*>): UQueryClass {
+            var queryClass = BIT_VECTORS
+            val visited = Collections.newSetFromMap(IdentityHashMap<KExpr<*>, Boolean>())
+            val stack = mutableListOf(expr)
+            while (stack.isNotEmpty()) {
+                val current = stack.removeAt(stack.lastIndex)
+                if (!visited.add(current)) continue
+
+                when (current.sort) {
+                    is KFpSort, is KFpRoundingModeSort -> return FLOATING_POINT
+                    is KArraySortBase<*> -> queryClass = ARRAYS
+                    else -> {}
+                }
+                if (current is KApp<*, *>) {
+                    stack += current.args
+                }
+            }
+            return queryClass
+        }
+    }
+}
+
+/**
+ * Counts which backends of [UPortfolioSolver]s are the first to answer queries of each [UQueryClass].
+ * Thread-safe, so it can be shared by all the solvers of a [USolverPool].
+ */
+class UPortfolioStatistics {
+    private val wins = ConcurrentHashMap<UQueryClass, ConcurrentHashMap<String, AtomicLong>>()
+
+    fun onWin(queryClass: UQueryClass, backend: String) {
+        wins.computeIfAbsent(queryClass) { ConcurrentHashMap() }
+            .computeIfAbsent(backend) { AtomicLong() }
+            .incrementAndGet()
+    }
+
+    /**
+     * Returns a snapshot of the number of won queries per backend for each query class.
+     */
+    fun wins(): Map<UQueryClass, Map<String, Long>> =
+        wins.mapValues { (_, backendWins) -> backendWins.mapValues { it.value.get() } }
+
+    /**
+     * Returns the backend which has won the most queries of the [queryClass] so far.
+     */
+    fun bestBackend(queryClass: UQueryClass): String? =
+        wins[queryClass]?.maxByOrNull { it.value.get() }?.key
+}
@@ -0,0 +1,210 @@
+package org.usvm.solver
+
+import io.ksmt.solver.KModel
+import org.usvm.UBoolExpr
+
+/**
+ * A bounded cache of SMT solver results in the spirit of KLEE's counterexample cache.
+ *
+ * A query is a set of translated path constraints. The cache answers a query without the solver when:
+ * - the same query has already been solved;
+ * - the query is a subset of an already satisfiable query, so its model satisfies the query too;
+ * - the query is a superset of an already unsatisfiable query.
+ *
+ * Besides, it keeps [recentModelsCount] most recent SMT models, which can be checked against a new query
+ * before calling the solver.
+ *
+ * Type constraints are not translated into SMT assertions, so a cached model must still be checked
+ * by a type solver, while a cached unsatisfiable query remains unsatisfiable with any type constraints.
+ *
+ * Queries are indexed by their constraints, so subsets and supersets are found without scanning the whole cache:
+ * a satisfiable superset is searched among the cached queries containing the least common constraint of the query,
+ * while an unsatisfiable subset is searched among the cached queries indexed by one of the query constraints.
+ *
+ * Both satisfiable and unsatisfiable queries are evicted in LRU order when there are more than [maxSize] of them.
+ * Not thread-safe.
+ */
+class UQueryCache(
+    private val maxSize: Int = DEFAULT_MAX_SIZE,
+    private val recentModelsCount: Int = DEFAULT_RECENT_MODELS_COUNT,
+) {
+    private val satQueries = lruMap<Set<UBoolExpr>, KModel> { query, _ -> unindexSat(query) }
+
+    // Every satisfiable query is indexed by all its constraints
+    private val satQueriesByConstraint = hashMapOf<UBoolExpr, MutableSet<Set<UBoolExpr>>>()
+
+    // Maps an unsatisfiable query to the constraint it is indexed by
+    private val unsatQueries = lruMap<Set<UBoolExpr>, UBoolExpr> { query, key -> unindexUnsat(query, key) }
+
+    // Every unsatisfiable query is indexed by a single constraint, it suffices to find its supersets
+    private val unsatQueriesByKey = hashMapOf<UBoolExpr, MutableSet<Set<UBoolExpr>>>()
+
+    private val recentModels = ArrayDeque<KModel>()
+
+    private var exactHits = 0L
+    private var satSubsetHits = 0L
+    private var unsatSupersetHits = 0L
+    private var modelReuseHits = 0L
+    private var misses = 0L
+
+    /**
+     * Returns the cached result for the [query] or `null` if it is unknown.
+     */
+    fun lookup(query: Set<UBoolExpr>): USolverResult<KModel>? {
+        satQueries[query]?.let {
+            exactHits++
+            return USatResult(it)
+        }
+        if (unsatQueries[query] != null) {
+            exactHits++
+            return UUnsatResult()
+        }
+
+        findUnsatSubset(query)?.let { unsatQuery ->
+            // Refresh the LRU position
+            unsatQueries[unsatQuery]
+            unsatSupersetHits++
+            return UUnsatResult()
+        }
+
+        findSatSuperset(query)?.let { satQuery ->
+            satSubsetHits++
+            return USatResult(satQueries.getValue(satQuery))
+        }
+
+        return null
+    }
+
+    private fun findUnsatSubset(query: Set<UBoolExpr>): Set<UBoolExpr>? {
+        for (constraint in query) {
+            val unsatQueries = unsatQueriesByKey[constraint] ?: continue
+            val unsatQuery = unsatQueries.firstOrNull { it.size <= query.size && query.containsAll(it) }
+            if (unsatQuery != null) {
+                return unsatQuery
+            }
+        }
+        return null
+    }
+
+    private fun findSatSuperset(query: Set<UBoolExpr>): Set<UBoolExpr>? {
+        if (query.isEmpty()) {
+            return satQueries.keys.firstOrNull()
+        }
+
+        // A superset contains every constraint of the query, so the smallest set of candidates is enough
+        var candidates: Set<Set<UBoolExpr>>? = null
+        for (constraint in query) {
+            val queries = satQueriesByConstraint[constraint] ?: return null
+            if (candidates == null || queries.size < candidates.size) {
+                candidates = queries
+            }
+        }
+        return candidates?.firstOrNull { it.size >= query.size && it.containsAll(query) }
+    }
+
+    /**
+     * Returns the most recent SMT models, from the newest to the oldest.
+     */
+    fun recentModels(): List<KModel> = recentModels.toList()
+
+    /**
+     * Should be called when one of the [recentModels] turns out to satisfy a query.
+     */
+    fun onModelReused() {
+        modelReuseHits++
+    }
+
+    /**
+     * Should be called when the query was not answered by the cache and the solver was called.
+     */
+    fun onMiss() {
+        misses++
+    }
+
+    fun addSat(query: Set<UBoolExpr>, kModel: KModel) {
+        if (satQueries.put(query, kModel) == null) {
+            query.forEach { satQueriesByConstraint.getOrPut(it, ::hashSetOf) += query }
+        }
+
+        recentModels.remove(kModel)
+        recentModels.addFirst(kModel)
+        if (recentModels.size > recentModelsCount) {
+            recentModels.removeLast()
+        }
+    }
+
+    fun addUnsat(query: Set<UBoolExpr>) {
+        if (query in unsatQueries) {
+            return
+        }
+        // Indexing by the least used constraint keeps the index buckets short
+        val key = query.minByOrNull { unsatQueriesByKey[it]?.size ?: 0 } ?: return
+        unsatQueries[query] = key
+        unsatQueriesByKey.getOrPut(key, ::hashSetOf) += query
+    }
+
+    private fun unindexSat(query: Set<UBoolExpr>) {
+        for (constraint in query) {
+            val queries = satQueriesByConstraint[constraint] ?: continue
+            queries -= query
+            if (queries.isEmpty()) {
+                satQueriesByConstraint.remove(constraint)
+            }
+        }
+    }
+
+    private fun unindexUnsat(query: Set<UBoolExpr>, key: UBoolExpr) {
+        val queries = unsatQueriesByKey[key] ?: return
+        queries -= query
+        if (queries.isEmpty()) {
+            unsatQueriesByKey.remove(key)
+        }
+    }
+
+    fun statistics(): UQueryCacheStatistics = UQueryCacheStatistics(
+        size = satQueries.size + unsatQueries.size,
+        exactHits = exactHits,
+        satSubsetHits = satSubsetHits,
+        unsatSupersetHits = unsatSupersetHits,
+        modelReuseHits = modelReuseHits,
+        misses = misses,
+    )
+
+    private fun <K, V> lruMap(onEvicted: (K, V) -> Unit): MutableMap<K, V> =
+        object : LinkedHashMap<K, V>(INITIAL_CAPACITY, LOAD_FACTOR, /* accessOrder = */ true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, V>?): Boolean {
+                if (eldest == null || size <= maxSize) {
+                    return false
+                }
+                onEvicted(eldest.key, eldest.value)
+                return true
+            }
+        }
+
+    companion object {
+        const val DEFAULT_MAX_SIZE = 1024
+        const val DEFAULT_RECENT_MODELS_COUNT = 8
+
+        private const val INITIAL_CAPACITY = 16
+        private const val LOAD_FACTOR = 0.75f
+    }
+}
+
+/**
+ * @property size the number of cached queries.
+ * @property exactHits the number of queries found in the cache as is.
+ * @property satSubsetHits the number of queries answered with a model of a satisfiable superset query.
+ * @property unsatSupersetHits the number of queries containing an unsatisfiable cached query.
+ * @property modelReuseHits the number of queries satisfied by one of the recent models.
+ * @property misses the number of queries passed to the solver.
+ */
+data class UQueryCacheStatistics(
+    val size: Int,
+    val exactHits: Long,
+    val satSubsetHits: Long,
+    val unsatSupersetHits: Long,
+    val modelReuseHits: Long,
+    val misses: Long,
+) {
+    val hits: Long get() = exactHits + satSubsetHits + unsatSupersetHits + modelReuseHits
+}
@@ -0,0 +1,83 @@
+package org.usvm.solver
+
+import org.usvm.UBoolExpr
+
+/**
+ * A bounded cache of unsatisfiable cores of soft constraints learned by previous queries.
+ *
+ * A core learned along with some assertions conflicts with any superset of them. Path constraints only grow
+ * along a path, while soft constraints of neighbouring states are mostly the same, so the solver would find
+ * the same cores over and over again. Instead, the soft constraints of the known cores are dropped before
+ * the first check of a query.
+ *
+ * Cores are evicted in LRU order when there are more than [maxSize] of them. Not thread-safe.
+ */
+class USoftConstraintsCores(
+    private val maxSize: Int = DEFAULT_MAX_SIZE,
+) {
+    private var evictions = 0L
+    private var hits = 0L
+    private var misses = 0L
+
+    private val cores = object : LinkedHashMap<Set<UBoolExpr>, Set<UBoolExpr>>(
+        INITIAL_CAPACITY,
+        LOAD_FACTOR,
+        /* accessOrder = */ true
+    ) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Set<UBoolExpr>, Set<UBoolExpr>>?): Boolean {
+            if (size <= maxSize) {
+                return false
+            }
+            evictions++
+            return true
+        }
+    }
+
+    /**
+     * Returns the [softConstraints] which are known to conflict with the [assertions].
+     */
+    fun findConflicting(assertions: Set<UBoolExpr>, softConstraints: Collection<UBoolExpr>): Set<UBoolExpr> {
+        if (softConstraints.isEmpty()) {
+            return emptySet()
+        }
+
+        val softConstraintsSet = softConstraints as? Set<UBoolExpr> ?: softConstraints.toHashSet()
+        val conflicting = hashSetOf<UBoolExpr>()
+        val appliedCores = mutableListOf<Set<UBoolExpr>>()
+        for ((core, coreAssertions) in cores) {
+            if (softConstraintsSet.containsAll(core) && assertions.containsAll(coreAssertions)) {
+                conflicting += core
+                appliedCores += core
+            }
+        }
+
+        if (appliedCores.isEmpty()) {
+            misses++
+        } else {
+            hits++
+            // Refreshes the applied cores in the LRU order
+            appliedCores.forEach { cores[it] }
+        }
+        return conflicting
+    }
+
+    /**
+     * Remembers that the soft constraints of the [core] are unsatisfiable along with the [assertions].
+     */
+    fun add(assertions: Set<UBoolExpr>, core: Set<UBoolExpr>) {
+        val knownAssertions = cores[core]
+        // The fewer assertions, the more queries the core applies to
+        if (knownAssertions == null || assertions.size < knownAssertions.size) {
+            cores[core] = assertions
+        }
+    }
+
+    fun statistics(): UCacheStatistics = UCacheStatistics(cores.size, hits, misses, evictions)
+
+    companion object {
+        const val DEFAULT_MAX_SIZE = 256
+
+        private const val INITIAL_CAPACITY = 16
+        private const val LOAD_FACTOR = 0.75f
+    }
+}
@@ -60,15 +60,29 @@ import org.usvm.mkSizeLeExpr
 import org.usvm.regions.Region
 import org.usvm.uctx
 
+/**
+ * Provides soft constraints for expressions and their subexpressions. Provided constraints are kept
+ * in an LRU cache of [cacheSize] entries, which is dropped when the [UContext.currentCacheEpoch] changes.
+ */
 open class USoftConstraintsProvider<Type, USizeSort : USort>(
-    override val ctx: UContext<USizeSort>
+    override val ctx: UContext<USizeSort>,
+    cacheSize: Int = DEFAULT_CACHE_SIZE,
 ) : UTransformer<Type, USizeSort> {
     // We have a list here since sometimes we want to add several soft constraints
     // to make it possible to drop only a part of them, not the whole soft constraint
-    private val caches = hashMapOf<UExpr<*>, Set<UBoolExpr>>()
+    private val caches = UBoundedCache<UExpr<*>, Set<UBoolExpr>>(cacheSize)
+    private var cacheEpoch = ctx.currentCacheEpoch
     private val sortPreferredValuesProvider = SortPreferredValuesProvider()
 
+    fun cacheStatistics(): UCacheStatistics = caches.statistics()
+
     fun makeSoftConstraints(pathConstraints: UPathConstraints<Type>): Set<UBoolExpr> {
+        val currentEpoch = ctx.currentCacheEpoch
+        if (currentEpoch != cacheEpoch) {
+            cacheEpoch = currentEpoch
+            caches.clear()
+        }
+
         val softConstraints = hashSetOf<UBoolExpr>()
 
         val softConstraintSources = pathConstraints.softConstraintsSourceSequence
@@ -82,9 +96,9 @@ open class USoftConstraintsProvider<Type, USizeSort : USort>(
     }
 
     fun provide(initialExpr: UExpr<*>): Set<UBoolExpr> =
-        caches.getOrElse(initialExpr) {
+        caches[initialExpr] ?: run {
             apply(initialExpr)
-            caches.getOrPut(initialExpr, ::emptySet)
+            caches.peek(initialExpr) ?: emptySet<UBoolExpr>().also { caches[initialExpr] = it }
         }
 
     // region The most common methods
@@ -258,6 +272,7 @@ open class USoftConstraintsProvider<Type, USizeSort : USort>(
 
     companion object {
         const val PREFERRED_MAX_ARRAY_SIZE = 10
+        const val DEFAULT_CACHE_SIZE = 65536
     }
 }
 
@@ -0,0 +1,169 @@
+package org.usvm.solver
+
+import io.ksmt.solver.KSolver
+import java.util.ArrayDeque
+import java.util.IdentityHashMap
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * A bounded pool of warm [KSolver]s. Solvers are leased per query and returned to the pool afterwards,
+ * so they are created at most [maxSize] times and are never closed until the pool is closed.
+ *
+ * Operations are thread-safe. If all [maxSize] solvers are leased, [lease] blocks until one of them is released.
+ *
+ * @param maxSize the maximal number of native solvers alive at the same time.
+ * @param mkSolver creates a new solver when there is no idle one and the pool is not full yet.
+ */
+class USolverPool(
+    private val maxSize: Int,
+    private val mkSolver: () -> KSolver<*>,
+) : AutoCloseable {
+    init {
+        require(maxSize > 0) { "Solver pool size must be positive, but was $maxSize" }
+    }
+
+    private val lock = ReentrantLock()
+    private val solverReleased = lock.newCondition()
+
+    private val idleSolvers = ArrayDeque<KSolver<*>>()
+    private var createdSolvers = 0
+
+    // Assertions left in the solvers between leases by incremental queries
+    private val assertionsStacks = IdentityHashMap<KSolver<*>, UAssertionsStack>()
+
+    private var leased = 0
+    private var peakLeased = 0
+    private var totalLeases = 0L
+    private var totalWaits = 0L
+    private var isClosed = false
+
+    /**
+     * Takes an idle solver, creates a new one or waits for a release if the pool is full.
+     * Every leased solver must be returned with [release].
+     */
+    fun lease(): KSolver<*> {
+        lock.withLock {
+            var waited = false
+            while (idleSolvers.isEmpty() && createdSolvers >= maxSize && !isClosed) {
+                waited = true
+                solverReleased.await()
+            }
+            check(!isClosed) { "Solver pool is closed" }
+
+            if (waited) {
+                totalWaits++
+            }
+            totalLeases++
+            leased++
+            peakLeased = maxOf(peakLeased, leased)
+
+            val idleSolver = idleSolvers.pollFirst()
+            if (idleSolver != null) {
+                return idleSolver
+            }
+
+            // Reserve a slot, native solver creation is slow, so it is done outside the lock
+            createdSolvers++
+        }
+
+        return try {
+            mkSolver()
+        } catch (e: Throwable) {
+            lock.withLock {
+                createdSolvers--
+                leased--
+                solverReleased.signal()
+            }
+            throw e
+        }
+    }
+
+    /**
+     * Returns the [solver] leased with [lease] back to the pool.
+     */
+    fun release(solver: KSolver<*>) {
+        lock.withLock {
+            leased--
+            if (isClosed) {
+                solver.close()
+                return
+            }
+            // The most recently used solver is the warmest one
+            idleSolvers.addFirst(solver)
+            solverReleased.signal()
+        }
+    }
+
+    /**
+     * Returns the assertions left in the leased [solver] by the previous queries.
+     * All the holders of the [solver] must keep it consistent with the solver state.
+     */
+    fun assertionsStack(solver: KSolver<*>): UAssertionsStack = lock.withLock {
+        assertionsStacks.getOrPut(solver) { UAssertionsStack() }
+    }
+
+    /**
+     * Runs the [block] with a leased solver.
+     */
+    inline fun <T> withSolver(block: (KSolver<*>) -> T): T {
+        val solver = lease()
+        try {
+            return block(solver)
+        } finally {
+            release(solver)
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool occupancy.
+     */
+    fun statistics(): USolverPoolStatistics = lock.withLock {
+        USolverPoolStatistics(
+            maxSize = maxSize,
+            size = createdSolvers,
+            leased = leased,
+            peakLeased = peakLeased,
+            totalLeases = totalLeases,
+            totalWaits = totalWaits,
+        )
+    }
+
+    /**
+     * Closes all idle solvers. Solvers leased at the moment are closed on release.
+     */
+    override fun close() {
+        lock.withLock {
+            if (isClosed) return
+            isClosed = true
+            idleSolvers.forEach(KSolver<*>::close)
+            idleSolvers.clear()
+            assertionsStacks.clear()
+            solverReleased.signalAll()
+        }
+    }
+
+    companion object {
+        /**
+         * Wraps a single already created [solver] into a pool.
+         */
+        fun single(solver: KSolver<*>): USolverPool = USolverPool(maxSize = 1) { solver }
+    }
+}
+
+/**
+ * @property maxSize the maximal number of solvers in the pool.
+ * @property size the number of created solvers.
+ * @property leased the number of solvers leased at the moment.
+ * @property peakLeased the maximal number of solvers leased at the same time.
+ * @property totalLeases the total number of leases.
+ * @property totalWaits the number of leases which had to wait for a release because the pool was full.
+ */
+data class USolverPoolStatistics(
+    val maxSize: Int,
+    val size: Int,
+    val leased: Int,
+    val peakLeased: Int,
+    val totalLeases: Long,
+    val totalWaits: Long,
+)
@@ -2,12 +2,17 @@ package org.usvm.statistics
 
 import org.usvm.UState
 import org.usvm.algorithms.bfsTraversal
+import java.util.BitSet
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * [UMachineObserver] which tracks coverage of specified methods. Statements are
  * considered covered when state visited them is terminated.
  *
+ * Covered statements of a method are kept in a bitset indexed by the statement number in the method.
+ * Terminated paths mark their path nodes, so the prefixes shared with already terminated states are not walked again.
+ *
  * Operations are thread-safe.
  *
  * @param methods methods to track coverage of.
@@ -20,17 +25,27 @@ class CoverageStatistics<Method, Statement, State : UState<*, Method, Statement,
 
     private val onStatementCoveredObservers: MutableSet<(State, Method, Statement) -> Unit> = ConcurrentHashMap.newKeySet()
 
-    // Set is actually concurrent
-    private val uncoveredStatements = HashMap<Method, MutableSet<Statement>>()
-    private val coveredStatements = HashMap<Method, HashSet<Statement>>()
+    private val methodsCoverage = ConcurrentHashMap<Method, MethodCoverage<Statement>>()
+
+    private val totalUncoveredStatements = AtomicInteger(0)
+    private val totalCoveredStatements = AtomicInteger(0)
+
+    /**
+     * Methods outside the coverage zone which statements have been met on the accounted paths.
+     */
+    private val accountedMethodsOutsideZone: MutableSet<Method> = ConcurrentHashMap.newKeySet()
 
-    private var totalUncoveredStatements = 0
-    private var totalCoveredStatements = 0
+    /**
+     * Path nodes marked with another value have not been accounted since the last change of the coverage zone
+     * which affected the accounted paths.
+     */
+    @Volatile
+    private var coverageMark = nextCoverageMark()
 
     /**
      * Methods which coverage is currently tracked.
      */
-    val coverageZone: List<Method> get() = coveredStatements.keys.toList()
+    val coverageZone: List<Method> get() = methodsCoverage.keys.toList()
 
     init {
         for (method in methods) {
@@ -44,18 +59,20 @@ class CoverageStatistics<Method, Statement, State : UState<*, Method, Statement,
      * e.g., like in the [TransitiveCoverageZoneObserver].
      */
     fun addCoverageZone(method: Method) {
-        if (method in uncoveredStatements) return
+        if (method in methodsCoverage) return
 
         val methodStatements = bfsTraversal(
             applicationGraph.entryPoints(method).toList(),
             applicationGraph::successors
-        ).fold(ConcurrentHashMap.newKeySet<Statement>() as MutableSet<Statement>) { acc, stmt ->
-            acc.add(stmt); acc
-        }
+        ).toList()
+
+        if (methodsCoverage.putIfAbsent(method, MethodCoverage(methodStatements)) != null) return
+        totalUncoveredStatements.addAndGet(methodStatements.size)
 
-        uncoveredStatements[method] = methodStatements
-        totalUncoveredStatements += methodStatements.size
-        coveredStatements[method] = hashSetOf()
+        // Already accounted paths contain statements of the new zone, so they should be accounted again
+        if (accountedMethodsOutsideZone.remove(method)) {
+            coverageMark = nextCoverageMark()
+        }
     }
 
     private fun computeCoverage(covered: Int, uncovered: Int): Float {
@@ -69,13 +86,13 @@ class CoverageStatistics<Method, Statement, State : UState<*, Method, Statement,
      * Returns current total coverage of all methods in coverage zone (in percents).
      */
     fun getTotalCoverage(): Float {
-        return computeCoverage(totalCoveredStatements, totalUncoveredStatements)
+        return computeCoverage(totalCoveredStatements.get(), totalUncoveredStatements.get())
     }
 
     /**
      * Returns current number of covered statements of all methods in coverage zone.
      */
-    fun getTotalCoveredStatements(): Int = totalCoveredStatements
+    fun getTotalCoveredStatements(): Int = totalCoveredStatements.get()
 
     /**
      * Returns current coverage of specified method (in percents).
@@ -83,8 +100,8 @@ class CoverageStatistics<Method, Statement, State : UState<*, Method, Statement,
      * @param method one of the methods in coverage zone to get coverage of.
      */
     fun getMethodCoverage(method: Method): Float {
-        val uncoveredStatementsCount = uncoveredStatements[method]?.size ?: throw IllegalArgumentException("Trying to get coverage of unknown method $method")
-        return computeCoverage(coveredStatements.getValue(method).size, uncoveredStatementsCount)
+        val methodCoverage = methodsCoverage[method] ?: throw IllegalArgumentException("Trying to get coverage of unknown method $method")
+        return computeCoverage(methodCoverage.coveredCount, methodCoverage.uncoveredCount)
     }
 
     /**
@@ -97,10 +114,11 @@ class CoverageStatistics<Method, Statement, State : UState<*, Method, Statement,
         var uncoveredStatementsCountAcc = 0
         var coveredStatementsCountAcc = 0
         bfsTraversal(listOf(method)) {
-            applicationGraph.statementsOf(method).flatMap(applicationGraph::callees).filter(uncoveredStatements::containsKey)
+            applicationGraph.statementsOf(method).flatMap(applicationGraph::callees).filter(methodsCoverage::containsKey)
         }.forEach {
-            uncoveredStatementsCountAcc += uncoveredStatements.getValue(it).size
-            coveredStatementsCountAcc += coveredStatements.getValue(it).size
+            val methodCoverage = methodsCoverage.getValue(it)
+            uncoveredStatementsCountAcc += methodCoverage.uncoveredCount
+            coveredStatementsCountAcc += methodCoverage.coveredCount
         }
         return computeCoverage(coveredStatementsCountAcc, uncoveredStatementsCountAcc)
     }
@@ -109,7 +127,7 @@ class CoverageStatistics<Method, Statement, State : UState<*, Method, Statement,
      * Returns statements from methods in coverage zone which have not been covered yet.
      */
     fun getUncoveredStatements(): Collection<Statement> {
-        return uncoveredStatements.values.flatten()
+        return methodsCoverage.values.flatMap { it.uncoveredStatements() }
     }
 
     /**
@@ -123,18 +141,73 @@ class CoverageStatistics<Method, Statement, State : UState<*, Method, Statement,
     override fun onStateTerminated(state: State, stateReachable: Boolean) {
         if (!stateReachable) return
 
-        val statements = state.pathNode.allStatements
-        for (statement in statements) {
-            val method = applicationGraph.methodOf(statement)
+        val mark = coverageMark
+        var pathNode = state.pathNode
+        while (pathNode.coverageMark != mark) {
+            val parent = pathNode.parent ?: break
+            cover(state, pathNode.statement)
+            pathNode = parent
+        }
 
-            if (uncoveredStatements[method]?.remove(statement) != true) {
-                continue
-            }
+        // Mark the nodes only after all their statements are counted, so concurrent walks never stop too early
+        pathNode = state.pathNode
+        while (pathNode.coverageMark != mark) {
+            pathNode.coverageMark = mark
+            pathNode = pathNode.parent ?: break
+        }
+    }
+
+    private fun cover(state: State, statement: Statement) {
+        val method = applicationGraph.methodOf(statement)
+        val methodCoverage = methodsCoverage[method] ?: run {
+            accountedMethodsOutsideZone.add(method)
+            // The method may have been added to the zone before it was remembered as accounted
+            methodsCoverage[method]
+        } ?: return
+
+        if (!methodCoverage.cover(statement)) {
+            return
+        }
+
+        totalUncoveredStatements.decrementAndGet()
+        totalCoveredStatements.incrementAndGet()
+        onStatementCoveredObservers.forEach { it(state, method, statement) }
+    }
 
-            totalUncoveredStatements--
-            totalCoveredStatements++
-            coveredStatements.getValue(method).add(statement)
-            onStatementCoveredObservers.forEach { it(state, method, statement) }
+    private class MethodCoverage<Statement>(
+        private val statements: List<Statement>,
+    ) {
+        private val statementToIndex = statements.withIndex().associate { (idx, statement) -> statement to idx }
+        private val covered = BitSet(statements.size)
+
+        @Volatile
+        var coveredCount: Int = 0
+            private set
+
+        val uncoveredCount: Int get() = statements.size - coveredCount
+
+        /**
+         * Returns `true` if the [statement] belongs to the method and has not been covered yet.
+         */
+        @Synchronized
+        fun cover(statement: Statement): Boolean {
+            val idx = statementToIndex[statement] ?: return false
+            if (covered[idx]) {
+                return false
+            }
+            covered.set(idx)
+            coveredCount++
+            return true
         }
+
+        @Synchronized
+        fun uncoveredStatements(): List<Statement> = statements.filterIndexed { idx, _ -> !covered[idx] }
+    }
+
+    private companion object {
+        private val lastCoverageMark = AtomicInteger(0)
+
+        // Marks are unique between all the instances, so they never take marks of each other for their own
+        fun nextCoverageMark(): Int = lastCoverageMark.incrementAndGet()
     }
 }
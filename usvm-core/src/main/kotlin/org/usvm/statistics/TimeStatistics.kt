@@ -2,6 +2,7 @@ package org.usvm.statistics
 
 import org.usvm.UState
 import org.usvm.util.RealTimeStopwatch
+import java.util.concurrent.ConcurrentHashMap
 import kotlin.time.Duration
 
 /**
@@ -9,9 +10,12 @@ import kotlin.time.Duration
  */
 class TimeStatistics<Method, State : UState<*, Method, *, *, *, State>> : UMachineObserver<State> {
     private val stopwatch = RealTimeStopwatch()
-    private val methodStopwatch = RealTimeStopwatch()
 
-    private val methodTimes = mutableMapOf<Method, Duration>()
+    // Every worker thread of the machine measures its own steps
+    private val threadMethodStopwatch = ThreadLocal.withInitial { RealTimeStopwatch() }
+    private val methodStopwatch get() = threadMethodStopwatch.get()
+
+    private val methodTimes = ConcurrentHashMap<Method, Duration>()
 
     /**
      * Total machine running time.
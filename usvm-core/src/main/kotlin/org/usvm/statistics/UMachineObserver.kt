@@ -2,6 +2,9 @@ package org.usvm.statistics
 
 /**
  * Symbolic machine events observer.
+ *
+ * Callbacks are never invoked concurrently, even if the machine steps states in several threads.
+ * For a single step, they are invoked in the order [onStatePeeked], [onState], [onStateTerminated].
  */
 interface UMachineObserver<State> {
 
@@ -1,5 +1,6 @@
 package org.usvm.statistics.distances
 
+import org.usvm.algorithms.ReachabilityIndex
 import org.usvm.algorithms.limitedBfsTraversal
 import org.usvm.statistics.ApplicationGraph
 import java.util.concurrent.ConcurrentHashMap
@@ -10,6 +11,7 @@ import java.util.concurrent.ConcurrentHashMap
  *
  * @param depthLimit depthLimit methods which are reachable via paths longer than this value are
  * not considered (i.e. 1 means that the target method should be directly called from source method).
+ * [UInt.MAX_VALUE] means no limit, then the queries are answered by the [ReachabilityIndex] of the call graph.
  * @param applicationGraph [ApplicationGraph] used to get callees info.
  */
 class CallGraphStatisticsImpl<Method, Statement>(
@@ -18,13 +20,18 @@ class CallGraphStatisticsImpl<Method, Statement>(
 ) : CallGraphStatistics<Method> {
 
     private val cache = ConcurrentHashMap<Method, Set<Method>>()
+    private val reachabilityIndex = ReachabilityIndex(::getCallees)
 
     private fun getCallees(method: Method): Sequence<Method> =
         applicationGraph.statementsOf(method).flatMap(applicationGraph::callees)
 
-    override fun checkReachability(methodFrom: Method, methodTo: Method): Boolean =
-        cache.computeIfAbsent(methodFrom) {
+    override fun checkReachability(methodFrom: Method, methodTo: Method): Boolean {
+        if (depthLimit == UInt.MAX_VALUE) {
+            return reachabilityIndex.isReachable(methodFrom, methodTo)
+        }
+        return cache.computeIfAbsent(methodFrom) {
             // TODO: stop traversal on reaching methodTo and cache remaining elements
             limitedBfsTraversal(listOf(methodFrom), depthLimit, adjacentVertices = ::getCallees).toSet()
         }.contains(methodTo)
+    }
 }
@@ -1,41 +1,218 @@
 package org.usvm.statistics.distances
 
 import org.usvm.algorithms.findMinDistancesInUnweightedGraph
+import org.usvm.logger
 import org.usvm.statistics.ApplicationGraph
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.stream.IntStream
 
 /**
  * Common [CfgStatistics] implementation with thread-safe results caching.
  *
+ * Statements of each method are numbered, and the distances are stored as rows of an int distance matrix
+ * indexed by these numbers. Rows are calculated on demand, or all at once in the background by [precompute].
+ *
  * @param applicationGraph [ApplicationGraph] instance to get CFG from.
+ * @param denseMatrixLimit methods with more statements than this value get their distance rows calculated
+ * only on demand, even if they are passed to [precompute].
+ * @param precomputedDistancesLimit the total number of distances [precompute] may calculate in advance during
+ * the lifetime of this instance, so the memory taken by the precomputed matrices is bounded. Once it is
+ * exhausted, the distances are calculated only on demand.
  */
 class CfgStatisticsImpl<Method, Statement>(
     private val applicationGraph: ApplicationGraph<Method, Statement>,
+    private val denseMatrixLimit: Int = DEFAULT_DENSE_MATRIX_LIMIT,
+    precomputedDistancesLimit: Long = DEFAULT_PRECOMPUTED_DISTANCES_LIMIT,
 ) : CfgStatistics<Method, Statement> {
+    private val precomputedDistancesBudget = AtomicLong(precomputedDistancesLimit)
+
+    /**
+     * The number of distances [precompute] may still calculate in advance.
+     */
+    internal val remainingPrecomputedDistances: Long get() = precomputedDistancesBudget.get()
+
+    private val methodDistancesCache = ConcurrentHashMap<Method, MethodCfgDistances<Statement>>()
+
+    private fun getMethodDistances(method: Method): MethodCfgDistances<Statement> =
+        methodDistancesCache.computeIfAbsent(method, ::buildMethodDistances)
+
+    private fun buildMethodDistances(method: Method): MethodCfgDistances<Statement> {
+        val statements = mutableListOf<Statement>()
+        val indices = hashMapOf<Statement, Int>()
+        fun number(statement: Statement): Int = indices.getOrPut(statement) {
+            statements.add(statement)
+            statements.lastIndex
+        }
+
+        applicationGraph.statementsOf(method).forEach(::number)
+        // Successors of the new statements are numbered too, so the numbered statements are closed under successors
+        val successors = mutableListOf<IntArray>()
+        while (successors.size < statements.size) {
+            val statement = statements[successors.size]
+            successors += applicationGraph.successors(statement).map(::number).toList().toIntArray()
+        }
+
+        val predecessors = Array(statements.size) { mutableListOf<Int>() }
+        successors.forEachIndexed { from, tos -> tos.forEach { to -> predecessors[to].add(from) } }
+
+        val exitPoints = applicationGraph.exitPoints(method).mapNotNull(indices::get).toList().toIntArray()
+        val distancesToExit = findDistances(exitPoints, predecessors.map { it.toIntArray() }.toTypedArray())
+
+        return MethodCfgDistances(indices, successors.toTypedArray(), distancesToExit)
+    }
 
-    private val allToAllShortestDistanceCache = ConcurrentHashMap<Method, ConcurrentHashMap<Statement, Map<Statement, UInt>>>()
-    private val shortestDistanceToExitCache = ConcurrentHashMap<Method, ConcurrentHashMap<Statement, UInt>>()
+    /**
+     * Starts calculating the distances between all the statements of each method from [methods] in parallel
+     * in the background, so the calculators using this [CfgStatistics] do not calculate them on the first access.
+     * The distances requested meanwhile are calculated on demand, so the caller doesn't need to wait.
+     * Typically called with the methods of the coverage zone. Each method is precomputed and charged
+     * to the budget at most once, no matter how many times it is passed here.
+     *
+     * @return a future completed when the calculation is finished. Cancelling it stops the calculation
+     * before the next method.
+     */
+    fun precompute(methods: Collection<Method>): CompletableFuture<Void> {
+        val precomputation = CompletableFuture<Void>()
+        CompletableFuture.runAsync {
+            try {
+                methods.parallelStream().forEach { method ->
+                    if (!precomputation.isCancelled) {
+                        precomputeDistances(method)
+                    }
+                }
+                precomputation.complete(null)
+            } catch (e: Throwable) {
+                precomputation.completeExceptionally(e)
+            }
+        }
+        return precomputation
+    }
+
+    private fun precomputeDistances(method: Method) {
+        val methodDistances = getMethodDistances(method)
+        if (methodDistances.size > denseMatrixLimit || !methodDistances.claimPrecomputation()) {
+            return
+        }
+        if (reserveDistances(methodDistances.size)) {
+            methodDistances.calculateAllRows()
+        }
+    }
 
-    private fun getAllShortestCfgDistances(method: Method, stmtFrom: Statement): Map<Statement, UInt> {
-        val methodCache = allToAllShortestDistanceCache.computeIfAbsent(method) { ConcurrentHashMap() }
-        return methodCache.computeIfAbsent(stmtFrom) {
-            findMinDistancesInUnweightedGraph(stmtFrom, applicationGraph::successors, methodCache)
+    private fun reserveDistances(statementsCount: Int): Boolean {
+        val distancesCount = statementsCount.toLong() * statementsCount
+        val remainingBudget = precomputedDistancesBudget.getAndUpdate { budget ->
+            if (budget >= distancesCount) budget - distancesCount else budget
+        }
+        if (remainingBudget < distancesCount) {
+            logger.debug { "Distances of a method with $statementsCount statements are not precomputed: out of budget" }
+            return false
         }
+        return true
     }
 
     override fun getShortestDistance(method: Method, stmtFrom: Statement, stmtTo: Statement): UInt {
-        return getAllShortestCfgDistances(method, stmtFrom)[stmtTo] ?: UInt.MAX_VALUE
+        val methodDistances = getMethodDistances(method)
+        val from = methodDistances.indexOf(stmtFrom)
+        if (from == UNKNOWN_STATEMENT) {
+            return findMinDistancesInUnweightedGraph(stmtFrom, applicationGraph::successors)[stmtTo] ?: UInt.MAX_VALUE
+        }
+        val to = methodDistances.indexOf(stmtTo)
+        if (to == UNKNOWN_STATEMENT) {
+            return UInt.MAX_VALUE
+        }
+        return methodDistances.row(from)[to].toDistance()
     }
 
     override fun getShortestDistanceToExit(method: Method, stmtFrom: Statement): UInt {
-        return shortestDistanceToExitCache
-            .computeIfAbsent(method) { ConcurrentHashMap() }
-            .computeIfAbsent(stmtFrom) {
-                val exitPoints = applicationGraph.exitPoints(method).toHashSet()
-                getAllShortestCfgDistances(method, stmtFrom)
-                    .filterKeys(exitPoints::contains)
-                    .minByOrNull { it.value }
-                    ?.value ?: UInt.MAX_VALUE
+        val methodDistances = getMethodDistances(method)
+        val from = methodDistances.indexOf(stmtFrom)
+        if (from == UNKNOWN_STATEMENT) {
+            val exitPoints = applicationGraph.exitPoints(method).toHashSet()
+            return findMinDistancesInUnweightedGraph(stmtFrom, applicationGraph::successors)
+                .filterKeys(exitPoints::contains)
+                .minOfOrNull { it.value } ?: UInt.MAX_VALUE
+        }
+        return methodDistances.distancesToExit[from].toDistance()
+    }
+
+    companion object {
+        const val DEFAULT_DENSE_MATRIX_LIMIT = 1024
+
+        /**
+         * 64 MB of precomputed distances, i.e. 16 dense matrices of the largest size.
+         */
+        const val DEFAULT_PRECOMPUTED_DISTANCES_LIMIT = 16L * 1024 * 1024
+    }
+}
+
+private const val UNKNOWN_STATEMENT = -1
+private const val UNREACHABLE = -1
+
+private fun Int.toDistance(): UInt = if (this == UNREACHABLE) UInt.MAX_VALUE else toUInt()
+
+/**
+ * CFG distances of a single method. Statements are numbered from zero, [successors] are the adjacency lists
+ * of the CFG in terms of these numbers.
+ */
+private class MethodCfgDistances<Statement>(
+    private val indices: Map<Statement, Int>,
+    private val successors: Array<IntArray>,
+    val distancesToExit: IntArray,
+) {
+    val size: Int get() = successors.size
+
+    /**
+     * Rows of the distance matrix. Concurrent calculations of the same row produce equal arrays,
+     * so the row written last wins without any synchronization.
+     */
+    private val rows = AtomicReferenceArray<IntArray>(size)
+
+    private val precomputationClaimed = AtomicBoolean()
+
+    /**
+     * Returns `true` only for the first caller, so the distances are precomputed by a single one.
+     */
+    fun claimPrecomputation(): Boolean = precomputationClaimed.compareAndSet(false, true)
+
+    fun indexOf(statement: Statement): Int = indices[statement] ?: UNKNOWN_STATEMENT
+
+    fun row(from: Int): IntArray =
+        rows.get(from) ?: findDistances(intArrayOf(from), successors).also { rows.set(from, it) }
+
+    fun calculateAllRows() {
+        IntStream.range(0, size).parallel().forEach { row(it) }
+    }
+}
+
+/**
+ * Breadth-first search from all the [startVertices] at once over the graph with vertices `0 until adjacencyLists.size`.
+ *
+ * @return distances to all the vertices, [UNREACHABLE] for the vertices which cannot be reached.
+ */
+private fun findDistances(startVertices: IntArray, adjacencyLists: Array<IntArray>): IntArray {
+    val distances = IntArray(adjacencyLists.size) { UNREACHABLE }
+    val queue = IntArray(adjacencyLists.size)
+    var head = 0
+    var tail = 0
+    for (vertex in startVertices) {
+        if (distances[vertex] == UNREACHABLE) {
+            distances[vertex] = 0
+            queue[tail++] = vertex
+        }
+    }
+    while (head < tail) {
+        val vertex = queue[head++]
+        val distance = distances[vertex] + 1
+        for (adjacentVertex in adjacencyLists[vertex]) {
+            if (distances[adjacentVertex] == UNREACHABLE) {
+                distances[adjacentVertex] = distance
+                queue[tail++] = adjacentVertex
             }
+        }
     }
+    return distances
 }
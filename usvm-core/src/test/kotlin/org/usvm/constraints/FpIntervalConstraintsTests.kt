@@ -0,0 +1,88 @@
+package org.usvm.constraints
+
+import io.ksmt.utils.getValue
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.usvm.UComponents
+import org.usvm.UContext
+import org.usvm.USizeSort
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class FpIntervalConstraintsTests {
+    private lateinit var ctx: UContext<USizeSort>
+    private lateinit var constraints: UFpIntervalConstraints
+
+    @BeforeEach
+    fun initializeContext() {
+        val components: UComponents<*, USizeSort> = mockk()
+        every { components.mkTypeSystem(any()) } returns mockk()
+        ctx = UContext(components)
+        constraints = UFpIntervalConstraints()
+    }
+
+    @Test
+    fun testContradictingBounds(): Unit = with(ctx) {
+        val x by fp64Sort
+
+        constraints.addFpConstraint(mkFpLessExpr(x, mkFp(1.0, fp64Sort)))
+        constraints.addFpConstraint(mkFpLessOrEqualExpr(mkFp(0.5, fp64Sort), x))
+        assertEquals(
+            UFpInterval(0.5, isLowerStrict = false, 1.0, isUpperStrict = true, mayBeNaN = false),
+            constraints.evalInterval(x)
+        )
+        assertFalse(constraints.isContradicting)
+
+        constraints.addFpConstraint(mkFpGreaterExpr(x, mkFp(2.0, fp64Sort)))
+        assertTrue(constraints.isContradicting)
+    }
+
+    @Test
+    fun testNegatedComparisonsAllowNaN(): Unit = with(ctx) {
+        val x by fp32Sort
+
+        // !(x < 1) and !(x > 0) hold for NaN
+        constraints.addNegatedFpConstraint(mkFpLessExpr(x, mkFp(1.0f, fp32Sort)))
+        constraints.addNegatedFpConstraint(mkFpGreaterExpr(x, mkFp(0.0f, fp32Sort)))
+        assertFalse(constraints.isContradicting)
+        assertFalse(constraints.evalInterval(x).hasNumbers)
+
+        // Excludes NaN, while no number is left
+        constraints.addFpConstraint(mkFpLessOrEqualExpr(x, mkFp(Float.POSITIVE_INFINITY, fp32Sort)))
+        assertTrue(constraints.isContradicting)
+    }
+
+    @Test
+    fun testPathConstraintsDetectFpContradiction(): Unit = with(ctx) {
+        val pathConstraints = UPathConstraints<Any>(ctx)
+        val x by fp64Sort
+
+        pathConstraints += mkFpGreaterOrEqualExpr(x, mkFp(0.0, fp64Sort))
+        pathConstraints += mkNot(mkFpGreaterExpr(mkFp(-0.0, fp64Sort), x))
+        assertFalse(pathConstraints.isFalse)
+
+        pathConstraints += mkFpEqualExpr(x, mkFp(-1.0, fp64Sort))
+        assertTrue(pathConstraints.isFalse)
+    }
+
+    @Test
+    fun testMergeJoinsIntervals(): Unit = with(ctx) {
+        val x by fp64Sort
+        val y by fp64Sort
+        val other = constraints.clone()
+
+        constraints.addFpConstraint(mkFpEqualExpr(x, mkFp(1.0, fp64Sort)))
+        constraints.addFpConstraint(mkFpEqualExpr(y, mkFp(1.0, fp64Sort)))
+        other.addFpConstraint(mkFpGreaterExpr(x, mkFp(2.0, fp64Sort)))
+
+        val merged = constraints.mergeWith(other, mockk())
+        assertEquals(
+            UFpInterval(1.0, isLowerStrict = false, Double.POSITIVE_INFINITY, isUpperStrict = false, mayBeNaN = false),
+            merged.evalInterval(x)
+        )
+        assertEquals(UFpInterval.UNIVERSE, merged.evalInterval(y))
+    }
+}
@@ -142,6 +142,22 @@ class NumericConstraintsTests {
         assertEquals(expectedInterval, actualInterval)
     }
 
+    @Test
+    fun testEvalBounds64(): Unit = with(ctx) {
+        bvSort = ctx.bv64Sort
+        constraints = UNumericConstraints(ctx, bvSort)
+        val x by bvSort
+
+        // x in [3_000_000_000, 5_000_000_000]
+        constraints.addNumericConstraint(mkBvSignedGreaterOrEqualExpr(x, mkBv(3_000_000_000L, bvSort)))
+        constraints.addNegatedNumericConstraint(mkBvSignedGreaterExpr(x, mkBv(5_000_000_000L, bvSort)))
+
+        assertEquals(3_000_000_001L..5_000_000_001L, constraints.evalBounds(mkBvAddExpr(x, mkBv(1L, bvSort))))
+
+        constraints.addNumericConstraint(mkBvSignedLessExpr(x, mkBv(0L, bvSort)))
+        assertTrue(constraints.isContradicting)
+    }
+
     private fun testRandomConstraints(seed: Int, size: Int) = KYicesSolver(ctx).use { solver ->
         testRandomConstraints(solver, seed, size)
     }
@@ -0,0 +1,107 @@
+package org.usvm.memory
+
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.usvm.INITIAL_STATIC_ADDRESS
+import org.usvm.UBv32SizeExprProvider
+import org.usvm.UBv32Sort
+import org.usvm.UComponents
+import org.usvm.UContext
+import org.usvm.UHeapRef
+import org.usvm.USizeSort
+import org.usvm.api.readField
+import org.usvm.api.writeField
+import org.usvm.collection.field.UInputFieldReading
+import org.usvm.isFalse
+import org.usvm.memory.key.UHeapRefKeyInfo
+import org.usvm.memory.key.USizeExprKeyInfo
+import org.usvm.mkSizeExpr
+import org.usvm.sizeSort
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertIs
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class FlatUpdatesConcreteKeysTest {
+    private lateinit var ctx: UContext<USizeSort>
+
+    @BeforeEach
+    fun initializeContext() {
+        val components: UComponents<*, USizeSort> = mockk()
+        every { components.mkTypeSystem(any()) } returns mockk()
+        ctx = UContext(components)
+        every { components.mkSizeExprProvider(any()) } answers { UBv32SizeExprProvider(ctx) }
+    }
+
+    @Test
+    fun testConcreteReadsMatchWalking() = with(ctx) {
+        val symbolicRef = mkRegisterReading(0, addressSort)
+        var updates = UFlatUpdates<UHeapRef, UBv32Sort>(UHeapRefKeyInfo)
+        for (address in 1..100) {
+            updates = updates.write(mkConcreteHeapRef(address), mkBv(address), trueExpr)
+        }
+        updates = updates.write(symbolicRef, mkBv(0), trueExpr)
+        for (address in 50..150) {
+            updates = updates.write(mkConcreteHeapRef(address), mkBv(-address), mkConst("guard$address", boolSort))
+        }
+        updates = updates.write(mkConcreteHeapRef(200), mkBv(200), falseExpr)
+
+        for (address in 1..200) {
+            val key = mkConcreteHeapRef(address)
+            val expected = walk(updates, key).lastUpdatedElementOrNull()
+            assertSame(expected, updates.read(key, composer = null).lastUpdatedElementOrNull())
+        }
+    }
+
+    @Test
+    fun testConcreteReadFallsThroughToInitialValue() = with(ctx) {
+        var updates = UFlatUpdates<UHeapRef, UBv32Sort>(UHeapRefKeyInfo)
+        for (address in 1..10) {
+            updates = updates.write(mkConcreteHeapRef(address), mkBv(address), trueExpr)
+        }
+
+        assertTrue(updates.read(mkConcreteHeapRef(11), composer = null).isEmpty())
+
+        val lastWrite = updates.read(mkConcreteHeapRef(3), composer = null).lastUpdatedElementOrNull()
+        assertEquals(mkBv(3), (lastWrite as UPinpointUpdateNode).value(mkConcreteHeapRef(3), composer = null))
+    }
+
+    @Test
+    fun testStaticFieldReadsUseIndex() = with(ctx) {
+        // Static refs are concrete, but their fields are stored in the input fields collection with flat updates
+        val memory = UMemory<Any, Any>(ctx, mockk())
+        val field = Any()
+        val staticRefs = (0 until 100).map { mkConcreteHeapRef(INITIAL_STATIC_ADDRESS - it) }
+        staticRefs.forEachIndexed { i, ref -> memory.writeField(ref, field, bv32Sort, mkBv(i), trueExpr) }
+
+        staticRefs.forEachIndexed { i, ref ->
+            assertEquals(mkBv(i), memory.readField(ref, field, bv32Sort))
+        }
+
+        val unwrittenRef = mkConcreteHeapRef(INITIAL_STATIC_ADDRESS - 100)
+        val reading = assertIs<UInputFieldReading<*, *>>(memory.readField(unwrittenRef, field, bv32Sort))
+        assertTrue(reading.collection.updates.isEmpty())
+    }
+
+    @Test
+    fun testSizeKeyIsConcreteOnlyForValues() = with(ctx) {
+        val keyInfo = USizeExprKeyInfo<USizeSort>()
+
+        assertTrue(keyInfo.isConcrete(mkSizeExpr(1)))
+        assertFalse(keyInfo.isConcrete(mkRegisterReading(0, sizeSort)))
+    }
+
+    private fun walk(updates: UFlatUpdates<UHeapRef, UBv32Sort>, key: UHeapRef): UFlatUpdates<UHeapRef, UBv32Sort> {
+        var current = updates
+        while (true) {
+            val node = current.node ?: return current
+            if (!node.update.includesSymbolically(key, composer = null).isFalse) {
+                return current
+            }
+            current = node.next
+        }
+    }
+}
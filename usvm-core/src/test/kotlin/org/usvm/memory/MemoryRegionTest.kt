@@ -13,14 +13,19 @@ import org.usvm.UBv32Sort
 import org.usvm.UComponents
 import org.usvm.UContext
 import org.usvm.UHeapRef
+import org.usvm.UExpr
 import org.usvm.USizeSort
 import org.usvm.collection.array.UAllocatedArrayId
+import org.usvm.collection.array.UAllocatedArrayReading
+import org.usvm.collection.array.UArrayIndexLValue
+import org.usvm.collection.array.UArrayMemoryRegion
 import org.usvm.collection.array.UInputArrayId
 import org.usvm.mkSizeExpr
 import org.usvm.regions.SetRegion
 import org.usvm.regions.emptyRegionTree
 import org.usvm.sizeSort
 import kotlin.random.Random
+import kotlin.test.assertIs
 import kotlin.test.assertNotNull
 import kotlin.test.assertTrue
 
@@ -150,4 +155,28 @@ class MemoryRegionTest {
             memoryRegion.read(readRef to readIdx)
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun testConcreteArrayAccesses(): Unit = with(ctx) {
+        val arrayType = mockk<Type>()
+        val ref = mkConcreteHeapRef(address = 1)
+        fun lvalue(index: UExpr<USizeSort>) = UArrayIndexLValue(sizeSort, ref, index, arrayType)
+
+        var region: UMemoryRegion<UArrayIndexLValue<Type, USizeSort, USizeSort>, USizeSort> = UArrayMemoryRegion()
+        repeat(10) {
+            region = region.write(lvalue(mkSizeExpr(it)), mkSizeExpr(it * it), trueExpr)
+        }
+        repeat(10) {
+            assertEquals(mkSizeExpr(it * it), region.read(lvalue(mkSizeExpr(it))))
+        }
+
+        // A symbolic index converts the array to a collection with the same elements
+        val reading = region.read(lvalue(mkRegisterReading(0, sizeSort)))
+        val arrayReading = assertIs<UAllocatedArrayReading<Type, USizeSort, USizeSort>>(reading)
+        assertEquals(10, arrayReading.collection.updates.count())
+
+        region = region.write(lvalue(mkSizeExpr(3)), mkSizeExpr(42), trueExpr)
+        assertEquals(mkSizeExpr(42), region.read(lvalue(mkSizeExpr(3))))
+        assertEquals(mkSizeExpr(4), region.read(lvalue(mkSizeExpr(2))))
+    }
+}
@@ -0,0 +1,58 @@
+package org.usvm.memory
+
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.usvm.Type
+import org.usvm.UBv32Sort
+import org.usvm.UComponents
+import org.usvm.UContext
+import org.usvm.USizeSort
+import kotlin.test.assertEquals
+
+class RegistersStackTest {
+    private lateinit var ctx: UContext<USizeSort>
+    private lateinit var bv32Sort: UBv32Sort
+
+    @BeforeEach
+    fun initializeContext() {
+        val components: UComponents<Type, USizeSort> = mockk()
+        every { components.mkTypeSystem(any()) } returns mockk()
+
+        ctx = UContext(components)
+        bv32Sort = ctx.bv32Sort
+    }
+
+    @Test
+    fun testClonesDoNotShareWrites() = with(ctx) {
+        val stack = URegistersStack()
+        stack.push(registersCount = 2)
+        stack.writeRegister(0, mkBv(1))
+
+        val clone = stack.clone()
+        clone.writeRegister(0, mkBv(2))
+        stack.writeRegister(1, mkBv(3))
+
+        assertEquals(mkBv(1), stack.readRegister(0, bv32Sort))
+        assertEquals(mkBv(3), stack.readRegister(1, bv32Sort))
+        assertEquals(mkBv(2), clone.readRegister(0, bv32Sort))
+        assertEquals(mkRegisterReading(1, bv32Sort), clone.readRegister(1, bv32Sort))
+    }
+
+    @Test
+    fun testSharedFrameIsCopiedAfterPop() = with(ctx) {
+        val stack = URegistersStack()
+        stack.push(registersCount = 1)
+        stack.writeRegister(0, mkBv(1))
+        stack.push(registersCount = 1)
+
+        val clone = stack.clone()
+        clone.pop()
+        clone.writeRegister(0, mkBv(2))
+
+        stack.pop()
+        assertEquals(mkBv(1), stack.readRegister(0, bv32Sort))
+        assertEquals(mkBv(2), clone.readRegister(0, bv32Sort))
+    }
+}
@@ -25,7 +25,6 @@ import org.usvm.types.single.SingleTypeSystem
 import org.usvm.types.single.SingleTypeSystem.SingleType
 import kotlin.test.Test
 import kotlin.test.assertEquals
-import kotlin.test.assertFails
 
 class MemoryMergingTest {
     private lateinit var ctx: UContext<UBv32Sort>
@@ -85,34 +84,88 @@ class MemoryMergingTest {
 
     @Test
     fun `Distinct regions`(): Unit = with(ctx) {
-        assertFails { // TODO: improve memory regions constraints merging
-            val byCondition = mkConst("cond", boolSort)
-            val pathConstraints = UPathConstraints<SingleType>(this)
-
-            val memoryLeft = UMemory<SingleType, Method>(this, pathConstraints.typeConstraints)
-
-            val ref1 = allocateConcreteRef()
-            val ref2 = allocateConcreteRef()
-            val ref3 = allocateConcreteRef()
-
-            memoryLeft.writeField(ref1, Unit, addressSort, mkRegisterReading(1, addressSort), trueExpr)
-            memoryLeft.writeField(ref2, Unit, addressSort, mkRegisterReading(2, addressSort), trueExpr)
-            memoryLeft.writeField(ref3, Unit, addressSort, mkRegisterReading(3, addressSort), trueExpr)
-
-            val memoryRight = memoryLeft.clone(pathConstraints.typeConstraints)
-            memoryRight.writeField(ref1, Unit, addressSort, mkRegisterReading(-1, addressSort), trueExpr)
-            memoryRight.writeField(ref2, Unit, addressSort, mkRegisterReading(-2, addressSort), trueExpr)
-            memoryRight.writeField(ref3, Unit, addressSort, mkRegisterReading(-3, addressSort), trueExpr)
-
-            checkMergedEqualsToOriginal(
-                memoryLeft,
-                memoryRight,
-                byCondition,
-                { it.readField(ref1, Unit, addressSort) },
-                { it.readField(ref2, Unit, addressSort) },
-                { it.readField(ref3, Unit, addressSort) },
-            )
+        val byCondition = mkConst("cond", boolSort)
+        val pathConstraints = UPathConstraints<SingleType>(this)
+
+        val memoryLeft = UMemory<SingleType, Method>(this, pathConstraints.typeConstraints)
+
+        val ref1 = allocateConcreteRef()
+        val ref2 = allocateConcreteRef()
+        val ref3 = allocateConcreteRef()
+
+        memoryLeft.writeField(ref1, Unit, addressSort, mkRegisterReading(1, addressSort), trueExpr)
+        memoryLeft.writeField(ref2, Unit, addressSort, mkRegisterReading(2, addressSort), trueExpr)
+        memoryLeft.writeField(ref3, Unit, addressSort, mkRegisterReading(3, addressSort), trueExpr)
+
+        val memoryRight = memoryLeft.clone(pathConstraints.typeConstraints)
+        memoryRight.writeField(ref1, Unit, addressSort, mkRegisterReading(-1, addressSort), trueExpr)
+        memoryRight.writeField(ref2, Unit, addressSort, mkRegisterReading(-2, addressSort), trueExpr)
+        memoryRight.writeField(ref3, Unit, addressSort, mkRegisterReading(-3, addressSort), trueExpr)
+
+        checkMergedEqualsToOriginal(
+            memoryLeft,
+            memoryRight,
+            byCondition,
+            { it.readField(ref1, Unit, addressSort) },
+            { it.readField(ref2, Unit, addressSort) },
+            { it.readField(ref3, Unit, addressSort) },
+        )
+    }
+
+    @Test
+    fun `Distinct input regions`(): Unit = with(ctx) {
+        val byCondition = mkConst("cond", boolSort)
+        val pathConstraints = UPathConstraints<SingleType>(this)
+
+        val memoryLeft = UMemory<SingleType, Method>(this, pathConstraints.typeConstraints)
+
+        val ref1 = mkRegisterReading(1, addressSort)
+        val ref2 = mkRegisterReading(2, addressSort)
+        val ref3 = mkRegisterReading(3, addressSort)
+
+        memoryLeft.writeField(ref1, Unit, bv32Sort, mkBv(1), trueExpr)
+
+        val memoryRight = memoryLeft.clone(pathConstraints.typeConstraints)
+        memoryLeft.writeField(ref2, Unit, bv32Sort, mkBv(2), trueExpr)
+        memoryRight.writeField(ref1, Unit, bv32Sort, mkBv(-1), trueExpr)
+        memoryRight.writeField(ref3, Unit, bv32Sort, mkBv(-3), trueExpr)
+
+        checkMergedEqualsToOriginal(
+            memoryLeft,
+            memoryRight,
+            byCondition,
+            { it.readField(ref1, Unit, bv32Sort) },
+            { it.readField(ref2, Unit, bv32Sort) },
+            { it.readField(ref3, Unit, bv32Sort) },
+            { it.readField(mkRegisterReading(4, addressSort), Unit, bv32Sort) },
+        )
+    }
+
+    @Test
+    fun `Merge cost counts guarded values and updates`(): Unit = with(ctx) {
+        val pathConstraints = UPathConstraints<SingleType>(this)
+        val memoryLeft = UMemory<SingleType, Method>(this, pathConstraints.typeConstraints)
+
+        val allocatedRefs = List(3) { allocateConcreteRef() }
+        allocatedRefs.forEachIndexed { i, ref ->
+            memoryLeft.writeField(ref, Unit, addressSort, mkRegisterReading(i, addressSort), trueExpr)
         }
+        val inputRef1 = mkRegisterReading(1, addressSort)
+        memoryLeft.writeField(inputRef1, Unit, bv32Sort, mkBv(1), trueExpr)
+
+        val memoryRight = memoryLeft.clone(pathConstraints.typeConstraints)
+        assertEquals(0, memoryLeft.mergeCost(memoryRight))
+
+        // Two of three allocated values differ
+        memoryRight.writeField(allocatedRefs[0], Unit, addressSort, mkRegisterReading(-1, addressSort), trueExpr)
+        memoryRight.writeField(allocatedRefs[1], Unit, addressSort, mkRegisterReading(-2, addressSort), trueExpr)
+        // One input update is made only along the left path and two updates only along the right one
+        memoryLeft.writeField(mkRegisterReading(2, addressSort), Unit, bv32Sort, mkBv(2), trueExpr)
+        memoryRight.writeField(inputRef1, Unit, bv32Sort, mkBv(-1), trueExpr)
+        memoryRight.writeField(mkRegisterReading(3, addressSort), Unit, bv32Sort, mkBv(-3), trueExpr)
+
+        assertEquals(5, memoryLeft.mergeCost(memoryRight))
+        assertEquals(5, memoryRight.mergeCost(memoryLeft))
     }
 
     private fun checkMergedEqualsToOriginal(
@@ -0,0 +1,107 @@
+package org.usvm.ps
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.jupiter.api.Test
+import org.usvm.TestState
+import org.usvm.UContext
+import org.usvm.constraints.UPathConstraints
+import org.usvm.model.UModelBase
+import org.usvm.solver.USatResult
+import org.usvm.solver.USolverBase
+import org.usvm.solver.USolverResult
+import org.usvm.solver.UUnsatResult
+import java.util.concurrent.Executor
+import kotlin.concurrent.thread
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+internal class FeasibilityCheckingPathSelectorTests {
+    private val machineThread = Thread.currentThread()
+    private val solver = mockk<USolverBase<Any>>()
+    private val checkerSolver = mockk<USolverBase<Any>>()
+    private val ctx = mockk<UContext<*>> {
+        every { solver<Any>() } answers {
+            if (Thread.currentThread() == machineThread) {
+                this@FeasibilityCheckingPathSelectorTests.solver
+            } else {
+                checkerSolver
+            }
+        }
+    }
+
+    // Checks batches on another thread and waits for them, so the results are available right after the submission
+    private val joiningExecutor = Executor { task -> thread { task.run() }.join() }
+
+    private fun mockState(
+        pathConstraints: UPathConstraints<Any>,
+        vararg models: List<UModelBase<Any>>,
+    ): TestState = mockk(relaxUnitFun = true) {
+        every { this@mockk.ctx } returns this@FeasibilityCheckingPathSelectorTests.ctx
+        every { this@mockk.models } returnsMany models.toList()
+        every { this@mockk.pathConstraints } returns pathConstraints
+    }
+
+    private fun mockPathConstraints(solverResult: USolverResult<UModelBase<Any>>): UPathConstraints<Any> {
+        val pathConstraints = mockk<UPathConstraints<Any>>()
+        every { pathConstraints.clone() } returns pathConstraints
+        every { checkerSolver.checkDetached(pathConstraints) } returns solverResult
+        return pathConstraints
+    }
+
+    @Test
+    fun testOnlySatStatesAreSelected() {
+        val model = mockk<UModelBase<Any>>()
+        val satConstraints = mockPathConstraints(USatResult(model))
+        val unsatConstraints = mockPathConstraints(UUnsatResult())
+
+        val satState = mockState(satConstraints, listOf(model))
+        val pendingSatState = mockState(satConstraints, emptyList())
+        val pendingUnsatState = mockState(unsatConstraints, emptyList())
+
+        val pathSelector = FeasibilityCheckingPathSelector<Any, TestState>(
+            BfsPathSelector(),
+            joiningExecutor,
+            maxBatchesInFlight = 1
+        )
+        pathSelector.add(listOf(satState, pendingSatState, pendingUnsatState))
+
+        val selected = mutableListOf<TestState>()
+        while (!pathSelector.isEmpty()) {
+            val state = pathSelector.peek()
+            selected += state
+            pathSelector.remove(state)
+        }
+
+        assertEquals(listOf(satState, pendingSatState), selected)
+        verify { pendingSatState.models = listOf(model) }
+        verify(exactly = 1) { checkerSolver.checkDetached(satConstraints) }
+        verify(exactly = 1) { checkerSolver.checkDetached(unsatConstraints) }
+        // The checkers' models are detached, so the machine thread never calls the solver
+        verify(exactly = 0) { solver.check(any()) }
+        verify(exactly = 0) { solver.checkDetached(any()) }
+    }
+
+    @Test
+    fun testUpdatedStateWithoutModelsIsRechecked() {
+        val model = mockk<UModelBase<Any>>()
+        val unsatConstraints = mockPathConstraints(UUnsatResult())
+
+        // The state has a model when it is added, but loses it on a fork
+        val state = mockState(unsatConstraints, listOf(model), emptyList())
+
+        val pathSelector = FeasibilityCheckingPathSelector<Any, TestState>(
+            BfsPathSelector(),
+            joiningExecutor,
+            maxBatchesInFlight = 1
+        )
+        pathSelector.add(listOf(state))
+        assertEquals(state, pathSelector.peek())
+
+        pathSelector.update(state)
+
+        assertTrue(pathSelector.isEmpty())
+        verify(exactly = 1) { checkerSolver.checkDetached(unsatConstraints) }
+    }
+}
@@ -0,0 +1,137 @@
+package org.usvm.ps
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.jupiter.api.Test
+import org.usvm.PathNode
+import org.usvm.TestInstruction
+import org.usvm.TestState
+import org.usvm.UCallStack
+import org.usvm.UContext
+import org.usvm.constraints.UPathConstraints
+import org.usvm.memory.UMemory
+import org.usvm.solver.USolverBase
+import org.usvm.targets.UTargetsSet
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+
+internal class SubsumptionPathSelectorTests {
+    private val solver = mockk<USolverBase<Any>>()
+    private val ctx = mockk<UContext<*>> {
+        every { solver<Any>() } returns this@SubsumptionPathSelectorTests.solver
+    }
+
+    private val loopHead = TestInstruction("method", 1)
+    private val loopBody = TestInstruction("method", 2)
+
+    private val loopTracker = mockk<StateLoopTracker<Any, TestInstruction, TestState>> {
+        every { findLoopEntrance(any()) } answers { if (firstArg<TestInstruction>() == loopHead) Any() else null }
+    }
+
+    private val memory = mockk<UMemory<Any, String>> {
+        every { clone(any()) } returns this
+        every { hasSameContentsAs(any()) } returns true
+    }
+
+    private fun mockPathConstraints(): UPathConstraints<Any> = mockk {
+        every { clone() } returns this
+        every { typeConstraints.inputRefToTypeRegion } returns emptyMap()
+    }
+
+    private var lastStateId = 0u
+
+    private fun mockState(
+        statement: TestInstruction,
+        pathConstraints: UPathConstraints<Any>,
+        pathNode: PathNode<TestInstruction> = PathNode.root<TestInstruction>() + statement,
+    ): TestState =
+        mockk(relaxed = true) {
+            every { id } returns ++lastStateId
+            every { this@mockk.pathNode } returns pathNode
+            every { this@mockk.ctx } returns this@SubsumptionPathSelectorTests.ctx
+            every { this@mockk.pathConstraints } returns pathConstraints
+            every { this@mockk.memory } returns this@SubsumptionPathSelectorTests.memory
+            every { callStack } returns UCallStack("method")
+            every { targets } returns UTargetsSet.empty()
+            every { currentStatement } returns statement
+            every { isExceptional } returns false
+        }
+
+    private fun SubsumptionPathSelector<*, *, TestState>.drain(): List<TestState> {
+        val selected = mutableListOf<TestState>()
+        while (!isEmpty()) {
+            val state = peek()
+            selected += state
+            remove(state)
+        }
+        return selected
+    }
+
+    @Test
+    fun testSubsumedStateIsDropped() {
+        val weakConstraints = mockPathConstraints()
+        val strongConstraints = mockPathConstraints()
+        every { solver.checkImplication(strongConstraints, weakConstraints) } returns true
+
+        val exploredState = mockState(loopHead, weakConstraints)
+        val subsumedState = mockState(loopHead, strongConstraints)
+        val bodyState = mockState(loopBody, strongConstraints)
+
+        val pathSelector = SubsumptionPathSelector(BfsPathSelector(), loopTracker)
+        pathSelector.add(listOf(exploredState, subsumedState, bodyState))
+
+        assertEquals(listOf(exploredState, bodyState), pathSelector.drain())
+    }
+
+    @Test
+    fun testNotImpliedStateIsKept() {
+        val firstConstraints = mockPathConstraints()
+        val secondConstraints = mockPathConstraints()
+        every { solver.checkImplication(secondConstraints, firstConstraints) } returns false
+
+        val firstState = mockState(loopHead, firstConstraints)
+        val secondState = mockState(loopHead, secondConstraints)
+
+        val pathSelector = SubsumptionPathSelector(BfsPathSelector(), loopTracker)
+        pathSelector.add(listOf(firstState, secondState))
+
+        assertEquals(listOf(firstState, secondState), pathSelector.drain())
+        verify(exactly = 1) { solver.checkImplication(secondConstraints, firstConstraints) }
+    }
+
+    @Test
+    fun testStateReturningToLoopHeadIsKept() {
+        every { solver.checkImplication(any(), any()) } returns true
+        val pathConstraints = mockPathConstraints()
+
+        // The state is mutable, so its path node and the method result are read from these variables
+        var pathNode = PathNode.root<TestInstruction>() + loopHead
+        var hasPendingMethodResult = false
+        val state = mockState(loopHead, pathConstraints)
+        every { state.pathNode } answers { pathNode }
+        every { state.hasPendingMethodResult } answers { hasPendingMethodResult }
+
+        val pathSelector = SubsumptionPathSelector(BfsPathSelector(), loopTracker)
+        pathSelector.add(listOf(state))
+
+        // The state returns to the loop head from a call made there, e.g. `it.hasNext()`
+        pathNode += loopHead
+        hasPendingMethodResult = true
+        pathSelector.update(state)
+        assertFalse(pathSelector.isEmpty())
+
+        // The state enters the loop head again on the next iteration
+        pathNode = pathNode + loopBody + loopHead
+        hasPendingMethodResult = false
+        pathSelector.update(state)
+        assertFalse(pathSelector.isEmpty())
+
+        val forkedState = mockState(loopHead, pathConstraints, pathNode + loopBody + loopHead)
+        val siblingState = mockState(loopHead, pathConstraints)
+        pathSelector.add(listOf(forkedState, siblingState))
+
+        assertEquals(listOf(state, forkedState), pathSelector.drain())
+        verify(exactly = 1) { solver.checkImplication(any(), any()) }
+    }
+}
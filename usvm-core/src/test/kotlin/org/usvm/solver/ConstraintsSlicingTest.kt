@@ -0,0 +1,129 @@
+package org.usvm.solver
+
+import io.ksmt.solver.z3.KZ3Solver
+import io.ksmt.utils.cast
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.usvm.UBv32SizeExprProvider
+import org.usvm.UComponents
+import org.usvm.UComposer
+import org.usvm.UContext
+import org.usvm.USizeSort
+import org.usvm.constraints.UPathConstraints
+import org.usvm.memory.UReadOnlyMemory
+import org.usvm.model.ULazyModelDecoder
+import org.usvm.model.UModelBase
+import org.usvm.types.single.SingleTypeSystem
+import kotlin.test.assertEquals
+import kotlin.test.assertIs
+import kotlin.time.Duration.Companion.INFINITE
+
+private typealias Type = SingleTypeSystem.SingleType
+
+class ConstraintsSlicingTest {
+    private lateinit var ctx: UContext<USizeSort>
+    private lateinit var translator: UExprTranslator<Type, USizeSort>
+    private lateinit var queryCache: UQueryCache
+    private lateinit var solver: USolverBase<Type>
+
+    @BeforeEach
+    fun initialize() {
+        val components: UComponents<Type, USizeSort> = mockk()
+        every { components.mkTypeSystem(any()) } returns SingleTypeSystem
+
+        ctx = UContext(components)
+        every { components.mkSizeExprProvider(any()) } answers { UBv32SizeExprProvider(ctx) }
+        every { components.mkComposer(any()) } answers { { memory: UReadOnlyMemory<Type> -> UComposer(ctx, memory) } }
+        every { components.mkSoftConstraintsProvider(any()) } returns USoftConstraintsProvider<Type, USizeSort>(ctx).cast()
+
+        translator = UExprTranslator(ctx)
+        val decoder = ULazyModelDecoder(translator)
+        val typeSolver = UTypeSolver(SingleTypeSystem)
+
+        queryCache = UQueryCache()
+        solver = USolverBase(
+            ctx,
+            USolverPool.single(KZ3Solver(ctx)),
+            typeSolver,
+            translator,
+            decoder,
+            INFINITE,
+            queryCache = queryCache,
+            constraintsSlicer = UConstraintsSlicer(),
+        )
+    }
+
+    @Test
+    fun testSlicesAreConnectedBySharedReads() = with(ctx) {
+        val x = mkRegisterReading(0, bv16Sort)
+        val y = mkRegisterReading(1, bv16Sort)
+        val z = mkRegisterReading(2, bv16Sort)
+
+        val xy = translator.translate(mkBvSignedLessExpr(x, y))
+        val yBound = translator.translate(mkBvSignedLessExpr(y, mkBv(10.toShort())))
+        val zEq = translator.translate(mkEq(z, mkBv(3.toShort())))
+
+        val slices = UConstraintsSlicer().slice(listOf(xy, zEq, yBound))
+
+        assertEquals(listOf(listOf(xy, yBound), listOf(zEq)), slices.map { it.assertions })
+    }
+
+    @Test
+    fun testDeclarationsCacheIsBounded() = with(ctx) {
+        val x = mkRegisterReading(0, bv16Sort)
+        val y = mkRegisterReading(1, bv16Sort)
+        val z = mkRegisterReading(2, bv16Sort)
+
+        val xy = translator.translate(mkBvSignedLessExpr(x, y))
+        val yBound = translator.translate(mkBvSignedLessExpr(y, mkBv(10.toShort())))
+        val zEq = translator.translate(mkEq(z, mkBv(3.toShort())))
+
+        val slicer = UConstraintsSlicer(cacheSize = 1)
+        repeat(2) {
+            val slices = slicer.slice(listOf(xy, zEq, yBound))
+            assertEquals(listOf(listOf(xy, yBound), listOf(zEq)), slices.map { it.assertions })
+        }
+
+        assertEquals(1, slicer.cacheStatistics().size)
+    }
+
+    @Test
+    fun testOnlyNewSliceIsSolved() = with(ctx) {
+        val x = mkRegisterReading(0, bv16Sort)
+        val y = mkRegisterReading(1, bv16Sort)
+        val z = mkRegisterReading(2, bv16Sort)
+
+        val parent = UPathConstraints<Type>(ctx)
+        parent += mkBvSignedLessExpr(x, y)
+        assertIs<USatResult<*>>(solver.check(parent))
+
+        val child = parent.clone()
+        child += mkEq(z, mkBv(3.toShort()))
+        val result = assertIs<USatResult<*>>(solver.check(child))
+
+        // The merged model satisfies both slices
+        val model: UModelBase<Type> = result.model.cast()
+        assertEquals(mkTrue(), model.eval(mkBvSignedLessExpr(x, y)))
+        assertEquals(mkBv(3.toShort()), model.eval(z))
+
+        val statistics = queryCache.statistics()
+        assertEquals(1, statistics.exactHits)
+        assertEquals(2, statistics.misses)
+    }
+
+    @Test
+    fun testUnsatSliceMakesQueryUnsat() = with(ctx) {
+        val x = mkRegisterReading(0, bv16Sort)
+        val y = mkRegisterReading(1, bv16Sort)
+        val z = mkRegisterReading(2, bv16Sort)
+
+        val pc = UPathConstraints<Type>(ctx)
+        pc += mkEq(z, mkBv(3.toShort()))
+        pc += mkBvSignedLessExpr(x, y)
+        pc += mkEq(y, mkBv(Short.MIN_VALUE))
+
+        assertIs<UUnsatResult<*>>(solver.check(pc))
+    }
+}
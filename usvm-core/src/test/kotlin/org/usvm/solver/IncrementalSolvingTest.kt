@@ -0,0 +1,76 @@
+package org.usvm.solver
+
+import io.ksmt.solver.z3.KZ3Solver
+import io.ksmt.utils.cast
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.usvm.UBv32SizeExprProvider
+import org.usvm.UComponents
+import org.usvm.UComposer
+import org.usvm.UContext
+import org.usvm.USizeSort
+import org.usvm.constraints.UPathConstraints
+import org.usvm.memory.UReadOnlyMemory
+import org.usvm.model.ULazyModelDecoder
+import org.usvm.types.single.SingleTypeSystem
+import kotlin.test.assertEquals
+import kotlin.test.assertIs
+import kotlin.time.Duration.Companion.INFINITE
+
+private typealias Type = SingleTypeSystem.SingleType
+
+class IncrementalSolvingTest {
+    private lateinit var ctx: UContext<USizeSort>
+    private lateinit var solverPool: USolverPool
+    private lateinit var solver: USolverBase<Type>
+
+    @BeforeEach
+    fun initialize() {
+        val components: UComponents<Type, USizeSort> = mockk()
+        every { components.mkTypeSystem(any()) } returns SingleTypeSystem
+
+        ctx = UContext(components)
+        every { components.mkSizeExprProvider(any()) } answers { UBv32SizeExprProvider(ctx) }
+        every { components.mkComposer(any()) } answers { { memory: UReadOnlyMemory<Type> -> UComposer(ctx, memory) } }
+        every { components.mkSoftConstraintsProvider(any()) } returns USoftConstraintsProvider<Type, USizeSort>(ctx).cast()
+
+        val translator = UExprTranslator<Type, USizeSort>(ctx)
+        val decoder = ULazyModelDecoder(translator)
+        val typeSolver = UTypeSolver(SingleTypeSystem)
+
+        solverPool = USolverPool.single(KZ3Solver(ctx))
+        solver = USolverBase(ctx, solverPool, typeSolver, translator, decoder, INFINITE, incremental = true)
+    }
+
+    @Test
+    fun testForkedStatesReuseParentScopes() = with(ctx) {
+        // 16-bit values are not handled by numeric constraints, so path constraints keep them as is
+        val x = mkRegisterReading(0, bv16Sort)
+        val y = mkRegisterReading(1, bv16Sort)
+
+        val parent = UPathConstraints<Type>(ctx)
+        parent += mkBvSignedLessExpr(x, y)
+        assertIs<USatResult<*>>(solver.check(parent))
+        assertEquals(1, assertionsDepth())
+
+        val child = parent.clone()
+        child += mkEq(x, mkBv(5.toShort()))
+        assertIs<USatResult<*>>(solver.check(child))
+        assertEquals(2, assertionsDepth())
+
+        // The sibling scope replaces the child one
+        val sibling = parent.clone()
+        sibling += mkNot(mkEq(x, mkBv(5.toShort())))
+        sibling += mkEq(y, mkBv(Short.MIN_VALUE))
+        assertIs<UUnsatResult<*>>(solver.check(sibling))
+        assertEquals(2, assertionsDepth())
+
+        // Constraints of the sibling must not leak to the parent query
+        assertIs<USatResult<*>>(solver.check(parent))
+        assertEquals(1, assertionsDepth())
+    }
+
+    private fun assertionsDepth(): Int = solverPool.withSolver { solverPool.assertionsStack(it).depth }
+}
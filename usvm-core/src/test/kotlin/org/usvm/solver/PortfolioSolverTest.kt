@@ -0,0 +1,95 @@
+package org.usvm.solver
+
+import io.ksmt.KContext
+import io.ksmt.solver.KSolver
+import io.ksmt.solver.KSolverStatus
+import io.ksmt.solver.yices.KYicesSolver
+import io.ksmt.solver.z3.KZ3Solver
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.Timeout
+import java.util.concurrent.CountDownLatch
+import kotlin.test.assertEquals
+
+class PortfolioSolverTest {
+    private val ctx = KContext()
+    private val statistics = UPortfolioStatistics()
+    private val solvers = mutableListOf<KSolver<*>>()
+
+    @AfterEach
+    fun close() {
+        solvers.forEach(KSolver<*>::close)
+    }
+
+    @Test
+    fun testWinnerAnswersModel() = with(ctx) {
+        val portfolio = UPortfolioSolver(mapOf("Z3" to KZ3Solver(this), "Yices" to KYicesSolver(this)), statistics)
+        solvers += portfolio
+
+        val x = mkConst("x", bv16Sort)
+        portfolio.assert(mkEq(x, mkBv(7.toShort())))
+
+        assertEquals(KSolverStatus.SAT, portfolio.check())
+        assertEquals(mkBv(7.toShort()), portfolio.model().eval(x))
+
+        portfolio.push()
+        portfolio.assert(mkEq(x, mkBv(8.toShort())))
+        assertEquals(KSolverStatus.UNSAT, portfolio.check())
+        portfolio.pop()
+
+        assertEquals(2L, statistics.wins().getValue(UQueryClass.BIT_VECTORS).values.sum())
+    }
+
+    @Test
+    fun testLosersAreInterrupted() = with(ctx) {
+        val interrupted = CountDownLatch(1)
+        val slowSolver = mockk<KSolver<*>>(relaxed = true)
+        every { slowSolver.check(any()) } answers {
+            interrupted.await()
+            KSolverStatus.UNKNOWN
+        }
+        every { slowSolver.interrupt() } answers { interrupted.countDown() }
+
+        val portfolio = UPortfolioSolver(mapOf("Slow" to slowSolver, "Z3" to KZ3Solver(this)), statistics)
+        solvers += portfolio
+
+        portfolio.assert(mkBvSignedLessExpr(mkConst("x", bv16Sort), mkConst("y", bv16Sort)))
+
+        assertEquals(KSolverStatus.SAT, portfolio.check())
+        verify { slowSolver.interrupt() }
+        assertEquals("Z3", statistics.bestBackend(UQueryClass.BIT_VECTORS))
+    }
+
+    @Test
+    @Timeout(10)
+    fun testSlowLoserDoesNotDelayWinner() = with(ctx) {
+        // The slow solver ignores interrupts, so it stops only when the winner has been returned
+        val winnerReturned = CountDownLatch(1)
+        val slowSolver = mockk<KSolver<*>>(relaxed = true)
+        every { slowSolver.check(any()) } answers {
+            winnerReturned.await()
+            KSolverStatus.UNKNOWN
+        }
+
+        val portfolio = UPortfolioSolver(mapOf("Slow" to slowSolver, "Z3" to KZ3Solver(this)), statistics)
+        solvers += portfolio
+
+        val x = mkConst("x", bv16Sort)
+        portfolio.assert(mkBvSignedLessExpr(x, mkConst("y", bv16Sort)))
+
+        try {
+            assertEquals(KSolverStatus.SAT, portfolio.check())
+        } finally {
+            winnerReturned.countDown()
+        }
+
+        // The next assertion waits for the loser, so both solvers get it
+        val assertion = mkEq(x, mkBv(1.toShort()))
+        portfolio.assert(assertion)
+        verify { slowSolver.assert(assertion) }
+        assertEquals(KSolverStatus.SAT, portfolio.check())
+    }
+}
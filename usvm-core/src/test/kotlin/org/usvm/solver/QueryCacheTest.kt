@@ -0,0 +1,151 @@
+package org.usvm.solver
+
+import io.ksmt.expr.KBitVec16Value
+import io.ksmt.solver.KModel
+import io.ksmt.solver.z3.KZ3Solver
+import io.ksmt.utils.cast
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.usvm.UBv32SizeExprProvider
+import org.usvm.UComponents
+import org.usvm.UComposer
+import org.usvm.UContext
+import org.usvm.USizeSort
+import org.usvm.constraints.UPathConstraints
+import org.usvm.memory.UReadOnlyMemory
+import org.usvm.model.UModelBase
+import org.usvm.model.ULazyModelDecoder
+import org.usvm.types.single.SingleTypeSystem
+import kotlin.test.assertEquals
+import kotlin.test.assertIs
+import kotlin.time.Duration.Companion.INFINITE
+
+private typealias Type = SingleTypeSystem.SingleType
+
+class QueryCacheTest {
+    private lateinit var ctx: UContext<USizeSort>
+    private lateinit var queryCache: UQueryCache
+    private lateinit var solver: USolverBase<Type>
+
+    @BeforeEach
+    fun initialize() {
+        val components: UComponents<Type, USizeSort> = mockk()
+        every { components.mkTypeSystem(any()) } returns SingleTypeSystem
+
+        ctx = UContext(components)
+        every { components.mkSizeExprProvider(any()) } answers { UBv32SizeExprProvider(ctx) }
+        every { components.mkComposer(any()) } answers { { memory: UReadOnlyMemory<Type> -> UComposer(ctx, memory) } }
+        every { components.mkSoftConstraintsProvider(any()) } returns USoftConstraintsProvider<Type, USizeSort>(ctx).cast()
+        every { components.buildTranslatorAndLazyDecoder<UContext<USizeSort>>(any()) } answers {
+            val translator = UExprTranslator<Type, USizeSort>(ctx)
+            translator to ULazyModelDecoder(translator)
+        }
+
+        val translator = UExprTranslator<Type, USizeSort>(ctx)
+        val decoder = ULazyModelDecoder(translator)
+        val typeSolver = UTypeSolver(SingleTypeSystem)
+
+        queryCache = UQueryCache()
+        solver = USolverBase(
+            ctx,
+            USolverPool.single(KZ3Solver(ctx)),
+            typeSolver,
+            translator,
+            decoder,
+            INFINITE,
+            queryCache = queryCache,
+        )
+    }
+
+    @Test
+    fun testRepeatedQueryIsCached() = with(ctx) {
+        val x = mkRegisterReading(0, bv16Sort)
+        val y = mkRegisterReading(1, bv16Sort)
+
+        val pc = UPathConstraints<Type>(ctx)
+        pc += mkBvSignedLessExpr(x, y)
+
+        assertIs<USatResult<*>>(solver.check(pc))
+        assertIs<USatResult<*>>(solver.check(pc.clone()))
+
+        val statistics = queryCache.statistics()
+        assertEquals(1, statistics.misses)
+        assertEquals(1, statistics.exactHits)
+    }
+
+    @Test
+    fun testDetachedModelOfCachedQuery() = with(ctx) {
+        val x = mkRegisterReading(0, bv16Sort)
+        val y = mkRegisterReading(1, bv16Sort)
+
+        val pc = UPathConstraints<Type>(ctx)
+        pc += mkEq(x, mkBv(5.toShort()))
+        pc += mkBvSignedLessExpr(x, y)
+        assertIs<USatResult<*>>(solver.check(pc))
+
+        val result = assertIs<USatResult<UModelBase<Type>>>(solver.checkDetached(pc.clone()))
+        assertEquals(1, queryCache.statistics().exactHits)
+        assertEquals(mkBv(5.toShort()), result.model.eval(x))
+        assertIs<KBitVec16Value>(result.model.eval(y))
+    }
+
+    @Test
+    fun testUnsatSubsetIsDetected() = with(ctx) {
+        val x = mkRegisterReading(0, bv16Sort)
+        val y = mkRegisterReading(1, bv16Sort)
+        val z = mkRegisterReading(2, bv16Sort)
+
+        val unsat = UPathConstraints<Type>(ctx)
+        unsat += mkBvSignedLessExpr(x, y)
+        unsat += mkEq(y, mkBv(Short.MIN_VALUE))
+        assertIs<UUnsatResult<*>>(solver.check(unsat))
+
+        val extended = unsat.clone()
+        extended += mkEq(z, mkBv(1.toShort()))
+        assertIs<UUnsatResult<*>>(solver.check(extended))
+
+        assertEquals(1, queryCache.statistics().unsatSupersetHits)
+    }
+
+    @Test
+    fun testRecentModelIsReused() = with(ctx) {
+        val x = mkRegisterReading(0, bv16Sort)
+        val y = mkRegisterReading(1, bv16Sort)
+
+        val pc = UPathConstraints<Type>(ctx)
+        pc += mkEq(x, mkBv(5.toShort()))
+        pc += mkEq(y, mkBv(7.toShort()))
+        assertIs<USatResult<*>>(solver.check(pc))
+
+        // A different query which is satisfied by the model of the previous one
+        val weaker = UPathConstraints<Type>(ctx)
+        weaker += mkBvSignedLessExpr(x, y)
+        assertIs<USatResult<*>>(solver.check(weaker))
+
+        assertEquals(1, queryCache.statistics().modelReuseHits)
+    }
+
+    @Test
+    fun testIndexedLookups() = with(ctx) {
+        val cache = UQueryCache(maxSize = 2)
+        val a = mkConst("a", boolSort)
+        val b = mkConst("b", boolSort)
+        val c = mkConst("c", boolSort)
+        val model = mockk<KModel>()
+
+        cache.addSat(setOf(a, b, c), model)
+        assertIs<USatResult<*>>(cache.lookup(setOf(b, c)))
+        assertEquals(null, cache.lookup(setOf(a, mkNot(b))))
+
+        cache.addUnsat(setOf(mkNot(a), b))
+        assertIs<UUnsatResult<*>>(cache.lookup(setOf(c, mkNot(a), b)))
+
+        // Evicts the first satisfiable query, which is the least recently used one
+        cache.addSat(setOf(a, mkNot(b)), model)
+        cache.addSat(setOf(mkNot(a), c), model)
+        assertEquals(null, cache.lookup(setOf(b, c)))
+        assertIs<USatResult<*>>(cache.lookup(setOf(mkNot(b))))
+    }
+}
@@ -20,7 +20,10 @@ import org.usvm.memory.UReadOnlyMemory
 import org.usvm.model.ULazyModelDecoder
 import org.usvm.sizeSort
 import org.usvm.types.single.SingleTypeSystem
+import kotlin.test.assertEquals
+import kotlin.test.assertIs
 import kotlin.test.assertSame
+import kotlin.test.assertTrue
 import kotlin.time.Duration.Companion.INFINITE
 
 private typealias Type = SingleTypeSystem.SingleType
@@ -149,6 +152,48 @@ open class SoftConstraintsTest {
         assertSame(size.toBv(), value)
     }
 
+    @Test
+    fun testUnsatCoresAreReused() = with(ctx) {
+        val softConstraintsCores = USoftConstraintsCores()
+        val typeSolver = UTypeSolver(SingleTypeSystem)
+        val solver = USolverBase(
+            ctx,
+            USolverPool.single(KZ3Solver(ctx)),
+            typeSolver,
+            translator,
+            decoder,
+            timeout = INFINITE,
+            softConstraintsCores = softConstraintsCores,
+        )
+
+        val arrayType = IntArray::class
+        val inputRef = mkRegisterReading(0, addressSort)
+        val secondInputRef = mkRegisterReading(1, addressSort)
+        val region = UInputArrayLengthId(arrayType, sizeSort)
+            .emptyRegion()
+            .write(inputRef, mkRegisterReading(3, sizeSort), guard = trueExpr)
+
+        val size = 25
+
+        // The soft constraints of the array length conflict with its value
+        val pc = UPathConstraints<Type>(ctx)
+        pc += region.read(secondInputRef) eq size.toBv()
+        pc += inputRef eq secondInputRef
+        pc += (inputRef eq nullRef).not()
+
+        val softConstraints = softConstraintsProvider.makeSoftConstraints(pc)
+        assertIs<USatResult<*>>(solver.checkWithSoftConstraints(pc, softConstraints))
+        assertTrue(softConstraintsCores.statistics().size > 0)
+
+        val extendedPc = pc.clone()
+        extendedPc += mkBvSignedLessOrEqualExpr(mkRegisterReading(4, bv32Sort), 0.toBv())
+
+        val extendedSoftConstraints = softConstraintsProvider.makeSoftConstraints(extendedPc)
+        val result = solver.checkWithSoftConstraints(extendedPc, extendedSoftConstraints) as USatResult
+        assertEquals(1, softConstraintsCores.statistics().hits)
+        assertSame(size.toBv(), result.model.eval(mkInputArrayLengthReading(region, inputRef)))
+    }
+
     @Test
     fun testUnsatCore() = with(ctx) {
         val arrayType = IntArray::class
@@ -0,0 +1,74 @@
+package org.usvm.solver
+
+import io.ksmt.solver.KSolver
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CountDownLatch
+import kotlin.concurrent.thread
+import kotlin.test.assertEquals
+import kotlin.test.assertSame
+
+class SolverPoolTest {
+    @Test
+    fun testSolverIsReused() {
+        var created = 0
+        val pool = USolverPool(maxSize = 2) { created++; mockk(relaxed = true) }
+
+        val fst = pool.lease()
+        pool.release(fst)
+        val snd = pool.lease()
+        pool.release(snd)
+
+        assertSame(fst, snd)
+        assertEquals(1, created)
+
+        val statistics = pool.statistics()
+        assertEquals(1, statistics.size)
+        assertEquals(0, statistics.leased)
+        assertEquals(2L, statistics.totalLeases)
+    }
+
+    @Test
+    fun testLeaseWaitsWhenPoolIsFull() {
+        val pool = USolverPool(maxSize = 1) { mockk(relaxed = true) }
+
+        val leased = pool.lease()
+        val waiterStarted = CountDownLatch(1)
+        var secondLeased: KSolver<*>? = null
+
+        val waiter = thread {
+            waiterStarted.countDown()
+            secondLeased = pool.lease()
+        }
+
+        waiterStarted.await()
+        // Give the waiter a chance to block on the full pool
+        Thread.sleep(100)
+        pool.release(leased)
+        waiter.join()
+
+        assertSame(leased, secondLeased)
+        assertEquals(1, pool.statistics().size)
+        assertEquals(1, pool.statistics().peakLeased)
+    }
+
+    @Test
+    fun testCloseClosesSolvers() {
+        val idleSolver: KSolver<*> = mockk(relaxed = true)
+        val leasedSolver: KSolver<*> = mockk(relaxed = true)
+        val solvers = ArrayDeque(listOf(idleSolver, leasedSolver))
+        val pool = USolverPool(maxSize = 2) { solvers.removeFirst() }
+
+        val fst = pool.lease()
+        val snd = pool.lease()
+        pool.release(fst)
+
+        pool.close()
+        verify(exactly = 1) { idleSolver.close() }
+        verify(exactly = 0) { leasedSolver.close() }
+
+        pool.release(snd)
+        verify(exactly = 1) { leasedSolver.close() }
+    }
+}
@@ -37,6 +37,7 @@ import org.usvm.mkSizeExpr
 import org.usvm.memory.key.USizeExprKeyInfo
 import org.usvm.sizeSort
 import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
 import kotlin.test.assertSame
 
 class TranslationTest {
@@ -476,4 +477,62 @@ class TranslationTest {
 
         assertEquals(4, ctx.storeCallCounter)
     }
+
+    @Test
+    fun testTranslationCacheIsBounded() = with(ctx) {
+        val boundedTranslator = UExprTranslator<Type, USizeSort>(ctx, cacheSize = 2)
+        val registers = (0..2).map { mkRegisterReading(it, sizeSort) }
+
+        registers.forEach { boundedTranslator.translate(it) }
+        boundedTranslator.translate(registers[2])
+        val translated = boundedTranslator.translate(registers[0])
+
+        assertSame(translator.translate(registers[0]), translated)
+        assertEquals(
+            UCacheStatistics(size = 2, hits = 1, misses = 4, evictions = 2),
+            boundedTranslator.cacheStatistics()
+        )
+    }
+
+    @Test
+    fun testNewCacheEpochDropsTranslations() = with(ctx) {
+        val register = mkRegisterReading(0, sizeSort)
+        val translated = translator.translate(register)
+
+        startNewCacheEpoch()
+
+        assertSame(translated, translator.translate(register))
+        assertEquals(UCacheStatistics(size = 1, hits = 0, misses = 2, evictions = 0), translator.cacheStatistics())
+    }
+
+    @Test
+    fun testIsExprIsTranslatedToTheSameConstAfterCacheReset() = with(ctx) {
+        val boundedTranslator = UExprTranslator<Type, USizeSort>(ctx, cacheSize = 1)
+        val isExpr = mkIsSubtypeExpr(mkRegisterReading(0, addressSort), mockk<Type>())
+
+        val translated = boundedTranslator.translate(isExpr)
+        // Evicts the is-expression and resets the cache of subexpressions
+        (1..2).forEach { boundedTranslator.translate(mkRegisterReading(it, sizeSort)) }
+
+        assertSame(translated, boundedTranslator.translate(isExpr))
+        assertEquals(1, boundedTranslator.declToIsExpr.size)
+    }
+
+    @Test
+    fun testNewCacheEpochDropsIsExprsAndRegionDecoders() = with(ctx) {
+        val ref = mkRegisterReading(0, addressSort)
+        val fieldReading = UInputFieldId(mockk<Field>(), bv32Sort).emptyRegion().read(ref)
+        val isExpr = mkIsSubtypeExpr(ref, mockk<Type>())
+
+        val translated = translator.translate(isExpr)
+        translator.translate(fieldReading)
+        assertEquals(1, translator.regionIdToDecoder.size)
+
+        startNewCacheEpoch()
+
+        // Consts of is-expressions are named uniquely across epochs
+        assertNotEquals(translated, translator.translate(isExpr))
+        assertEquals(setOf(isExpr), translator.declToIsExpr.values.toSet())
+        assertEquals(0, translator.regionIdToDecoder.size)
+    }
 }
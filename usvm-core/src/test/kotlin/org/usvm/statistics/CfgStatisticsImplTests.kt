@@ -0,0 +1,75 @@
+package org.usvm.statistics
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import org.usvm.algorithms.findMinDistancesInUnweightedGraph
+import org.usvm.appGraph
+import org.usvm.statistics.distances.CfgStatisticsImpl
+import kotlin.test.assertEquals
+
+class CfgStatisticsImplTests {
+    private val graph = appGraph {
+        method("A", 10) {
+            entryPoint(0)
+            edge(0, 1)
+            edge(0, 2)
+            edge(1, 3)
+            edge(2, 3)
+            bidirectionalEdge(3, 4)
+            edge(4, 5)
+            edge(5, 1)
+            edge(4, 6)
+            exitPoint(6)
+            edge(2, 7)
+            exitPoint(7)
+            // 8 and 9 are unreachable from the entry point
+            edge(8, 9)
+        }
+
+        method("B", 3) {
+            entryPoint(0)
+            edge(0, 1)
+            exitPoint(1)
+            edge(2, 2)
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = [false, true])
+    fun `Distances match breadth-first search`(precompute: Boolean) {
+        // The budget is enough for the matrix of B only, A is too large to be precomputed anyway
+        val cfgStatistics = CfgStatisticsImpl(graph, denseMatrixLimit = 5, precomputedDistancesLimit = 9)
+        // Distances are queried while they are precomputed in the background
+        val precomputation = if (precompute) cfgStatistics.precompute(listOf("A", "B")) else null
+
+        for (method in listOf("A", "B")) {
+            val statements = graph.statementsOf(method).toList()
+            val exitPoints = graph.exitPoints(method).toSet()
+            for (from in statements) {
+                val expectedDistances = findMinDistancesInUnweightedGraph(from, graph::successors)
+                for (to in statements) {
+                    assertEquals(
+                        expectedDistances[to] ?: UInt.MAX_VALUE,
+                        cfgStatistics.getShortestDistance(method, from, to)
+                    )
+                }
+
+                val expectedDistanceToExit = expectedDistances
+                    .filterKeys(exitPoints::contains)
+                    .minOfOrNull { it.value } ?: UInt.MAX_VALUE
+                assertEquals(expectedDistanceToExit, cfgStatistics.getShortestDistanceToExit(method, from))
+            }
+        }
+        precomputation?.join()
+    }
+
+    @Test
+    fun `Each method is charged to the budget once`() {
+        val cfgStatistics = CfgStatisticsImpl(graph, denseMatrixLimit = 5, precomputedDistancesLimit = 10)
+        // E.g. the same coverage zone is passed by every analysis
+        repeat(3) { cfgStatistics.precompute(listOf("A", "B")).join() }
+
+        assertEquals(1L, cfgStatistics.remainingPrecomputedDistances)
+    }
+}
@@ -0,0 +1,97 @@
+package org.usvm.statistics
+
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.jupiter.api.Test
+import org.usvm.PathNode
+import org.usvm.TestInstruction
+import org.usvm.TestState
+import org.usvm.appGraph
+import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
+
+internal class CoverageStatisticsTests {
+    private val applicationGraph = appGraph {
+        method("A", 4) {
+            entryPoint(0)
+            edge(0, 1)
+            edge(1, 2)
+            edge(1, 3)
+            exitPoint(2)
+            exitPoint(3)
+        }
+        method("B", 2) {
+            entryPoint(0)
+            edge(0, 1)
+            exitPoint(1)
+        }
+        method("C", 1) {
+            entryPoint(0)
+            exitPoint(0)
+        }
+    }
+
+    private fun stateWithPath(pathNode: PathNode<TestInstruction>): TestState {
+        val state = mockk<TestState>()
+        every { state.pathNode } returns pathNode
+        return state
+    }
+
+    private fun PathNode<TestInstruction>.then(method: String, vararg offsets: Int) =
+        offsets.fold(this) { node, offset -> node + TestInstruction(method, offset) }
+
+    @Test
+    fun testSharedPrefixIsCoveredOnce() {
+        val coverageStatistics = CoverageStatistics<String, TestInstruction, TestState>(setOf("A"), applicationGraph)
+        val covered = mutableListOf<TestInstruction>()
+        coverageStatistics.addOnCoveredObserver { _, _, statement -> covered += statement }
+
+        val prefix = PathNode.root<TestInstruction>().then("A", 0, 1)
+        coverageStatistics.onStateTerminated(stateWithPath(prefix.then("A", 2)), stateReachable = true)
+        assertEquals(75f, coverageStatistics.getMethodCoverage("A"))
+
+        coverageStatistics.onStateTerminated(stateWithPath(prefix.then("A", 3)), stateReachable = true)
+        assertEquals(100f, coverageStatistics.getTotalCoverage())
+        assertEquals(4, coverageStatistics.getTotalCoveredStatements())
+        assertEquals(
+            listOf(TestInstruction("A", 2), TestInstruction("A", 1), TestInstruction("A", 0), TestInstruction("A", 3)),
+            covered
+        )
+    }
+
+    @Test
+    fun testNewZoneCountsAlreadyTerminatedPaths() {
+        val coverageStatistics = CoverageStatistics<String, TestInstruction, TestState>(setOf("A"), applicationGraph)
+
+        val path = PathNode.root<TestInstruction>().then("A", 0).then("B", 0, 1).then("A", 1, 2)
+        coverageStatistics.onStateTerminated(stateWithPath(path), stateReachable = true)
+        assertEquals(listOf(TestInstruction("A", 3)), coverageStatistics.getUncoveredStatements().toList())
+
+        coverageStatistics.addCoverageZone("B")
+        val sibling = PathNode.root<TestInstruction>().then("A", 0).then("B", 0).then("A", 3)
+        coverageStatistics.onStateTerminated(stateWithPath(sibling), stateReachable = true)
+        coverageStatistics.onStateTerminated(stateWithPath(path), stateReachable = true)
+
+        assertEquals(100f, coverageStatistics.getMethodCoverage("B"))
+        assertEquals(100f, coverageStatistics.getTotalCoverage())
+    }
+
+    @Test
+    fun testUnvisitedZoneKeepsAccountedPaths() {
+        val coverageStatistics = CoverageStatistics<String, TestInstruction, TestState>(setOf("A"), applicationGraph)
+
+        val path = PathNode.root<TestInstruction>().then("A", 0).then("B", 0, 1).then("A", 1, 2)
+        coverageStatistics.onStateTerminated(stateWithPath(path), stateReachable = true)
+        val mark = path.coverageMark
+
+        // No accounted path visits C, so the accounted paths are not walked again
+        coverageStatistics.addCoverageZone("C")
+        coverageStatistics.onStateTerminated(stateWithPath(path), stateReachable = true)
+        assertEquals(mark, path.coverageMark)
+
+        coverageStatistics.addCoverageZone("B")
+        coverageStatistics.onStateTerminated(stateWithPath(path), stateReachable = true)
+        assertNotEquals(mark, path.coverageMark)
+        assertEquals(100f, coverageStatistics.getMethodCoverage("B"))
+    }
+}
@@ -23,6 +23,7 @@ import org.usvm.isFalse
 import org.usvm.isTrue
 import org.usvm.memory.UMemory
 import org.usvm.memory.UReadOnlyMemory
+import org.usvm.merging.MutableMergeGuard
 import org.usvm.model.ULazyModelDecoder
 import org.usvm.model.UModelBase
 import org.usvm.solver.TypeSolverQuery
@@ -53,6 +54,7 @@ import org.usvm.types.system.top
 import kotlin.test.assertEquals
 import kotlin.test.assertIs
 import kotlin.test.assertNotEquals
+import kotlin.test.assertNotNull
 import kotlin.test.assertTrue
 import kotlin.time.Duration.Companion.INFINITE
 
@@ -515,6 +517,55 @@ class TypeSolverTest {
 
     }
 
+    @Test
+    fun `Test symbolic ref -- checked clusters are reused across queries`(): Unit = with(ctx) {
+        val a = mkRegisterReading(0, addressSort)
+        val b = mkRegisterReading(1, addressSort)
+
+        pc += mkHeapRefEq(a, nullRef).not() and mkHeapRefEq(b, nullRef).not()
+        pc += mkIsSubtypeExpr(a, base1)
+        pc += mkIsSubtypeExpr(b, base2)
+
+        val model = mockk<UModelBase<TestType>> {
+            every { eval(a) } returns mkConcreteHeapRef(INITIAL_INPUT_ADDRESS)
+            every { eval(b) } returns mkConcreteHeapRef(INITIAL_INPUT_ADDRESS)
+        }
+        val query = TypeSolverQuery(
+            inputToConcrete = { model.eval(it) as UConcreteHeapRef },
+            inputRefToTypeRegion = pc.typeConstraints.inputRefToTypeRegion,
+            isExprToInterpretation = emptyList(),
+        )
+
+        val firstResult = assertIs<UTypeUnsatResult<TestType>>(typeSolver.check(query))
+        val hitsBefore = typeSolver.clusterCacheStatistics().hits
+
+        val secondResult = assertIs<UTypeUnsatResult<TestType>>(typeSolver.check(query))
+        assertEquals(hitsBefore + 1, typeSolver.clusterCacheStatistics().hits)
+        assertEquals(firstResult.conflictLemmas, secondResult.conflictLemmas)
+    }
+
+    @Test
+    fun `Test symbolic ref -- merged type constraints keep constraints of both paths`(): Unit = with(ctx) {
+        val ref = mkRegisterReading(0, addressSort)
+        pc += mkHeapRefEq(ref, nullRef).not()
+        val otherPc = pc.clone()
+        pc += mkIsSubtypeExpr(ref, base1)
+        otherPc += mkIsSubtypeExpr(ref, base2)
+
+        val mergeGuard = MutableMergeGuard(ctx)
+        val mergedPc = assertNotNull(pc.mergeWith(otherPc, mergeGuard))
+        mergedPc += mkOr(mergeGuard.thisConstraint, mergeGuard.otherConstraint)
+
+        val base1Pc = mergedPc.clone().apply { this += mkIsSubtypeExpr(ref, base1) }
+        assertIs<USatResult<UModelBase<TestType>>>(solver.check(base1Pc))
+        val base2Pc = mergedPc.clone().apply { this += mkIsSubtypeExpr(ref, base2) }
+        assertIs<USatResult<UModelBase<TestType>>>(solver.check(base2Pc))
+
+        mergedPc += mkIsSubtypeExpr(ref, base1).not()
+        mergedPc += mkIsSubtypeExpr(ref, base2).not()
+        assertIs<UUnsatResult<UModelBase<TestType>>>(solver.check(mergedPc))
+    }
+
     private fun <T> UTypeStream<T>.take100AndAssertEqualsToSetOf(vararg elements: T) {
         val set = elements.toSet()
         val result = take(100)
@@ -3,6 +3,7 @@ package org.usvm.machine
 import org.jacodb.api.JcMethod
 import org.jacodb.api.JcType
 import org.jacodb.api.ext.toType
+import org.usvm.algorithms.ReachabilityIndex
 import org.usvm.algorithms.limitedBfsTraversal
 import org.usvm.statistics.distances.CallGraphStatistics
 import org.usvm.types.TypesResult
@@ -17,6 +18,7 @@ import java.util.concurrent.ConcurrentHashMap
  *
  * @param depthLimit depthLimit methods which are reachable via paths longer than this value are
  * not considered (i.e. 1 means that the target method should be directly called from source method).
+ * [UInt.MAX_VALUE] means no limit, then the queries are answered by the [ReachabilityIndex] of the call graph.
  * @param applicationGraph [JcApplicationGraph] used to get callees info.
  * @param typeStream [UTypeStream] used to resolve method overrides.
  * @param subclassesToTake only method overrides from [subclassesToTake] first subtypes returned by [typeStream] are
@@ -30,6 +32,7 @@ class JcCallGraphStatistics(
 ) : CallGraphStatistics<JcMethod> {
 
     private val cache = ConcurrentHashMap<JcMethod, Set<JcMethod>>()
+    private val reachabilityIndex = ReachabilityIndex<JcMethod> { getCallees(it).asSequence() }
 
     private fun getCallees(method: JcMethod): Set<JcMethod> {
         val callees = mutableSetOf<JcMethod>()
@@ -66,9 +69,13 @@ class JcCallGraphStatistics(
         return callees + overrides
     }
 
-    override fun checkReachability(methodFrom: JcMethod, methodTo: JcMethod): Boolean =
-        cache.computeIfAbsent(methodFrom) {
+    override fun checkReachability(methodFrom: JcMethod, methodTo: JcMethod): Boolean {
+        if (depthLimit == UInt.MAX_VALUE) {
+            return reachabilityIndex.isReachable(methodFrom, methodTo)
+        }
+        return cache.computeIfAbsent(methodFrom) {
             // TODO: stop traversal on reaching methodTo and cache remaining elements
             limitedBfsTraversal(listOf(methodFrom), depthLimit, adjacentVertices = { getCallees(it).asSequence() }).toSet()
         }.contains(methodTo)
+    }
 }
@@ -1,6 +1,8 @@
 package org.usvm.machine
 
 import org.jacodb.api.JcType
+import org.usvm.NoSolverStateForker
+import org.usvm.StateForker
 import org.usvm.UBv32SizeExprProvider
 import org.usvm.UComponents
 import org.usvm.UComposer
@@ -9,10 +11,17 @@ import org.usvm.UMachineOptions
 import org.usvm.USizeExprProvider
 import org.usvm.memory.UReadOnlyMemory
 import org.usvm.model.ULazyModelDecoder
+import org.usvm.solver.UConstraintsSlicer
 import org.usvm.solver.UExprTranslator
+import org.usvm.solver.UPortfolioStatistics
+import org.usvm.solver.UQueryCache
+import org.usvm.solver.USoftConstraintsCores
 import org.usvm.solver.USoftConstraintsProvider
 import org.usvm.solver.USolverBase
+import org.usvm.solver.USolverPool
+import org.usvm.solver.USolverPoolStatistics
 import org.usvm.solver.UTypeSolver
+import java.util.Collections
 import kotlin.time.Duration
 
 class JcComponents(
@@ -20,9 +29,14 @@ class JcComponents(
     // TODO specific JcMachineOptions should be here
     private val options: UMachineOptions,
 ) : UComponents<JcType, USizeSort> {
-    private val closeableResources = mutableListOf<AutoCloseable>()
+    // Solvers are requested lazily by every machine worker thread
+    private val closeableResources = Collections.synchronizedList(mutableListOf<AutoCloseable>())
     override val useSolverForForks: Boolean get() = options.useSolverForForks
 
+    // Forked states are checked by the machine in the background, see FeasibilityCheckingPathSelector
+    override fun mkStatesForkProvider(): StateForker =
+        if (options.checkForksAsynchronously) NoSolverStateForker else super.mkStatesForkProvider()
+
     override fun <Context : UContext<USizeSort>> buildTranslatorAndLazyDecoder(
         ctx: Context,
     ): Pair<UExprTranslator<JcType, USizeSort>, ULazyModelDecoder<JcType>> {
@@ -37,20 +51,66 @@ class JcComponents(
     ): (UReadOnlyMemory<JcType>) -> UComposer<JcType, USizeSort> =
         { memory: UReadOnlyMemory<JcType> -> JcComposer(ctx, memory) }
 
+    private var solverPool: USolverPool? = null
+    private var solverFactory: SolverFactory? = null
+
+    /**
+     * Returns the pool of SMT solvers shared between all [USolverBase]s of the [ctx].
+     */
+    @Synchronized
+    private fun solverPool(ctx: UContext<USizeSort>): USolverPool =
+        solverPool ?: run {
+            val solverFactory = SolverFactory.mkFactory(options.runSolverInAnotherProcess)
+            // Background fork checkers must not wait for the solvers of the stepping threads
+            val forkCheckers = if (options.checkForksAsynchronously) options.forkCheckingThreads else 0
+            val pool = USolverPool(options.solverPoolSize + forkCheckers) {
+                solverFactory.mkSolver(ctx, options.solverType)
+            }
+            // The pool must be closed before the factory
+            closeableResources += pool
+            closeableResources += solverFactory
+            solverPool = pool
+            this.solverFactory = solverFactory
+            pool
+        }
+
+    /**
+     * Returns the occupancy of the solver pool or `null` if no solver has been requested yet.
+     */
+    @Synchronized
+    fun solverPoolStatistics(): USolverPoolStatistics? = solverPool?.statistics()
+
+    /**
+     * Returns the winners of the portfolio solvers or `null` if no solver has been requested yet.
+     */
+    @Synchronized
+    fun portfolioStatistics(): UPortfolioStatistics? = solverFactory?.portfolioStatistics
+
     override fun <Context : UContext<USizeSort>> mkSolver(ctx: Context): USolverBase<JcType> {
         val (translator, decoder) = buildTranslatorAndLazyDecoder(ctx)
 
-        val solverFactory = SolverFactory.mkFactory(options.runSolverInAnotherProcess)
-        val smtSolver = solverFactory.mkSolver(ctx, options.solverType)
         val typeSolver = UTypeSolver(typeSystem)
-        closeableResources += smtSolver
-        closeableResources += solverFactory
 
-        return USolverBase(ctx, smtSolver, typeSolver, translator, decoder, options.solverTimeout)
+        return USolverBase(
+            ctx,
+            solverPool(ctx),
+            typeSolver,
+            translator,
+            decoder,
+            options.solverTimeout,
+            options.useIncrementalSolving,
+            if (options.useQueryCache || options.useConstraintsSlicing) UQueryCache() else null,
+            if (options.useConstraintsSlicing) UConstraintsSlicer() else null,
+            if (options.useSoftConstraints) USoftConstraintsCores() else null,
+            // The pool is shared by the solvers of all the threads and closed in [close]
+            ownsSolverPool = false,
+        )
     }
 
     fun close() {
-        closeableResources.forEach(AutoCloseable::close)
+        synchronized(closeableResources) {
+            closeableResources.forEach(AutoCloseable::close)
+        }
     }
 
     override fun mkTypeSystem(ctx: UContext<USizeSort>): JcTypeSystem {
@@ -7,9 +7,11 @@ import org.jacodb.api.cfg.JcInst
 import org.jacodb.api.ext.humanReadableSignature
 import org.jacodb.api.ext.methods
 import org.usvm.CoverageZone
+import org.usvm.PathSelectionStrategy
 import org.usvm.StateCollectionStrategy
 import org.usvm.UMachine
 import org.usvm.UMachineOptions
+import org.usvm.UPathSelector
 import org.usvm.api.targets.JcTarget
 import org.usvm.forkblacklists.TargetsReachableForkBlackList
 import org.usvm.forkblacklists.UForkBlackList
@@ -17,6 +19,8 @@ import org.usvm.machine.interpreter.JcInterpreter
 import org.usvm.machine.state.JcMethodResult
 import org.usvm.machine.state.JcState
 import org.usvm.machine.state.lastStmt
+import org.usvm.ps.FeasibilityCheckingPathSelector
+import org.usvm.ps.ParallelPathSelector
 import org.usvm.ps.createPathSelector
 import org.usvm.statistics.CompositeUMachineObserver
 import org.usvm.statistics.CoverageStatistics
@@ -37,27 +41,36 @@ import org.usvm.statistics.distances.MultiTargetDistanceCalculator
 import org.usvm.statistics.distances.PlainCallGraphStatistics
 import org.usvm.stopstrategies.createStopStrategy
 import org.usvm.util.originalInst
+import java.util.concurrent.CancellationException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executors
 
 val logger = object : KLogging() {}.logger
 
 class JcMachine(
-    cp: JcClasspath,
+    private val cp: JcClasspath,
     private val options: UMachineOptions,
     private val jcMachineOptions: JcMachineOptions = JcMachineOptions(),
     private val interpreterObserver: JcInterpreterObserver? = null,
 ) : UMachine<JcState>() {
     private val applicationGraph = JcApplicationGraph(cp)
 
-    private val typeSystem = JcTypeSystem(cp, options.typeOperationsTimeout)
-    private val components = JcComponents(typeSystem, options)
-    private val ctx = JcContext(cp, components)
+    private val typeSystem = JcTypeSystem(cp, options.typeOperationsTimeout, jcMachineOptions.subtypeIndexCacheDir)
 
-    private val interpreter = JcInterpreter(ctx, applicationGraph, jcMachineOptions, interpreterObserver)
+    private var scope = AnalysisScope()
+    private val ctx get() = scope.ctx
+    private val interpreter get() = scope.interpreter
 
     private val cfgStatistics = CfgStatisticsImpl(applicationGraph)
+    private val cfgPrecomputations = mutableListOf<CompletableFuture<Void>>()
 
     fun analyze(methods: List<JcMethod>, targets: List<JcTarget> = emptyList()): List<JcState> {
         logger.debug("{}.analyze({})", this, methods)
+        recycleScopeIfNeeded()
+        scope.analyzedMethods += methods.size
+        // Expressions of the previously analyzed methods are unlikely to be translated again
+        ctx.startNewCacheEpoch()
+
         val initialStates = mutableMapOf<JcMethod, JcState>()
         methods.forEach {
             initialStates[it] = interpreter.getInitialState(it, targets)
@@ -75,6 +88,14 @@ class JcMachine(
                 }.toSet() + methods
             }
 
+        val closestToUncoveredStrategies =
+            setOf(PathSelectionStrategy.CLOSEST_TO_UNCOVERED, PathSelectionStrategy.CLOSEST_TO_UNCOVERED_RANDOM)
+        if (options.pathSelectionStrategies.any { it in closestToUncoveredStrategies }) {
+            // Distances to the uncovered statements are queried for every state, so calculate them in advance.
+            // It runs in the background, so the analysis doesn't wait for it
+            precomputeCfgDistances(methodsToTrackCoverage)
+        }
+
         val coverageStatistics: CoverageStatistics<JcMethod, JcInst, JcState> = CoverageStatistics(
             methodsToTrackCoverage,
             applicationGraph
@@ -96,8 +117,8 @@ class JcMachine(
         val timeStatistics = TimeStatistics<JcMethod, JcState>()
         val loopTracker = JcLoopTracker()
 
-        val pathSelector = createPathSelector(
-            initialStates,
+        fun createWorkerPathSelector(states: Map<JcMethod, JcState>) = createPathSelector(
+            states,
             options,
             applicationGraph,
             timeStatistics,
@@ -107,6 +128,18 @@ class JcMachine(
             { loopTracker }
         )
 
+        // Every worker gets its own path selector over its own share of entrypoints, the others help them
+        val selectorsCount = options.parallelism.coerceAtMost(initialStates.size)
+        val pathSelectors = if (selectorsCount <= 1) {
+            listOf(createWorkerPathSelector(initialStates))
+        } else {
+            initialStates.entries
+                .withIndex()
+                .groupBy({ it.index % selectorsCount }, { it.value })
+                .values
+                .map { workerStates -> createWorkerPathSelector(workerStates.associate { it.key to it.value }) }
+        }
+
         val statesCollector =
             when (options.stateCollectionStrategy) {
                 StateCollectionStrategy.COVERED_NEW -> CoveredNewStatesCollector<JcState>(coverageStatistics) {
@@ -188,16 +221,37 @@ class JcMachine(
         }
 
         if (logger.isDebugEnabled) {
+            val pathSelector = pathSelectors.singleOrNull() ?: ParallelPathSelector(pathSelectors)
             observers.add(JcDebugProfileObserver(pathSelector))
         }
 
-        run(
-            interpreter,
-            pathSelector,
-            observer = CompositeUMachineObserver(observers),
-            isStateTerminated = ::isStateTerminated,
-            stopStrategy = stopStrategy,
-        )
+        if (options.parallelism <= 1) {
+            withForkChecking(pathSelectors.single()) { pathSelector ->
+                run(
+                    interpreter,
+                    pathSelector,
+                    observer = CompositeUMachineObserver(observers),
+                    isStateTerminated = ::isStateTerminated,
+                    stopStrategy = stopStrategy,
+                )
+            }
+        } else {
+            if (options.useSolverForForks && options.forkCheckingThreads > 0) {
+                logger.warn {
+                    "forkCheckingThreads is ignored with parallelism ${options.parallelism}, forks are checked synchronously"
+                }
+            }
+            runParallel(
+                interpreter,
+                pathSelectors,
+                observer = CompositeUMachineObserver(observers),
+                isStateTerminated = ::isStateTerminated,
+                stopStrategy = stopStrategy,
+                workersCount = options.parallelism,
+                // Workers' solvers are not needed after the run, only the calling thread keeps its one
+                onWorkerStopped = ctx::releaseSolver,
+            )
+        }
 
         return statesCollector.collectedStates
     }
@@ -205,6 +259,38 @@ class JcMachine(
     fun analyze(method: JcMethod, targets: List<JcTarget> = emptyList()): List<JcState> =
         analyze(listOf(method), targets)
 
+    /**
+     * Runs the [block] with the [pathSelector] which checks forked states in the background
+     * if [UMachineOptions.checkForksAsynchronously] is set.
+     */
+    private inline fun withForkChecking(
+        pathSelector: UPathSelector<JcState>,
+        block: (UPathSelector<JcState>) -> Unit,
+    ) {
+        if (!options.checkForksAsynchronously) {
+            block(pathSelector)
+            return
+        }
+
+        val scopeCtx = ctx
+        val forkCheckers = Executors.newFixedThreadPool(options.forkCheckingThreads) { task ->
+            val checker = {
+                try {
+                    task.run()
+                } finally {
+                    // Checkers' solvers are not needed after the run
+                    scopeCtx.releaseSolver()
+                }
+            }
+            Thread(checker, "$this-fork-checker").apply { isDaemon = true }
+        }
+        try {
+            block(FeasibilityCheckingPathSelector(pathSelector, forkCheckers, options.forkCheckingThreads))
+        } finally {
+            forkCheckers.shutdownNow()
+        }
+    }
+
     /**
      * Returns a wrapper for the [cfgStatistics] that ignores [JcTransparentInstruction]s.
      * Instead of calculating statistics for them, it just takes the statistics for
@@ -224,7 +310,49 @@ class JcMachine(
         return state.callStack.isEmpty()
     }
 
+    private fun recycleScopeIfNeeded() {
+        val period = jcMachineOptions.contextRecyclingPeriod
+        if (period <= 0 || scope.analyzedMethods < period) {
+            return
+        }
+
+        logger.debug { "Recycling the context after ${scope.analyzedMethods} methods" }
+        scope.close()
+        scope = AnalysisScope()
+    }
+
+    private fun precomputeCfgDistances(methods: Collection<JcMethod>) {
+        cfgPrecomputations.removeAll { it.isDone }
+        cfgPrecomputations += cfgStatistics.precompute(methods).apply {
+            whenComplete { _, e ->
+                if (e != null && e !is CancellationException) {
+                    logger.warn(e) { "Failed to precompute CFG distances" }
+                }
+            }
+        }
+    }
+
     override fun close() {
-        components.close()
+        // The precomputed distances are of no use anymore
+        cfgPrecomputations.forEach { it.cancel(false) }
+        scope.close()
+    }
+
+    /**
+     * Everything which holds the expressions of a single [JcContext], so it can be dropped as a whole.
+     */
+    private inner class AnalysisScope : AutoCloseable {
+        private val components = JcComponents(typeSystem, options)
+        val ctx = JcContext(cp, components)
+        val interpreter = JcInterpreter(ctx, applicationGraph, jcMachineOptions, interpreterObserver)
+
+        var analyzedMethods = 0
+
+        override fun close() {
+            components.solverPoolStatistics()?.let { logger.debug { "Solver pool: $it" } }
+            components.portfolioStatistics()?.let { logger.debug { "Portfolio winners: ${it.wins()}" } }
+            ctx.releaseSolver()
+            components.close()
+        }
     }
 }
@@ -1,5 +1,7 @@
 package org.usvm.machine
 
+import java.nio.file.Path
+
 /**
  * JcMachine specific options.
  * */
@@ -19,4 +21,20 @@ data class JcMachineOptions(
      * Hard constraint for maximal array size.
      * */
     val arrayMaxSize: Int = 1_500,
+
+    /**
+     * The number of methods analyzed within a single [JcContext]. After that, the machine starts the next
+     * [JcMachine.analyze] call with a fresh context and solvers, so the expressions of the previous analyses
+     * can be garbage collected once their states are no longer used. The type system and CFG statistics are shared
+     * between contexts.
+     *
+     * Zero means that the machine never changes its context.
+     * */
+    val contextRecyclingPeriod: Int = 0,
+
+    /**
+     * A directory to keep the index of the classpath hierarchy between runs, e.g. next to the jacodb database.
+     * If `null`, the index is built on every run.
+     * */
+    val subtypeIndexCacheDir: Path? = null,
 )
@@ -3,6 +3,7 @@ package org.usvm.machine
 import io.ksmt.KContext
 import io.ksmt.solver.KSolver
 import io.ksmt.solver.KSolverConfiguration
+import io.ksmt.solver.cvc5.KCvc5Solver
 import io.ksmt.solver.runner.KSolverRunnerManager
 import io.ksmt.solver.yices.KYicesSolver
 import io.ksmt.solver.yices.KYicesSolverConfiguration
@@ -11,8 +12,15 @@ import io.ksmt.solver.z3.KZ3Solver
 import io.ksmt.symfpu.solver.KSymFpuSolver
 import org.usvm.SolverType
 import org.usvm.UContext
+import org.usvm.solver.UPortfolioSolver
+import org.usvm.solver.UPortfolioStatistics
 
 internal interface SolverFactory : AutoCloseable {
+    /**
+     * Winners of the [SolverType.PORTFOLIO] solvers created by this factory.
+     */
+    val portfolioStatistics: UPortfolioStatistics
+
     fun <Context : UContext<USizeSort>> mkSolver(
         ctx: Context,
         solverType: SolverType
@@ -20,11 +28,13 @@ internal interface SolverFactory : AutoCloseable {
 
     companion object {
         fun mkFactory(runSolverInAnotherProcess: Boolean): SolverFactory =
-            if (runSolverInAnotherProcess) AnotherProcessSolverFactory() else SameProcessSolverFactory
+            if (runSolverInAnotherProcess) AnotherProcessSolverFactory() else SameProcessSolverFactory()
     }
 }
 
-private object SameProcessSolverFactory : SolverFactory {
+private class SameProcessSolverFactory : SolverFactory {
+    override val portfolioStatistics = UPortfolioStatistics()
+
     override fun <Context : UContext<USizeSort>> mkSolver(
         ctx: Context,
         solverType: SolverType
@@ -32,6 +42,14 @@ private object SameProcessSolverFactory : SolverFactory {
         // Yices with Fp support via SymFpu
         SolverType.YICES -> KSymFpuSolver(KYicesSolver(ctx), ctx)
         SolverType.Z3 -> KZ3Solver(ctx)
+        SolverType.PORTFOLIO -> UPortfolioSolver(
+            mapOf(
+                "Yices" to KSymFpuSolver(KYicesSolver(ctx), ctx),
+                "Z3" to KZ3Solver(ctx),
+                "CVC5" to KCvc5Solver(ctx),
+            ),
+            portfolioStatistics
+        )
     }
 
     override fun close() {
@@ -42,6 +60,8 @@ private object SameProcessSolverFactory : SolverFactory {
 private class AnotherProcessSolverFactory : SolverFactory {
     private val solverManager: KSolverRunnerManager = KSolverRunnerManager()
 
+    override val portfolioStatistics = UPortfolioStatistics()
+
     init {
         // YicesWithSymFpu is custom solver, so we need to register it
         solverManager.registerSolver(YicesWithSymFpu::class, KYicesSolverUniversalConfiguration::class)
@@ -54,6 +74,14 @@ private class AnotherProcessSolverFactory : SolverFactory {
         // Yices with Fp support via SymFpu
         SolverType.YICES -> solverManager.createSolver(ctx, YicesWithSymFpu::class)
         SolverType.Z3 -> solverManager.createSolver(ctx, KZ3Solver::class)
+        SolverType.PORTFOLIO -> UPortfolioSolver(
+            mapOf(
+                "Yices" to solverManager.createSolver(ctx, YicesWithSymFpu::class),
+                "Z3" to solverManager.createSolver(ctx, KZ3Solver::class),
+                "CVC5" to solverManager.createSolver(ctx, KCvc5Solver::class),
+            ),
+            portfolioStatistics
+        )
     }
 
     override fun close() {
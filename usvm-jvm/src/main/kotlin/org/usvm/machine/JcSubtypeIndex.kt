@@ -0,0 +1,237 @@
+package org.usvm.machine
+
+import mu.KLogging
+import org.jacodb.api.JcClassOrInterface
+import org.jacodb.api.JcClasspath
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+
+/**
+ * An index of the class hierarchy of a classpath, answering subtype queries without the jacodb database.
+ *
+ * Classes are numbered in the pre-order of the tree of superclasses, so a class and all its subclasses occupy
+ * the interval `[id, subtreeEnds[id])`. Interfaces are the leaves of this tree, since their superclass is
+ * `java.lang.Object`. Besides, every class stores the sorted ids of all the interfaces it implements,
+ * including its own id for an interface. Thus, a subtype check is an interval check plus a binary search.
+ *
+ * Classes unresolved in the classpath are absent from the index, so queries about them return `null`.
+ */
+class JcSubtypeIndex private constructor(
+    private val names: Array<String>,
+    private val subtreeEnds: IntArray,
+    private val interfaces: Array<IntArray>,
+    private val directSubtypeOffsets: IntArray,
+    private val directSubtypeIds: IntArray,
+) {
+    private val ids = HashMap<String, Int>(names.size * 2).apply {
+        names.forEachIndexed { id, name -> put(name, id) }
+    }
+
+    val size: Int get() = names.size
+
+    /**
+     * Returns whether the class [subtype] is a subtype of the class [supertype],
+     * or `null` if any of them is unknown.
+     */
+    fun isSubtype(subtype: String, supertype: String): Boolean? {
+        val subtypeId = ids[subtype] ?: return null
+        val supertypeId = ids[supertype] ?: return null
+        return supertypeId <= subtypeId && subtypeId < subtreeEnds[supertypeId] ||
+            interfaces[subtypeId].binarySearch(supertypeId) >= 0
+    }
+
+    /**
+     * Returns the names of the classes extending or implementing the class [type] directly,
+     * or `null` if it is unknown.
+     */
+    fun directSubtypes(type: String): Sequence<String>? {
+        val id = ids[type] ?: return null
+        return (directSubtypeOffsets[id] until directSubtypeOffsets[id + 1]).asSequence().map {
+            names[directSubtypeIds[it]]
+        }
+    }
+
+    private fun write(output: DataOutputStream) {
+        output.writeInt(FORMAT_VERSION)
+        output.writeInt(names.size)
+        for (id in names.indices) {
+            output.writeUTF(names[id])
+            output.writeInt(subtreeEnds[id])
+            output.writeIntArray(interfaces[id])
+        }
+        output.writeIntArray(directSubtypeOffsets)
+        output.writeIntArray(directSubtypeIds)
+    }
+
+    companion object : KLogging() {
+        private const val FORMAT_VERSION = 1
+        private const val OBJECT_CLASS = "java.lang.Object"
+
+        /**
+         * Loads the index of the [cp] from the [cacheDir] or builds and saves it there. The index is stored
+         * per set of classpath locations, so the directory may be shared, e.g. with the jacodb database.
+         */
+        fun loadOrBuild(
+            cp: JcClasspath,
+            allClasses: () -> Sequence<JcClassOrInterface>,
+            cacheDir: Path?,
+        ): JcSubtypeIndex {
+            val indexFile = cacheDir?.resolve("subtypes-${locationsDigest(cp)}.idx")
+            if (indexFile != null && Files.exists(indexFile)) {
+                try {
+                    return DataInputStream(Files.newInputStream(indexFile).buffered()).use(::read)
+                } catch (e: IOException) {
+                    logger.warn(e) { "Failed to read the subtype index from $indexFile, rebuilding it" }
+                }
+            }
+
+            val index = build(allClasses())
+            if (indexFile != null) {
+                try {
+                    Files.createDirectories(cacheDir)
+                    val tempFile = Files.createTempFile(cacheDir, "subtypes", ".tmp")
+                    DataOutputStream(Files.newOutputStream(tempFile).buffered()).use(index::write)
+                    Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING)
+                } catch (e: IOException) {
+                    logger.warn(e) { "Failed to save the subtype index to $indexFile" }
+                }
+            }
+            return index
+        }
+
+        fun build(allClasses: Sequence<JcClassOrInterface>): JcSubtypeIndex {
+            val classes = LinkedHashMap<String, JcClassOrInterface>()
+            allClasses.forEach { classes.putIfAbsent(it.name, it) }
+
+            val children = HashMap<String, MutableList<String>>()
+            val roots = mutableListOf<String>()
+            for ((name, jcClass) in classes) {
+                val superClass = superClassName(jcClass)
+                if (superClass != null && superClass in classes) {
+                    children.getOrPut(superClass, ::mutableListOf) += name
+                } else {
+                    roots += name
+                }
+            }
+
+            val names = ArrayList<String>(classes.size)
+            val ids = HashMap<String, Int>(classes.size * 2)
+            val subtreeEnds = IntArray(classes.size)
+            // Pre-order traversal, an id on the stack marks the exit from the subtree of the class with this id
+            val stack = ArrayDeque<Any>()
+            roots.asReversed().forEach(stack::addLast)
+            while (stack.isNotEmpty()) {
+                val entry = stack.removeLast()
+                if (entry is Int) {
+                    subtreeEnds[entry] = names.size
+                    continue
+                }
+
+                val name = entry as String
+                val id = names.size
+                names += name
+                ids[name] = id
+                stack.addLast(id)
+                children[name]?.asReversed()?.forEach(stack::addLast)
+            }
+
+            val interfaces = arrayOfNulls<IntArray>(names.size)
+            fun collectInterfaces(id: Int): IntArray {
+                interfaces[id]?.let { return it }
+                // Breaks cycles of malformed hierarchies
+                interfaces[id] = IntArray(0)
+
+                val jcClass = classes.getValue(names[id])
+                val superInterfaces = superClassName(jcClass)?.let(ids::get)?.let(::collectInterfaces) ?: IntArray(0)
+                val ownInterfaces = jcClass.interfaces.mapNotNull { ids[it.name] }
+                val result = if (ownInterfaces.isEmpty() && !jcClass.isInterface) {
+                    // Shared with the superclass to save the memory
+                    superInterfaces
+                } else {
+                    val collected = superInterfaces.toHashSet()
+                    ownInterfaces.forEach { collected += collectInterfaces(it).asIterable() }
+                    if (jcClass.isInterface) {
+                        collected += id
+                    }
+                    collected.toIntArray().apply { sort() }
+                }
+                interfaces[id] = result
+                return result
+            }
+            names.indices.forEach { collectInterfaces(it) }
+
+            val directSubtypeLists = Array(names.size) { mutableListOf<Int>() }
+            for (id in names.indices) {
+                val jcClass = classes.getValue(names[id])
+                superClassName(jcClass)?.let(ids::get)?.let { directSubtypeLists[it] += id }
+                jcClass.interfaces.mapNotNullTo(hashSetOf()) { ids[it.name] }.forEach { directSubtypeLists[it] += id }
+            }
+            val directSubtypeOffsets = IntArray(names.size + 1)
+            for (id in names.indices) {
+                directSubtypeOffsets[id + 1] = directSubtypeOffsets[id] + directSubtypeLists[id].size
+            }
+            val directSubtypes = directSubtypeLists.flatMap { it }.toIntArray()
+
+            return JcSubtypeIndex(
+                names.toTypedArray(),
+                subtreeEnds,
+                interfaces.requireNoNulls(),
+                directSubtypeOffsets,
+                directSubtypes
+            )
+        }
+
+        /**
+         * Interfaces are placed under `java.lang.Object` even if their superclass is not resolved.
+         */
+        private fun superClassName(jcClass: JcClassOrInterface): String? =
+            jcClass.superClass?.name ?: OBJECT_CLASS.takeIf { jcClass.isInterface }
+
+        private fun read(input: DataInputStream): JcSubtypeIndex {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw IOException("Unsupported subtype index format")
+            }
+
+            val size = input.readInt()
+            val names = arrayOfNulls<String>(size)
+            val subtreeEnds = IntArray(size)
+            val interfaces = arrayOfNulls<IntArray>(size)
+            for (id in 0 until size) {
+                names[id] = input.readUTF()
+                subtreeEnds[id] = input.readInt()
+                interfaces[id] = input.readIntArray()
+            }
+            val directSubtypeOffsets = input.readIntArray()
+            val directSubtypes = input.readIntArray()
+
+            return JcSubtypeIndex(
+                names.requireNoNulls(),
+                subtreeEnds,
+                interfaces.requireNoNulls(),
+                directSubtypeOffsets,
+                directSubtypes
+            )
+        }
+
+        private fun locationsDigest(cp: JcClasspath): String {
+            val digest = MessageDigest.getInstance("SHA-256")
+            cp.locations.forEach {
+                digest.update(it.jarOrFolder.absolutePath.toByteArray())
+                digest.update(it.hash.toByteArray())
+            }
+            return digest.digest().joinToString("") { "%02x".format(it) }
+        }
+
+        private fun DataOutputStream.writeIntArray(array: IntArray) {
+            writeInt(array.size)
+            array.forEach(::writeInt)
+        }
+
+        private fun DataInputStream.readIntArray(): IntArray = IntArray(readInt()) { readInt() }
+    }
+}
@@ -1,6 +1,7 @@
 package org.usvm.machine
 
 import org.jacodb.api.JcArrayType
+import org.jacodb.api.JcClassOrInterface
 import org.jacodb.api.JcClassType
 import org.jacodb.api.JcClasspath
 import org.jacodb.api.JcPrimitiveType
@@ -8,20 +9,35 @@ import org.jacodb.api.JcRefType
 import org.jacodb.api.JcType
 import org.jacodb.api.JcTypeVariable
 import org.jacodb.api.ext.isAssignable
+import org.jacodb.api.ext.objectClass
 import org.jacodb.api.ext.objectType
 import org.jacodb.api.ext.toType
 import org.jacodb.impl.features.HierarchyExtensionImpl
 import org.usvm.types.USupportTypeStream
 import org.usvm.types.UTypeStream
 import org.usvm.types.UTypeSystem
+import java.nio.file.Path
 import kotlin.time.Duration
 
+/**
+ * @param subtypeIndexCacheDir a directory to keep the [JcSubtypeIndex] of the [cp] between runs,
+ * or `null` to build it on every run.
+ */
 class JcTypeSystem(
     private val cp: JcClasspath,
-    override val typeOperationsTimeout: Duration
+    override val typeOperationsTimeout: Duration,
+    subtypeIndexCacheDir: Path? = null,
 ) : UTypeSystem<JcType> {
     private val hierarchy = HierarchyExtensionImpl(cp)
 
+    private val subtypeIndex by lazy {
+        JcSubtypeIndex.loadOrBuild(
+            cp,
+            { sequenceOf(cp.objectClass) + hierarchy.findSubClasses(cp.objectClass, allHierarchy = true) },
+            subtypeIndexCacheDir
+        )
+    }
+
     override fun isSupertype(supertype: JcType, type: JcType): Boolean =
         when {
             supertype == type -> true
@@ -29,6 +45,10 @@ class JcTypeSystem(
                 isSupertype(cp.objectType, type) && supertype.bounds.all { isSupertype(it, type) }
 
             type is JcTypeVariable -> supertype == cp.objectType || type.bounds.any { isSupertype(supertype, it) }
+            supertype == cp.objectType -> type is JcRefType
+            type is JcClassType && supertype is JcClassType ->
+                subtypeIndex.isSubtype(type.jcClass.name, supertype.jcClass.name) ?: type.isAssignable(supertype)
+
             else -> type.isAssignable(supertype)
         }
 
@@ -102,11 +122,7 @@ class JcTypeSystem(
     override fun findSubtypes(type: JcType): Sequence<JcType> = when (type) {
         is JcPrimitiveType -> emptySequence() // TODO: should not be called here
         is JcArrayType -> findSubtypes(type.elementType).map { cp.arrayTypeOf(it) }
-        is JcRefType -> hierarchy
-            .findSubClasses(
-                type.jcClass,
-                allHierarchy = false
-            ) // TODO: prioritize classes somehow and filter bad classes
+        is JcRefType -> findDirectSubclasses(type.jcClass) // TODO: prioritize classes somehow and filter bad classes
             .map { it.toType() }
             .run {
                 if (type == cp.objectType) {
@@ -122,6 +138,10 @@ class JcTypeSystem(
         else -> error("Unknown type $type")
     }
 
+    private fun findDirectSubclasses(jcClass: JcClassOrInterface): Sequence<JcClassOrInterface> =
+        subtypeIndex.directSubtypes(jcClass.name)?.mapNotNull(cp::findClassOrNull)
+            ?: hierarchy.findSubClasses(jcClass, allHierarchy = false)
+
     private val topTypeStream by lazy { USupportTypeStream.from(this, cp.objectType) }
 
     override fun topTypeStream(): UTypeStream<JcType> =
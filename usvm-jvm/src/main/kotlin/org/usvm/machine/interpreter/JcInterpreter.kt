@@ -81,6 +81,7 @@ import org.usvm.util.outerClassInstanceField
 import org.usvm.util.write
 import org.usvm.utils.logAssertFailure
 import org.usvm.utils.onStateDeath
+import java.util.concurrent.ConcurrentHashMap
 
 typealias JcStepScope = StepScope<JcState, JcType, JcInst, JcContext>
 
@@ -639,15 +640,18 @@ class JcInterpreter(
             ::classInitializerAlwaysAnalysisRequiredForType
         )
 
-    private val localVarToIdx = mutableMapOf<JcMethod, MutableMap<String, Int>>() // (method, localName) -> idx
+    // The interpreter may be called from several machine workers, so all the caches here are concurrent
+    private val localVarToIdx = ConcurrentHashMap<JcMethod, MutableMap<String, Int>>() // (method, localName) -> idx
 
     // TODO: now we need to explicitly evaluate indices of registers, because we don't have specific ULValues
     private fun mapLocalToIdxMapper(method: JcMethod, local: JcLocal) =
         when (local) {
             is JcLocalVar -> localVarToIdx
                 .getOrPut(method) { mutableMapOf() }
-                .run {
-                    getOrPut(local.name) { method.parametersWithThisCount + size }
+                .let { localToIdx ->
+                    synchronized(localToIdx) {
+                        localToIdx.getOrPut(local.name) { method.parametersWithThisCount + localToIdx.size }
+                    }
                 }
 
             is JcThis -> 0
@@ -658,7 +662,7 @@ class JcInterpreter(
     private val JcInst.nextStmt get() = location.method.instList[location.index + 1]
     private operator fun JcInstList<JcInst>.get(instRef: JcInstRef): JcInst = this[instRef.index]
 
-    private val stringConstantAllocatedRefs = mutableMapOf<String, UConcreteHeapRef>()
+    private val stringConstantAllocatedRefs = ConcurrentHashMap<String, UConcreteHeapRef>()
 
     // Equal string constants must have equal references
     private fun stringConstantAllocator(value: String): UConcreteHeapRef =
@@ -667,7 +671,7 @@ class JcInterpreter(
             ctx.allocateStaticRef()
         }
 
-    private val typeInstanceAllocatedRefs = mutableMapOf<JcTypeInfo, UConcreteHeapRef>()
+    private val typeInstanceAllocatedRefs = ConcurrentHashMap<JcTypeInfo, UConcreteHeapRef>()
 
     private fun typeInstanceAllocator(type: JcType): UConcreteHeapRef {
         val typeInfo = resolveTypeInfo(type)
@@ -705,10 +709,13 @@ class JcInterpreter(
         scope: JcStepScope,
     ): Unit = resolveVirtualInvoke(ctx, methodCall, scope, typeSelector, options.forkOnRemainingTypes)
 
-    private val approximationResolver = JcMethodApproximationResolver(ctx, applicationGraph)
+    // The resolver keeps the current scope, so it can't be shared between threads
+    private val approximationResolver = ThreadLocal.withInitial {
+        JcMethodApproximationResolver(ctx, applicationGraph)
+    }
 
     private fun approximateMethod(scope: JcStepScope, methodCall: JcMethodCall): Boolean {
         val exprResolver = exprResolverWithScope(scope)
-        return approximationResolver.approximate(scope, exprResolver, methodCall)
+        return approximationResolver.get().approximate(scope, exprResolver, methodCall)
     }
 }
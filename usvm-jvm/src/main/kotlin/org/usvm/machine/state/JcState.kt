@@ -95,6 +95,9 @@ class JcState(
     override val isExceptional: Boolean
         get() = methodResult is JcMethodResult.JcException
 
+    override val hasPendingMethodResult: Boolean
+        get() = methodResult is JcMethodResult.Success
+
     override fun toString(): String = buildString {
         appendLine("Instruction: $lastStmt")
         if (isExceptional) appendLine("Exception: $methodResult")
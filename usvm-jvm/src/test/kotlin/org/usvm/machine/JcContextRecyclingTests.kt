@@ -0,0 +1,78 @@
+package org.usvm.machine
+
+import org.junit.jupiter.api.Test
+import org.usvm.CoverageZone
+import org.usvm.PathSelectionStrategy
+import org.usvm.StateCollectionStrategy
+import org.usvm.UMachineOptions
+import org.usvm.api.util.JcTestInterpreter
+import org.usvm.samples.JavaMethodTestRunner
+import org.usvm.samples.controlflow.Conditions
+import org.usvm.samples.controlflow.Switch
+import org.usvm.util.getJcMethodByName
+import kotlin.test.assertEquals
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
+import kotlin.time.Duration
+
+class JcContextRecyclingTests : JavaMethodTestRunner() {
+    private val methods = listOf(
+        Switch::simpleSwitch,
+        Switch::simpleSwitchWithPrecondition,
+        Switch::lookupSwitch,
+        Conditions::simpleCondition,
+    ).map { cp.getJcMethodByName(it) }
+
+    // Every path of every method is explored, so the results don't depend on the context
+    private val machineOptions = UMachineOptions(
+        pathSelectionStrategies = listOf(PathSelectionStrategy.BFS),
+        stateCollectionStrategy = StateCollectionStrategy.ALL,
+        coverageZone = CoverageZone.METHOD,
+        stopOnCoverage = -1,
+        solverTimeout = Duration.INFINITE,
+        typeOperationsTimeout = Duration.INFINITE,
+    )
+
+    private class AnalysisResult(val context: JcContext, val results: Set<Any?>)
+
+    /**
+     * Analyzes [methods] one by one. States are resolved right after their analysis, since the next
+     * [JcMachine.analyze] call may close their context.
+     */
+    private fun analyze(contextRecyclingPeriod: Int): List<AnalysisResult> {
+        val jcMachineOptions = JcMachineOptions(contextRecyclingPeriod = contextRecyclingPeriod)
+        return JcMachine(cp, machineOptions, jcMachineOptions).use { machine ->
+            val testResolver = JcTestInterpreter()
+            methods.map { method ->
+                val states = machine.analyze(method.method)
+                val context = states.map { it.ctx }.distinct().single()
+                val results = states.mapTo(mutableSetOf()) { testResolver.resolve(method, it).result.getOrNull() }
+                AnalysisResult(context, results)
+            }
+        }
+    }
+
+    @Test
+    fun `recycled contexts give the same results`() {
+        val results = analyze(contextRecyclingPeriod = 0).map { it.results }
+
+        assertEquals(results, analyze(contextRecyclingPeriod = 1).map { it.results })
+        assertEquals(results, analyze(contextRecyclingPeriod = 3).map { it.results })
+    }
+
+    @Test
+    fun `context is changed after the recycling period`() {
+        val contexts = analyze(contextRecyclingPeriod = 2).map { it.context }
+
+        assertSame(contexts[0], contexts[1])
+        assertNotSame(contexts[1], contexts[2])
+        assertSame(contexts[2], contexts[3])
+    }
+
+    @Test
+    fun `states of a new context do not refer to the closed one`() {
+        val contexts = analyze(contextRecyclingPeriod = 1).map { it.context }
+
+        assertEquals(contexts.size, contexts.toSet().size)
+    }
+}
@@ -0,0 +1,62 @@
+package org.usvm.machine
+
+import org.jacodb.api.JcTypedMethod
+import org.junit.jupiter.api.Test
+import org.usvm.CoverageZone
+import org.usvm.PathSelectionStrategy
+import org.usvm.StateCollectionStrategy
+import org.usvm.UMachineOptions
+import org.usvm.api.util.JcTestInterpreter
+import org.usvm.samples.JavaMethodTestRunner
+import org.usvm.samples.controlflow.Conditions
+import org.usvm.samples.controlflow.Switch
+import org.usvm.util.getJcMethodByName
+import kotlin.test.assertEquals
+import kotlin.time.Duration
+
+class JcParallelMachineTests : JavaMethodTestRunner() {
+    private val methods = listOf(
+        Switch::simpleSwitch,
+        Switch::simpleSwitchWithPrecondition,
+        Switch::lookupSwitch,
+        Conditions::simpleCondition,
+    ).map { cp.getJcMethodByName(it) }
+
+    // Every path of every method is explored, so the results don't depend on the order of steps
+    private val machineOptions = UMachineOptions(
+        pathSelectionStrategies = listOf(PathSelectionStrategy.BFS),
+        stateCollectionStrategy = StateCollectionStrategy.ALL,
+        coverageZone = CoverageZone.METHOD,
+        stopOnCoverage = -1,
+        solverTimeout = Duration.INFINITE,
+        typeOperationsTimeout = Duration.INFINITE,
+    )
+
+    private fun analyze(parallelism: Int, methods: List<JcTypedMethod> = this.methods): Map<String, Set<Any?>> {
+        val options = machineOptions.copy(parallelism = parallelism)
+        return JcMachine(cp, options).use { machine ->
+            val testResolver = JcTestInterpreter()
+            val states = machine.analyze(methods.map { it.method })
+            states
+                .groupBy({ it.entrypoint.name }, { state ->
+                    val method = methods.first { it.method == state.entrypoint }
+                    testResolver.resolve(method, state).result.getOrNull()
+                })
+                .mapValues { it.value.toSet() }
+        }
+    }
+
+    @Test
+    fun `parallel run finds the same results as sequential one`() {
+        val sequentialResults = analyze(parallelism = 1)
+        assertEquals(methods.map { it.name }.toSet(), sequentialResults.keys)
+
+        assertEquals(sequentialResults, analyze(parallelism = 3))
+    }
+
+    @Test
+    fun `workers share a single entrypoint`() {
+        val singleMethod = methods.take(1)
+        assertEquals(analyze(parallelism = 1, singleMethod), analyze(parallelism = 3, singleMethod))
+    }
+}
@@ -0,0 +1,67 @@
+package org.usvm.machine
+
+import org.jacodb.api.ext.allSuperHierarchySequence
+import org.jacodb.api.ext.findClass
+import org.jacodb.api.ext.objectClass
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.usvm.samples.JavaMethodTestRunner
+import org.usvm.samples.callgraph.CallGraphTestClass1
+import org.usvm.samples.callgraph.CallGraphTestClass2
+import org.usvm.samples.callgraph.CallGraphTestClass3
+import org.usvm.samples.callgraph.CallGraphTestClass4
+import org.usvm.samples.callgraph.CallGraphTestInterface
+import java.nio.file.Path
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+
+class JcSubtypeIndexTests : JavaMethodTestRunner() {
+    private val classes = sequenceOf(
+        cp.objectClass,
+        cp.findClass<CallGraphTestClass1>(),
+        cp.findClass<CallGraphTestClass2>(),
+        cp.findClass<CallGraphTestClass3>(),
+        cp.findClass<CallGraphTestClass4>(),
+        cp.findClass<CallGraphTestInterface>(),
+    )
+
+    @Test
+    fun `subtype checks agree with the hierarchy`() {
+        val index = JcSubtypeIndex.build(classes)
+
+        for (subtype in classes) {
+            for (supertype in classes) {
+                val expected = subtype == supertype || supertype in subtype.allSuperHierarchySequence
+                val actual = index.isSubtype(subtype.name, supertype.name)
+                assertEquals(expected, actual, "${subtype.name} <: ${supertype.name}")
+            }
+        }
+        assertNull(index.isSubtype(CallGraphTestClass1::class.java.name, "unknown.Class"))
+    }
+
+    @Test
+    fun `direct subtypes are enumerated`() {
+        val index = JcSubtypeIndex.build(classes)
+
+        assertEquals(
+            listOf(CallGraphTestClass2::class.java.name),
+            index.directSubtypes(CallGraphTestClass1::class.java.name)?.toList()
+        )
+        assertEquals(
+            listOf(CallGraphTestClass4::class.java.name),
+            index.directSubtypes(CallGraphTestInterface::class.java.name)?.toList()
+        )
+    }
+
+    @Test
+    fun `index is loaded from the cache`(@TempDir cacheDir: Path) {
+        val built = JcSubtypeIndex.loadOrBuild(cp, { classes }, cacheDir)
+        val loaded = JcSubtypeIndex.loadOrBuild(cp, { error("The index must not be rebuilt") }, cacheDir)
+
+        assertEquals(built.size, loaded.size)
+        assertEquals(
+            true,
+            loaded.isSubtype(CallGraphTestClass4::class.java.name, CallGraphTestInterface::class.java.name)
+        )
+    }
+}
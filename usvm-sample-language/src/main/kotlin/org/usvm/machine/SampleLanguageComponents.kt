@@ -9,6 +9,7 @@ import org.usvm.UContext
 import org.usvm.UMachineOptions
 import org.usvm.USizeExprProvider
 import org.usvm.language.SampleType
+import org.usvm.solver.UPortfolioSolver
 import org.usvm.solver.USolverBase
 import org.usvm.solver.UTypeSolver
 import org.usvm.types.UTypeSystem
@@ -27,6 +28,7 @@ class SampleLanguageComponents(
         val solver = when (options.solverType) {
             SolverType.YICES -> KYicesSolver(ctx)
             SolverType.Z3 -> KZ3Solver(ctx)
+            SolverType.PORTFOLIO -> UPortfolioSolver(mapOf("Yices" to KYicesSolver(ctx), "Z3" to KZ3Solver(ctx)))
         }
 
         val typeSolver = UTypeSolver(typeSystem)
@@ -106,6 +106,9 @@ class SampleState(
 
     override val isExceptional: Boolean
         get() = exceptionRegister != null
+
+    override val hasPendingMethodResult: Boolean
+        get() = returnRegister != null
 }
 
 val SampleState.lastStmt: Stmt get() = pathNode.statement
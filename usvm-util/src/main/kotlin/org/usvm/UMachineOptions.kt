@@ -6,7 +6,12 @@ import kotlin.time.Duration.Companion.seconds
 
 enum class SolverType {
     YICES,
-    Z3
+    Z3,
+
+    /**
+     * Runs all the available solvers on each query and takes the first definitive answer.
+     */
+    PORTFOLIO,
 }
 
 enum class PathSelectionStrategy {
@@ -245,6 +250,8 @@ data class UMachineOptions(
     val stopOnTargetsReached: Boolean = false,
     /**
      * Depth of the interprocedural reachability search used in distance-based path selectors.
+     * `0` disables the search, [UInt.MAX_VALUE] means an unlimited depth, which is answered by a precalculated
+     * reachability index of the call graph instead of a bounded search.
      */
     val targetSearchDepth: UInt = 0u,
     /**
@@ -259,4 +266,47 @@ data class UMachineOptions(
      * Limit loop iterations.
      * */
     val loopIterationLimit: Int? = null,
-)
+    /**
+     * Drop states at loop heads which are subsumed by the states explored there before, i.e. have the same memory
+     * and stronger path constraints. Every subsumption check may require a solver query.
+     * */
+    val useSubsumption: Boolean = false,
+    /**
+     * A number of worker threads stepping states concurrently. Entrypoints are distributed between path selectors
+     * of the workers, while the workers with empty selectors step states of the others, so even a single entrypoint
+     * is explored by all the workers. `1` means sequential execution.
+     */
+    val parallelism: Int = 1,
+    /**
+     * The maximal number of warm SMT solvers kept alive at the same time. Queries lease solvers from a shared pool,
+     * so values less than [parallelism] make workers wait for each other.
+     */
+    val solverPoolSize: Int = parallelism,
+    /**
+     * Whether we should keep path constraints asserted in the SMT solver between queries and assert only
+     * the difference with the previous query.
+     */
+    val useIncrementalSolving: Boolean = false,
+    /**
+     * Whether we should cache results of SMT queries and try recent models before calling the SMT solver.
+     */
+    val useQueryCache: Boolean = false,
+    /**
+     * Whether we should split SMT queries into slices of independent constraints and solve them separately.
+     * Models of slices are cached, so enabling it implies [useQueryCache].
+     */
+    val useConstraintsSlicing: Boolean = false,
+    /**
+     * A number of background threads checking forked states for satisfiability. Forked states are not stepped
+     * until they are proven satisfiable, but the machine keeps stepping other states meanwhile, so the solver
+     * latency is hidden behind interpretation. `0` means forks are checked synchronously.
+     * Takes effect only when [useSolverForForks] is set and [parallelism] is `1`.
+     */
+    val forkCheckingThreads: Int = 0,
+) {
+    /**
+     * Whether forks are checked by [forkCheckingThreads] background threads.
+     */
+    val checkForksAsynchronously: Boolean
+        get() = useSolverForForks && forkCheckingThreads > 0 && parallelism == 1
+}
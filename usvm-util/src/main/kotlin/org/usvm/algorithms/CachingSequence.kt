@@ -4,7 +4,7 @@ package org.usvm.algorithms
  * A caching sequence for an [iterator]. Can be iterated multiple times, since every value obtained from the iterator
  * is cached.
  *
- * The cache is **NOT** thread-safe.
+ * The cache is thread-safe, so the sequence can be shared between states stepped in different threads.
  */
 class CachingSequence<T> private constructor(
     private val cache: MutableList<T>,
@@ -26,21 +26,25 @@ class CachingSequence<T> private constructor(
     private inner class CachingIterator(
         private var ptr: Int
     ) : Iterator<T> {
-        override fun hasNext(): Boolean =
+        override fun hasNext(): Boolean = synchronized(cache) {
             ptr < cache.size || iterator.hasNext()
+        }
 
-        override fun next(): T {
+        override fun next(): T = synchronized(cache) {
             if (ptr == cache.size) {
                 cache += iterator.next()
             }
-            return cache[ptr++]
+            cache[ptr++]
         }
     }
 
     fun filter(filteringFunction: (T) -> Boolean): CachingSequence<T> {
+        val (filteredCache, cacheSize) = synchronized(cache) {
+            cache.filterTo(mutableListOf(), filteringFunction) to cache.size
+        }
         return CachingSequence(
-            cache.filterTo(mutableListOf(), filteringFunction),
-            CachingIterator(cache.size).asSequence().filter(filteringFunction).iterator(),
+            filteredCache,
+            CachingIterator(cacheSize).asSequence().filter(filteringFunction).iterator(),
         )
     }
 }
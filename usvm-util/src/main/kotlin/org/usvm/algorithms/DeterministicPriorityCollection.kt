@@ -1,26 +1,29 @@
 package org.usvm.algorithms
 
 import org.usvm.util.assert
-import java.util.PriorityQueue
 import kotlin.Comparator
 import kotlin.NoSuchElementException
 
 /**
- * [UPriorityCollection] implementation based on [java.util.PriorityQueue].
+ * [UPriorityCollection] implementation based on an indexed binary heap.
+ *
+ * The heap keeps the position of each element, so [remove] and [update] take O(log n) time instead of
+ * a traversal of the whole heap. Elements with the same priority are ordered by the time they were added.
  */
-// TODO: what to do if elements have same priority?
 class DeterministicPriorityCollection<T, Priority>(private val comparator: Comparator<Priority>) :
     UPriorityCollection<T, Priority> {
-    private var topElement: Pair<T, Priority>? = null
-    private val priorityQueue = PriorityQueue<Pair<T, Priority>> { (_, p1), (_, p2) -> comparator.compare(p1, p2) }
+    private class Entry<T, Priority>(val element: T, val priority: Priority, val order: Long)
 
-    override val count: Int get() = priorityQueue.size + if (topElement == null) 0 else 1
+    private var topElement: Entry<T, Priority>? = null
+    private val heap = ArrayList<Entry<T, Priority>>()
+    private val positions = HashMap<T, Int>()
+    private var addedCount = 0L
+
+    override val count: Int get() = heap.size + if (topElement == null) 0 else 1
 
     override fun peek(): T {
-        if (topElement == null) {
-            topElement = priorityQueue.remove()
-        }
-        return topElement!!.first
+        val top = topElement ?: removeAt(0).also { topElement = it }
+        return top.element
     }
 
     override fun update(element: T, priority: Priority) {
@@ -29,26 +32,91 @@ class DeterministicPriorityCollection<T, Priority>(private val comparator: Compa
     }
 
     override fun remove(element: T) {
-        // Don't traverse the whole queue if we remove the top element
-        if (topElement != null && topElement?.first == element) {
+        if (topElement != null && topElement?.element == element) {
             topElement = null
             return
         }
 
-        if (!priorityQueue.removeIf { (e, _) -> e == element }) {
-            throw NoSuchElementException("Element not found in priority queue")
-        }
+        val position = positions[element] ?: throw NoSuchElementException("Element not found in priority queue")
+        removeAt(position)
     }
 
     override fun add(element: T, priority: Priority) {
-        assert({ !priorityQueue.any { (e, _) -> e == element } }) { "Element already exists in priority queue" }
+        assert({ element !in positions }) { "Element already exists in priority queue" }
 
+        val entry = Entry(element, priority, addedCount++)
         val currentTop = topElement
-        if (currentTop != null && comparator.compare(currentTop.second, priority) < 0) {
-            topElement = element to priority
-            priorityQueue.add(currentTop)
+        if (currentTop != null && comparator.compare(currentTop.priority, priority) < 0) {
+            topElement = entry
+            insert(currentTop)
             return
         }
-        priorityQueue.add(element to priority)
+        insert(entry)
+    }
+
+    private fun compare(first: Entry<T, Priority>, second: Entry<T, Priority>): Int {
+        val byPriority = comparator.compare(first.priority, second.priority)
+        return if (byPriority != 0) byPriority else first.order.compareTo(second.order)
+    }
+
+    private fun insert(entry: Entry<T, Priority>) {
+        heap.add(entry)
+        positions[entry.element] = heap.lastIndex
+        siftUp(heap.lastIndex)
+    }
+
+    private fun removeAt(position: Int): Entry<T, Priority> {
+        if (position >= heap.size) {
+            throw NoSuchElementException()
+        }
+
+        val removed = heap[position]
+        val last = heap.removeAt(heap.lastIndex)
+        positions.remove(removed.element)
+        if (position < heap.size) {
+            set(position, last)
+            siftDown(position)
+            siftUp(position)
+        }
+        return removed
+    }
+
+    private fun set(position: Int, entry: Entry<T, Priority>) {
+        heap[position] = entry
+        positions[entry.element] = position
+    }
+
+    private fun siftUp(position: Int) {
+        val entry = heap[position]
+        var current = position
+        while (current > 0) {
+            val parent = (current - 1) / 2
+            if (compare(heap[parent], entry) <= 0) {
+                break
+            }
+            set(current, heap[parent])
+            current = parent
+        }
+        set(current, entry)
+    }
+
+    private fun siftDown(position: Int) {
+        val entry = heap[position]
+        var current = position
+        while (true) {
+            var child = 2 * current + 1
+            if (child >= heap.size) {
+                break
+            }
+            if (child + 1 < heap.size && compare(heap[child + 1], heap[child]) < 0) {
+                child++
+            }
+            if (compare(entry, heap[child]) <= 0) {
+                break
+            }
+            set(current, heap[child])
+            current = child
+        }
+        set(current, entry)
     }
 }
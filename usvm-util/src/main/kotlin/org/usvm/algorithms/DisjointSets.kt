@@ -1,20 +1,30 @@
 package org.usvm.algorithms
 
+import kotlinx.collections.immutable.PersistentMap
+import kotlinx.collections.immutable.persistentHashMapOf
+
 /**
  * Mutable union-find data structure. Represents a collection of disjoint sets of elements of type [T].
  * Initially, every set is a singleton element.
  * Has two operations: [union] (x, y), which computes union of two sets containing x and y,
  * and [find] (x), which finds a representative of set containing x.
  * All actual set changes in this data structures can be listened by [subscribe].
+ *
+ * The structure is backed by persistent maps, so [clone] is O(1) and clones share the unchanged parts.
  */
 class DisjointSets<T> private constructor(
-    private val parent: MutableMap<T, T>,
-    private val rank: MutableMap<T, Int>,
+    persistentParent: PersistentMap<T, T>,
+    persistentRank: PersistentMap<T, Int>,
     private var unionCallback: ((T, T) -> Unit)?,
     private val representativeSelector: RepresentativeSelector<T>?,
-) : Iterable<Map.Entry<T, T>> by parent.entries {
+) : Iterable<Map.Entry<T, T>> {
     constructor(representativeSelector: RepresentativeSelector<T>? = null) :
-        this(mutableMapOf(), mutableMapOf(), unionCallback = null, representativeSelector)
+        this(persistentHashMapOf(), persistentHashMapOf(), unionCallback = null, representativeSelector)
+
+    private val parent = persistentParent.builder()
+    private val rank = persistentRank.builder()
+
+    override fun iterator(): Iterator<Map.Entry<T, T>> = parent.entries.iterator()
 
     /**
      * Returns representative of set containing [x].
@@ -100,7 +110,7 @@ class DisjointSets<T> private constructor(
      * Creates a copy of this structure.
      * Note that current subscribers get unsubscribed!
      */
-    fun clone() = DisjointSets(parent.toMutableMap(), rank.toMutableMap(), unionCallback = null, representativeSelector)
+    fun clone() = DisjointSets(parent.build(), rank.build(), unionCallback = null, representativeSelector)
 
     override fun equals(other: Any?): Boolean {
         if (this === other) return true
@@ -0,0 +1,109 @@
+package org.usvm.algorithms
+
+import java.util.BitSet
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Thread-safe transitive reachability index of a directed graph which is discovered lazily via [adjacentVertices].
+ *
+ * When a vertex is queried for the first time, the part of the graph reachable from it is condensed into strongly
+ * connected components by Tarjan's algorithm. Each component gets a number and the set of numbers of the components
+ * reachable from it as a [BitSet], so [isReachable] is O(1) for the already indexed vertices.
+ *
+ * Components are numbered in the order they are completed, so a component reaches only the components with
+ * less or equal numbers. Vertices indexed earlier are never revisited, because all the vertices reachable from them
+ * are already indexed too.
+ *
+ * @param adjacentVertices function which maps a vertex to the sequence of vertices adjacent to it. It is called
+ * at most once for each vertex.
+ */
+class ReachabilityIndex<V>(
+    private val adjacentVertices: (V) -> Sequence<V>,
+) {
+    private class Component(val id: Int, val reachable: BitSet)
+
+    private val components = ConcurrentHashMap<V, Component>()
+    private var componentsCount = 0
+
+    /**
+     * Checks if [to] is reachable from [from]. Every vertex is considered reachable from itself.
+     */
+    fun isReachable(from: V, to: V): Boolean {
+        val fromComponent = components[from] ?: index(from)
+        // All the vertices reachable from the indexed one are indexed too
+        val toComponent = components[to] ?: return false
+        return fromComponent.reachable[toComponent.id]
+    }
+
+    private class DfsFrame<V>(val index: Int, val stackPosition: Int, val adjacentVertices: Iterator<V>)
+
+    /**
+     * Iterative Tarjan's algorithm over the vertices reachable from [start] which are not indexed yet.
+     */
+    @Synchronized
+    private fun index(start: V): Component {
+        components[start]?.let { return it }
+
+        val discoveryIndices = hashMapOf<V, Int>()
+        val lowLinks = mutableListOf<Int>()
+        val discoveredAdjacentVertices = mutableListOf<MutableList<V>>()
+        val componentStack = mutableListOf<V>()
+        val dfsStack = ArrayDeque<DfsFrame<V>>()
+
+        fun discover(vertex: V) {
+            val index = lowLinks.size
+            discoveryIndices[vertex] = index
+            lowLinks += index
+            discoveredAdjacentVertices += mutableListOf<V>()
+            dfsStack.addLast(DfsFrame(index, componentStack.size, adjacentVertices(vertex).iterator()))
+            componentStack += vertex
+        }
+
+        discover(start)
+        while (dfsStack.isNotEmpty()) {
+            val frame = dfsStack.last()
+            if (frame.adjacentVertices.hasNext()) {
+                val adjacentVertex = frame.adjacentVertices.next()
+                discoveredAdjacentVertices[frame.index] += adjacentVertex
+                if (adjacentVertex in components) {
+                    continue
+                }
+                // Discovered vertices without a component are still on the component stack
+                val adjacentIndex = discoveryIndices[adjacentVertex]
+                if (adjacentIndex == null) {
+                    discover(adjacentVertex)
+                } else {
+                    lowLinks[frame.index] = minOf(lowLinks[frame.index], adjacentIndex)
+                }
+                continue
+            }
+
+            dfsStack.removeLast()
+            dfsStack.lastOrNull()?.let { parent ->
+                lowLinks[parent.index] = minOf(lowLinks[parent.index], lowLinks[frame.index])
+            }
+            if (lowLinks[frame.index] == frame.index) {
+                val members = componentStack.subList(frame.stackPosition, componentStack.size)
+                addComponent(members) { discoveredAdjacentVertices[discoveryIndices.getValue(it)] }
+                members.clear()
+            }
+        }
+
+        return components.getValue(start)
+    }
+
+    private inline fun addComponent(members: List<V>, adjacentVertices: (V) -> List<V>) {
+        val id = componentsCount++
+        val reachable = BitSet(id + 1)
+        reachable.set(id)
+        for (member in members) {
+            for (adjacentVertex in adjacentVertices(member)) {
+                // Adjacent vertices without a component are the members of this one
+                val adjacentComponent = components[adjacentVertex] ?: continue
+                reachable.or(adjacentComponent.reachable)
+            }
+        }
+        val component = Component(id, reachable)
+        members.forEach { components[it] = component }
+    }
+}
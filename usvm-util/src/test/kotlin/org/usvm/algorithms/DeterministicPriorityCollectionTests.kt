@@ -0,0 +1,72 @@
+package org.usvm.algorithms
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import kotlin.test.assertEquals
+
+internal class DeterministicPriorityCollectionTests {
+
+    @Test
+    fun samePriorityElementsAreOrderedByAdditionTest() {
+        val collection = DeterministicPriorityCollection<String, Int>(naturalOrder())
+        collection.add("a", 2)
+        collection.add("b", 1)
+        collection.add("c", 2)
+        collection.add("d", 1)
+
+        assertEquals(listOf("b", "d", "a", "c"), collection.drain())
+    }
+
+    @Test
+    fun randomOperationsTest() {
+        val collection = DeterministicPriorityCollection<Int, Int>(naturalOrder())
+        // Element to its priority and addition order
+        val expected = HashMap<Int, Pair<Int, Int>>()
+        var order = 0
+
+        for (i in 1..3000) {
+            val element = pseudoRandom(i) and 0x3ff
+            val priority = pseudoRandom(-i) and 0x1f
+            when {
+                element !in expected -> {
+                    collection.add(element, priority)
+                    expected[element] = priority to order++
+                }
+
+                i % 2 == 0 -> {
+                    collection.update(element, priority)
+                    expected[element] = priority to order++
+                }
+
+                else -> {
+                    collection.remove(element)
+                    expected.remove(element)
+                }
+            }
+            assertEquals(expected.size, collection.count)
+        }
+
+        val expectedOrder = expected.entries
+            .sortedWith(compareBy({ it.value.first }, { it.value.second }))
+            .map { it.key }
+        assertEquals(expectedOrder, collection.drain())
+    }
+
+    @Test
+    fun removeAbsentElementTest() {
+        val collection = DeterministicPriorityCollection<Int, Int>(naturalOrder())
+        collection.add(1, 1)
+
+        assertThrows<NoSuchElementException> { collection.remove(2) }
+    }
+
+    private fun <T> DeterministicPriorityCollection<T, *>.drain(): List<T> {
+        val result = mutableListOf<T>()
+        while (count > 0) {
+            val element = peek()
+            result += element
+            remove(element)
+        }
+        return result
+    }
+}
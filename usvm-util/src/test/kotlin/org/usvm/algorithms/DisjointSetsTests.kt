@@ -37,4 +37,19 @@ class DisjointSetsTests {
         verify(exactly = 4) { subscriber1(any(), any()) }
         verify(exactly = 1) { subscriber2(any(), any()) }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun testCloneIsIndependent() {
+        val dsu1 = DisjointSets<String>()
+        dsu1.union("a", "b")
+
+        val dsu2 = dsu1.clone()
+        dsu2.union("b", "c")
+        dsu1.union("a", "d")
+
+        assertTrue { dsu2.connected("a", "c") }
+        assertFalse { dsu2.connected("a", "d") }
+        assertTrue { dsu1.connected("b", "d") }
+        assertFalse { dsu1.connected("a", "c") }
+    }
+}
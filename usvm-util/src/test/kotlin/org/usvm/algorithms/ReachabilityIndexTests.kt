@@ -0,0 +1,55 @@
+package org.usvm.algorithms
+
+import org.junit.jupiter.api.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+internal class ReachabilityIndexTests {
+
+    @Test
+    fun cyclesAreReachableTest() {
+        val graph = mapOf(
+            0 to listOf(1),
+            1 to listOf(2),
+            2 to listOf(0, 3),
+            3 to listOf(4),
+            4 to listOf(3),
+        )
+        val index = ReachabilityIndex<Int> { graph[it].orEmpty().asSequence() }
+
+        assertTrue(index.isReachable(3, 4))
+        assertTrue(index.isReachable(4, 3))
+        assertFalse(index.isReachable(3, 0))
+        assertTrue(index.isReachable(1, 0))
+        assertTrue(index.isReachable(0, 4))
+        assertTrue(index.isReachable(5, 5))
+        assertFalse(index.isReachable(5, 0))
+    }
+
+    @Test
+    fun randomGraphsTest() {
+        for (seed in 1..20) {
+            val verticesCount = 60
+            val graph = List(verticesCount) { vertex ->
+                val edgesCount = (pseudoRandom(seed * verticesCount + vertex) and 0x7fffffff) % 3
+                List(edgesCount) { edge ->
+                    (pseudoRandom(-(seed * verticesCount + vertex) * 3 - edge) and 0x7fffffff) % verticesCount
+                }
+            }
+            val calls = mutableMapOf<Int, Int>()
+            val index = ReachabilityIndex<Int> { vertex ->
+                calls.merge(vertex, 1, Int::plus)
+                graph[vertex].asSequence()
+            }
+
+            for (from in 0 until verticesCount) {
+                val expected = bfsTraversal(listOf(from)) { graph[it].asSequence() }.toSet()
+                for (to in 0 until verticesCount) {
+                    assertEquals(to in expected, index.isReachable(from, to), "$from -> $to")
+                }
+            }
+            assertTrue(calls.values.all { it == 1 })
+        }
+    }
+}